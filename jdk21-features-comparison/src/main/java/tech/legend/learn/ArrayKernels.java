@@ -0,0 +1,117 @@
+package tech.legend.learn;
+
+/**
+ * 数组数值变换内核：out[i] = max(0, ((C3·x + C2)·x + C1)·x + C0)，用于衡量 SIMD 的收益空间
+ * Numeric array transform kernels: out[i] = max(0, ((C3·x + C2)·x + C1)·x + C0), used to measure SIMD headroom
+ *
+ * 三种实现计算相同的结果 / Three implementations compute the same result:
+ * - scalar: 条件赋值阻止 C2 的 SuperWord 自动向量化，逐元素执行
+ *   The conditional assignment keeps C2's SuperWord from auto-vectorizing, one element at a time
+ * - autoVectorized: 无分支的计数循环，C2 会自动生成 SIMD 指令（可用 -XX:-UseSuperWord 对照）
+ *   Branch-free counted loop that C2 turns into SIMD instructions (compare with -XX:-UseSuperWord)
+ * - VectorKernels.polynomial: 显式 Vector API（jdk.incubator.vector），运行时需要 --add-modules jdk.incubator.vector
+ *   Explicit Vector API (jdk.incubator.vector), needs --add-modules jdk.incubator.vector at run time
+ *
+ * 数据布局 / Data layout:
+ *   一对长度为 elements 的输入 / 输出数组被切分为 elements / size 个任务，每个任务对自己的区间执行 passes 次；
+ *   size 决定单个任务的工作集（L1 / L2 / 内存），总计算量与 size 无关
+ *   One input / output array pair of length elements is split into elements / size tasks, each running
+ *   passes times over its own range; size sets a task's working set (L1 / L2 / memory) while the total
+ *   work is independent of size
+ */
+final class ArrayKernels {
+
+    static final double C0 = -0.25;
+    static final double C1 = 1.5;
+    static final double C2 = -0.75;
+    static final double C3 = 0.125;
+
+    /**
+     * 对 [from, to) 区间执行一次变换，返回最后一个输出值
+     * Transform the range [from, to) once and return the last output value
+     */
+    @FunctionalInterface
+    interface Kernel {
+        double apply(double[] in, double[] out, int from, int to);
+    }
+
+    private final int size;
+    private final int tasks;
+    private final int passes;
+    private final double[] in;
+    private final double[] out;
+
+    /**
+     * @param size 每个任务处理的数组长度 / Array length processed per task
+     * @param elements 数组总长度（向下取整为 size 的倍数）/ Total array length (rounded down to a multiple of size)
+     * @param passes 每个任务对自己区间的重复次数 / Passes each task makes over its range
+     */
+    ArrayKernels(int size, int elements, int passes) {
+        this.size = Math.max(1, size);
+        this.tasks = Math.max(1, elements / this.size);
+        this.passes = Math.max(1, passes);
+        this.in = new double[this.tasks * this.size];
+        this.out = new double[in.length];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = (i % 1024) / 256.0 - 2.0;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int tasks() {
+        return tasks;
+    }
+
+    int passes() {
+        return passes;
+    }
+
+    /**
+     * 执行第 task 个任务 / Run the task-th task
+     *
+     * @return 最后一个输出值，防止 JIT 消除计算 / Last output value, so the JIT cannot eliminate the work
+     */
+    double run(Kernel kernel, int task) {
+        int from = task * size;
+        double last = 0;
+        for (int p = 0; p < passes; p++) {
+            last = kernel.apply(in, out, from, from + size);
+        }
+        return last;
+    }
+
+    /** 标量实现 / Scalar implementation */
+    static double scalar(double[] in, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = in[i];
+            double v = ((C3 * x + C2) * x + C1) * x + C0;
+            out[i] = v > 0 ? v : 0;
+        }
+        return out[to - 1];
+    }
+
+    /** 可自动向量化的实现 / Auto-vectorizable implementation */
+    static double autoVectorized(double[] in, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double x = in[i];
+            out[i] = Math.max(0, ((C3 * x + C2) * x + C1) * x + C0);
+        }
+        return out[to - 1];
+    }
+
+    /**
+     * Vector API 实现是否可用（需要 --add-modules jdk.incubator.vector）
+     * Whether the Vector API implementation can be loaded (requires --add-modules jdk.incubator.vector)
+     */
+    static boolean vectorApiAvailable() {
+        try {
+            Class.forName("tech.legend.learn.VectorKernels");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package tech.legend.learn;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * 任务到达调度策略 / Task arrival schedule
+ *
+ * 闭环（closed-loop）：任务在紧凑循环中尽快提交，延迟从任务开始运行时计算，排队时间不可见
+ * Closed loop: tasks are submitted as fast as possible in a tight loop; latency is measured from
+ * when the task starts running, so queueing delay is invisible
+ *
+ * 开环（open-loop）：任务按目标速率到达（恒定间隔或泊松过程），延迟从"计划开始时间"计算，
+ * 即使提交线程或执行器落后也不会少算（避免 coordinated omission）
+ * Open loop: tasks arrive at a target rate (constant spacing or a Poisson process) and latency is
+ * measured from the intended start time, so a lagging submitter or executor cannot hide delay
+ * (avoids coordinated omission)
+ */
+sealed interface ArrivalSchedule {
+
+    /**
+     * 距离下一个任务计划到达的间隔（纳秒）；闭环返回 0
+     * Interval until the next task's intended arrival (nanoseconds); 0 for closed loop
+     *
+     * @param random 随机数源（仅泊松到达使用）/ Random source (used by Poisson arrivals only)
+     */
+    long nextIntervalNanos(RandomGenerator random);
+
+    /** 是否为开环模式 / Whether this is an open-loop schedule */
+    default boolean isOpenLoop() {
+        return !(this instanceof ClosedLoop);
+    }
+
+    /** 用于输出的描述 / Human-readable description */
+    String describe();
+
+    static ArrivalSchedule closedLoop() {
+        return new ClosedLoop(0);
+    }
+
+    /**
+     * 限制并发数的闭环：最多 maxInFlight 个任务同时在途，完成一个再提交一个
+     * Concurrency-bounded closed loop: at most maxInFlight tasks in flight, one submitted per completion
+     *
+     * @param maxInFlight 最大在途任务数，0 表示不限制 / Maximum in-flight tasks, 0 for unbounded
+     */
+    static ArrivalSchedule closedLoop(int maxInFlight) {
+        return new ClosedLoop(Math.max(0, maxInFlight));
+    }
+
+    /**
+     * 按名称创建开环调度 / Create an open-loop schedule by name
+     *
+     * @param kind "constant" 或 "poisson" / "constant" or "poisson"
+     * @param ratePerSecond 目标到达速率（任务数/秒）/ Target arrival rate (tasks/second)
+     */
+    static ArrivalSchedule of(String kind, double ratePerSecond) {
+        if (ratePerSecond <= 0) return closedLoop();
+        return switch (kind) {
+            case "poisson" -> new Poisson(ratePerSecond);
+            default -> new Constant(ratePerSecond);
+        };
+    }
+
+    /**
+     * 闭环：尽快提交，可选限制在途任务数 / Closed loop: submit as fast as possible, optionally bounding in-flight tasks
+     *
+     * @param maxInFlight 最大在途任务数，0 表示不限制 / Maximum in-flight tasks, 0 for unbounded
+     */
+    record ClosedLoop(int maxInFlight) implements ArrivalSchedule {
+        @Override
+        public long nextIntervalNanos(RandomGenerator random) {
+            return 0;
+        }
+
+        @Override
+        public String describe() {
+            return maxInFlight > 0 ? "closed-loop concurrency=" + maxInFlight : "closed-loop";
+        }
+    }
+
+    /** 恒定间隔到达 / Constant inter-arrival spacing */
+    record Constant(double ratePerSecond) implements ArrivalSchedule {
+        @Override
+        public long nextIntervalNanos(RandomGenerator random) {
+            return Math.round(1_000_000_000.0 / ratePerSecond);
+        }
+
+        @Override
+        public String describe() {
+            return String.format(Locale.ROOT, "open-loop constant %.0f/s", ratePerSecond);
+        }
+    }
+
+    /** 泊松到达：间隔服从指数分布 / Poisson arrivals: exponentially distributed spacing */
+    record Poisson(double ratePerSecond) implements ArrivalSchedule {
+        @Override
+        public long nextIntervalNanos(RandomGenerator random) {
+            // 逆变换采样：-ln(1-U)/λ / Inverse transform sampling: -ln(1-U)/λ
+            return Math.round(-Math.log(1.0 - random.nextDouble()) / ratePerSecond * 1_000_000_000.0);
+        }
+
+        @Override
+        public String describe() {
+            return String.format(Locale.ROOT, "open-loop poisson %.0f/s", ratePerSecond);
+        }
+    }
+}
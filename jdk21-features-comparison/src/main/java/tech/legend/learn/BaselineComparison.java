@@ -0,0 +1,136 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 与基准结果比较，判定吞吐量与 p99 的显著变化
+ * Compare a run against saved baseline results and flag significant throughput / p99 changes
+ *
+ * 判定规则 / Rules:
+ * - 吞吐量（多次试验）：基准值落在跨试验 95% 置信区间之外，且相对变化超过 tolerancePct，才视为显著
+ *   Throughput (repeated trials): significant only when the baseline value lies outside the cross-trial
+ *   95% confidence interval and the relative change exceeds tolerancePct
+ * - 吞吐量（单次运行）：没有方差估计，相对变化超过 tolerancePct 只记为"超出容差"，不称为显著
+ *   Throughput (single run): there is no variance estimate, so a change beyond tolerancePct is only
+ *   reported as "exceeds tolerance", not as significant
+ * - p99：两次运行的 95% 置信区间不重叠，且相对变化超过 tolerancePct，才视为显著
+ *   p99: significant only when the two 95% confidence intervals do not overlap and the relative
+ *   change exceeds tolerancePct
+ * - 多次试验时 p99 取最后一次试验的直方图 / With repeated trials, p99 comes from the last trial's histogram
+ * - 吞吐量下降（显著或超出容差）或 p99 显著上升记为回归
+ *   A throughput drop (significant or beyond tolerance) or a significant p99 rise is a regression
+ */
+final class BaselineComparison {
+
+    private BaselineComparison() {
+    }
+
+    /**
+     * 单个测试的比较结果 / Comparison result of one test
+     *
+     * @param name 测试名称 / Test name
+     * @param baseline 基准记录 / Baseline entry
+     * @param current 当前记录（多次试验时吞吐量为均值）/ Current entry (mean throughput with repeated trials)
+     * @param trials 当前结果的试验次数 / Number of trials behind the current entry
+     * @param throughputChangePct 吞吐量相对变化（%）/ Relative throughput change (%)
+     * @param p99ChangePct p99 相对变化（%）/ Relative p99 change (%)
+     * @param throughputSignificant 吞吐量变化是否显著（需要多次试验）/ Whether the throughput change is significant (needs repeated trials)
+     * @param throughputExceedsTolerance 单次运行时吞吐量变化是否超出容差 / Whether a single run's throughput change exceeds the tolerance
+     * @param p99Significant p99 变化是否显著 / Whether the p99 change is significant
+     */
+    record Delta(String name, ResultSink.Entry baseline, ResultSink.Entry current, int trials,
+                 double throughputChangePct, double p99ChangePct,
+                 boolean throughputSignificant, boolean throughputExceedsTolerance, boolean p99Significant) {
+
+        /** 吞吐量变化是否被标记（显著或超出容差）/ Whether the throughput change is flagged (significant or beyond tolerance) */
+        boolean throughputFlagged() {
+            return throughputSignificant || throughputExceedsTolerance;
+        }
+
+        /** 是否为回归（吞吐量下降被标记或 p99 显著上升）/ Whether this is a regression */
+        boolean regression() {
+            return (throughputFlagged() && throughputChangePct < 0) || (p99Significant && p99ChangePct > 0);
+        }
+
+        /** 回归是否有统计支持（而非仅超出容差）/ Whether the regression is backed by statistics rather than tolerance alone */
+        boolean significantRegression() {
+            return (throughputSignificant && throughputChangePct < 0) || (p99Significant && p99ChangePct > 0);
+        }
+    }
+
+    /**
+     * 按测试名称匹配并比较，基准中不存在的测试会被跳过；同名的多个结果视为多次试验
+     * Match runs by name and compare them; runs missing from the baseline are skipped, and several
+     * results with the same name are treated as repeated trials
+     *
+     * @param baseline 基准记录 / Baseline entries keyed by name
+     * @param results 当前结果 / Current results
+     * @param tolerancePct 相对变化容差（%）/ Relative change tolerance (%)
+     */
+    static List<Delta> compare(Map<String, ResultSink.Entry> baseline, List<RunResult> results, double tolerancePct) {
+        Map<String, List<RunResult>> byName = new LinkedHashMap<>();
+        for (RunResult r : results) byName.computeIfAbsent(r.name(), k -> new ArrayList<>()).add(r);
+
+        List<Delta> deltas = new ArrayList<>();
+        byName.forEach((name, trials) -> {
+            ResultSink.Entry base = baseline.get(name);
+            if (base == null) return;
+            ResultSink.Entry last = ResultSink.Entry.of(trials.get(trials.size() - 1));
+            TrialStatistics.Summary tput = TrialStatistics.Summary.of(
+                    trials.stream().mapToDouble(RunResult::throughput).toArray());
+            ResultSink.Entry cur = new ResultSink.Entry(name, tput.mean(),
+                    last.p99Ms(), last.p99LowerMs(), last.p99UpperMs());
+
+            double tputPct = changePct(base.throughput(), cur.throughput());
+            double p99Pct = changePct(base.p99Ms(), cur.p99Ms());
+            boolean beyondTolerance = Math.abs(tputPct) > tolerancePct;
+            boolean outsideCi = base.throughput() < tput.ciLower() || base.throughput() > tput.ciUpper();
+            boolean disjoint = cur.p99LowerMs() > base.p99UpperMs() || cur.p99UpperMs() < base.p99LowerMs();
+
+            // 只有多次试验才有吞吐量的方差估计 / Only repeated trials give a throughput variance estimate
+            boolean repeated = trials.size() > 1;
+            deltas.add(new Delta(name, base, cur, trials.size(), tputPct, p99Pct,
+                    repeated && outsideCi && beyondTolerance,
+                    !repeated && beyondTolerance,
+                    disjoint && Math.abs(p99Pct) > tolerancePct));
+        });
+        return deltas;
+    }
+
+    private static double changePct(double before, double after) {
+        if (before == 0) return after == 0 ? 0 : Double.POSITIVE_INFINITY;
+        return (after - before) / before * 100.0;
+    }
+
+    /**
+     * 输出比较表 / Print the comparison table
+     *
+     * @param source 基准文件名 / Baseline file name
+     */
+    static void print(String source, List<Delta> deltas, double tolerancePct) {
+        System.out.printf(Locale.ROOT, "=== Baseline comparison (%s, tolerance=%.1f%%) ===\n", source, tolerancePct);
+        System.out.printf(Locale.ROOT, "%-26s %12s %12s %3s %9s   %-26s %-26s %9s  %s\n",
+                "run", "base tput/s", "tput/s", "n", "chg%", "base p99 ms [95% CI]", "p99 ms [95% CI]", "chg%", "verdict");
+        for (Delta d : deltas) {
+            String verdict = d.significantRegression() ? "REGRESSION"
+                    : d.regression() ? "REGRESSION (exceeds tolerance)"
+                    : d.throughputSignificant() || d.p99Significant() ? "improved"
+                    : d.throughputExceedsTolerance() ? "improved (exceeds tolerance)" : "ok";
+            String tputMark = d.throughputSignificant() ? "*" : d.throughputExceedsTolerance() ? "~" : " ";
+            System.out.printf(Locale.ROOT, "%-26s %12.1f %12.1f %3d %+8.1f%s   %-26s %-26s %+8.1f%s  %s\n",
+                    d.name(), d.baseline().throughput(), d.current().throughput(), d.trials(),
+                    d.throughputChangePct(), tputMark,
+                    ci(d.baseline()), ci(d.current()),
+                    d.p99ChangePct(), d.p99Significant() ? "*" : " ", verdict);
+        }
+        System.out.println("(* = significant, ~ = exceeds tolerance without a variance estimate; use trials=N for throughput CIs)");
+    }
+
+    private static String ci(ResultSink.Entry e) {
+        return String.format(Locale.ROOT, "%.3f [%.3f,%.3f]", e.p99Ms(), e.p99LowerMs(), e.p99UpperMs());
+    }
+}
@@ -0,0 +1,226 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界虚拟线程执行器：带准入控制与背压的 newVirtualThreadPerTaskExecutor
+ * Bounded virtual-thread executor: newVirtualThreadPerTaskExecutor with admission control and backpressure
+ *
+ * newVirtualThreadPerTaskExecutor 接受任意多的任务并立即为每个任务创建虚拟线程，io-heavy 这类负载下
+ * 会同时挂起数百万个虚拟线程（栈帧在堆上），造成堆占用飙升。这个执行器：
+ * newVirtualThreadPerTaskExecutor accepts any amount of work and gives every task a virtual thread at once;
+ * under io-heavy style loads that parks millions of virtual threads (with heap-resident stacks) and spikes
+ * the heap. This executor:
+ * - 用信号量限制同时运行的任务数，每个运行中的任务一个虚拟线程
+ *   Caps concurrently running tasks with a semaphore, one virtual thread per running task
+ * - 超出部分以 Runnable 形式排队（不创建虚拟线程），排队数不超过 maxQueued
+ *   Queues the excess as plain Runnables (no virtual thread yet), at most maxQueued of them
+ * - 两者都满时按策略处理：拒绝、由提交线程执行、或阻塞提交线程
+ *   When both are full, applies the policy: reject, run on the submitting thread, or block the submitter
+ * - 提供运行中 / 排队中的实时指标与峰值 / Exposes live in-flight / queued gauges and their peaks
+ *
+ * shutdownNow 只丢弃排队中的任务，不会中断已在运行的虚拟线程
+ * shutdownNow only drops queued tasks; running virtual threads are not interrupted
+ */
+final class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * 运行数与排队数都已满时的处理方式 / What to do when both running and queued slots are full
+     */
+    enum OverflowPolicy {
+        /** 抛出 RejectedExecutionException / Throw RejectedExecutionException */
+        REJECT,
+        /** 由提交线程直接执行（天然限速）/ Run on the submitting thread (natural throttling) */
+        CALLER_RUNS,
+        /** 阻塞提交线程直到有空位 / Block the submitter until a slot frees up */
+        BLOCK;
+
+        static OverflowPolicy of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final OverflowPolicy policy;
+
+    /** 准入许可：运行中 + 排队中的上限 / Admission permits: cap on running + queued */
+    private final Semaphore admission;
+    /** 运行许可：同时运行的上限 / Run permits: cap on concurrently running */
+    private final Semaphore running;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean shutdown;
+
+    /**
+     * @param maxConcurrency 同时运行的任务数上限 / Maximum concurrently running tasks
+     * @param maxQueued 排队任务数上限（0 表示不排队）/ Maximum queued tasks (0 disables queueing)
+     * @param policy 溢出处理方式 / Overflow policy
+     */
+    BoundedVirtualThreadExecutor(int maxConcurrency, int maxQueued, OverflowPolicy policy) {
+        if (maxConcurrency < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1 and maxQueued >= 0");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.policy = Objects.requireNonNull(policy);
+        this.admission = new Semaphore((int) Math.min(Integer.MAX_VALUE, (long) maxConcurrency + maxQueued));
+        this.running = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task);
+        if (shutdown) throw new RejectedExecutionException("executor is shut down");
+        if (!admit(task)) return;
+        admitted.incrementAndGet();
+        if (shutdown) {
+            release();
+            throw new RejectedExecutionException("executor is shut down");
+        }
+        peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        pending.offer(task);
+        dispatch();
+    }
+
+    /**
+     * 获取准入许可；CALLER_RUNS 未获得许可时在当前线程执行任务并返回 false
+     * Take an admission permit; CALLER_RUNS without a permit runs the task here and returns false
+     */
+    private boolean admit(Runnable task) {
+        if (admission.tryAcquire()) return true;
+        switch (policy) {
+            case REJECT -> {
+                rejected.increment();
+                throw new RejectedExecutionException(String.format(Locale.ROOT,
+                        "capacity exhausted: %d running, %d queued", inFlight.get(), queued.get()));
+            }
+            case CALLER_RUNS -> {
+                callerRuns.increment();
+                task.run();
+                return false;
+            }
+            case BLOCK -> {
+                blocked.increment();
+                try {
+                    admission.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("interrupted while waiting for capacity", e);
+                }
+            }
+        }
+        throw new IllegalStateException("unknown policy: " + policy);
+    }
+
+    /** 在运行许可范围内启动排队任务 / Start queued tasks as far as run permits allow */
+    private void dispatch() {
+        while (!pending.isEmpty() && running.tryAcquire()) {
+            Runnable next = pending.poll();
+            if (next == null) {
+                running.release();
+                continue;
+            }
+            queued.decrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.ofVirtual().start(() -> runTask(next));
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            running.release();
+            release();
+            // 释放运行许可后再调度一次，避免并发提交时遗留排队任务
+            // Dispatch again after releasing the run permit so a racing submission is not stranded
+            dispatch();
+        }
+    }
+
+    private void release() {
+        admission.release();
+        if (admitted.decrementAndGet() == 0 && shutdown) terminated.countDown();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (admitted.get() == 0) terminated.countDown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> dropped = new ArrayList<>();
+        for (Runnable r; (r = pending.poll()) != null; ) {
+            queued.decrementAndGet();
+            dropped.add(r);
+            release();
+        }
+        return dropped;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /** 运行中的任务数 / Tasks running now */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /** 排队中的任务数 / Tasks queued now */
+    int queued() {
+        return queued.get();
+    }
+
+    /**
+     * 输出配置与指标 / Print configuration and gauges
+     *
+     * @param indent 行首缩进 / Line indent
+     */
+    void printStats(String indent) {
+        System.out.printf(Locale.ROOT,
+                "%sbounded -> maxConcurrency=%d, maxQueued=%d, policy=%s, peak inFlight=%d, peak queued=%d, "
+                        + "rejected=%d, callerRuns=%d, blocked=%d\n",
+                indent, maxConcurrency, maxQueued, policy.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                peakInFlight.get(), peakQueued.get(), rejected.sum(), callerRuns.sum(), blocked.sum());
+    }
+}
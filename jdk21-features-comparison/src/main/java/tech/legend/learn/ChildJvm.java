@@ -0,0 +1,108 @@
+package tech.legend.learn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * 子 JVM 启动与结果回传：调度器扫描与分叉试验共用
+ * Child JVM launching and result reporting, shared by the scheduler sweep and forked trials
+ *
+ * 子进程以 child.report=true 运行，每次测试结束后输出一行以 REPORT_PREFIX 开头、制表符分隔的结果：
+ * Children run with child.report=true and print one tab-separated line per run, starting with REPORT_PREFIX:
+ *   name, throughput, response p99 ms, cpu ms, 比较延迟 / comparison latency p50, p90, p99, p99.9, p99.99 ms
+ */
+final class ChildJvm {
+
+    /** 子进程结果行前缀 / Prefix of child result lines */
+    static final String REPORT_PREFIX = "##RESULT";
+
+    private ChildJvm() {
+    }
+
+    /**
+     * 格式化子进程结果行 / Format a child result line
+     */
+    static String reportLine(RunResult r) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%s\t%s\t%.3f\t%.6f\t%.3f",
+                REPORT_PREFIX, r.name(), r.throughput(), r.responseMs(0.99), r.cpuNanos() / 1_000_000.0));
+        LatencyHistogram h = r.comparisonLatency();
+        for (double p : TrialStatistics.PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, "\t%.6f", h.valueAtPercentile(p) / 1_000_000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 构造子进程命令：与当前进程相同的 java 与 classpath
+     * Build a child command line using the current java binary and classpath
+     *
+     * @param mainClass 子进程入口类 / Child entry class
+     * @param jvmArgs JVM 参数 / JVM options
+     * @param args 程序参数（会追加 child.report=true）/ Program arguments (child.report=true is appended)
+     */
+    static List<String> command(Class<?> mainClass, List<String> jvmArgs, List<String> args) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // 预览特性（StructuredTaskScope）随父进程一起开启 / Preview features (StructuredTaskScope) follow the parent
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            cmd.add("--enable-preview");
+        }
+        // 孵化模块（Vector API）同样随父进程添加 / The incubator module (Vector API) follows the parent as well
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            cmd.add("--add-modules=jdk.incubator.vector");
+        }
+        cmd.addAll(jvmArgs);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(mainClass.getName());
+        cmd.addAll(args);
+        cmd.add("child.report=true");
+        return cmd;
+    }
+
+    /**
+     * 运行子进程并返回其结果行（已按制表符拆分，跳过预热）；子进程失败时输出其完整日志
+     * Run a child and return its result lines (split on tabs, warmup skipped); dumps the full log if the child fails
+     */
+    static List<String[]> run(List<String> cmd) throws IOException, InterruptedException {
+        return run(cmd, exit -> {
+        });
+    }
+
+    /**
+     * 同 {@link #run(List)}，并把子进程退出码交给调用方（例如钉住超阈值时子进程以 1 退出）
+     * Same as {@link #run(List)}, also handing the child's exit status to the caller (e.g. a child exits
+     * with 1 when pinning exceeded its threshold)
+     */
+    static List<String[]> run(List<String> cmd, IntConsumer exitStatus) throws IOException, InterruptedException {
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        List<String[]> rows = new ArrayList<>();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                output.add(line);
+                if (!line.startsWith(REPORT_PREFIX)) continue;
+                String[] f = line.split("\t");
+                if (f[1].startsWith("WARMUP")) continue;
+                rows.add(f);
+            }
+        }
+        int exit = p.waitFor();
+        if (exit != 0) {
+            // 子进程失败时输出其完整日志便于排查 / Dump the child's full log when it fails
+            System.out.println("    child exited with status " + exit + ", output:");
+            output.forEach(l -> System.out.println("    | " + l));
+        }
+        exitStatus.accept(exit);
+        return rows;
+    }
+}
@@ -0,0 +1,114 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * CPU 密集型任务的并行模型：按整个索引区间驱动，而不是逐个提交任务
+ * Parallelism models for CPU-bound work: drive a whole index range instead of submitting tasks one by one
+ *
+ * 逐个提交 10,000 个微小任务时，提交与队列开销会掩盖计算本身；这里的模型将索引区间切分后再并行：
+ * Submitting 10,000 tiny tasks one by one lets submission and queueing overhead dominate the computation;
+ * the models here split the index range before going parallel:
+ * - singleThread: 当前线程顺序执行，作为加速比基线 / Sequential on the caller thread, the speedup baseline
+ * - forkJoin: RecursiveTask 二分区间，工作窃取 / RecursiveTask halves the range, work stealing balances it
+ * - parallelStream: IntStream.parallel()（运行在 commonPool 上）/ IntStream.parallel() (runs on the commonPool)
+ * - batched: 每个提交的任务处理一段连续索引 / Each submitted task processes a contiguous chunk of indices
+ *
+ * 每个模型都返回全部结果之和，防止 JIT 消除计算
+ * Every model returns the sum of all results so the JIT cannot eliminate the work
+ */
+final class CpuParallelism {
+
+    private CpuParallelism() {
+    }
+
+    /** 当前线程顺序执行 / Run sequentially on the caller thread */
+    static double singleThread(int tasks, IntToDoubleFunction task) {
+        double sum = 0;
+        for (int i = 0; i < tasks; i++) sum += task.applyAsDouble(i);
+        return sum;
+    }
+
+    /**
+     * ForkJoinPool + RecursiveTask：区间大于阈值时一分为二，小区间顺序执行
+     * ForkJoinPool + RecursiveTask: split ranges above the threshold in half, run small ranges sequentially
+     *
+     * @param threshold 顺序执行的最大区间长度 / Largest range run sequentially
+     */
+    static double forkJoin(ForkJoinPool pool, int tasks, int threshold, IntToDoubleFunction task) {
+        return pool.invoke(new RangeTask(0, tasks, Math.max(1, threshold), task));
+    }
+
+    /** IntStream.parallel()，由 commonPool 执行 / IntStream.parallel(), executed by the commonPool */
+    static double parallelStream(int tasks, IntToDoubleFunction task) {
+        return IntStream.range(0, tasks).parallel().mapToDouble(task).sum();
+    }
+
+    /**
+     * 批量提交：每个任务处理 batchSize 个连续索引
+     * Batched submission: each submitted task processes batchSize contiguous indices
+     */
+    static double batched(ExecutorService executor, int tasks, int batchSize, IntToDoubleFunction task) throws Exception {
+        int size = Math.max(1, batchSize);
+        List<Future<Double>> futures = new ArrayList<>();
+        for (int from = 0; from < tasks; from += size) {
+            int lo = from;
+            int hi = Math.min(tasks, from + size);
+            futures.add(executor.submit(() -> {
+                double sum = 0;
+                for (int i = lo; i < hi; i++) sum += task.applyAsDouble(i);
+                return sum;
+            }));
+        }
+        double sum = 0;
+        for (Future<Double> f : futures) sum += f.get();
+        return sum;
+    }
+
+    /**
+     * 默认切分粒度：每个工作线程约 8 段，兼顾负载均衡与调度开销
+     * Default split granularity: about 8 chunks per worker, balancing load against scheduling overhead
+     */
+    static int defaultChunk(int tasks, int parallelism) {
+        return Math.max(1, tasks / (Math.max(1, parallelism) * 8));
+    }
+
+    /**
+     * 区间任务（只在进程内执行，从不序列化）/ Range task (only ever run in-process, never serialized)
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveTask<Double> {
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final IntToDoubleFunction task;
+
+        RangeTask(int from, int to, int threshold, IntToDoubleFunction task) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.task = task;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= threshold) {
+                double sum = 0;
+                for (int i = from; i < to; i++) sum += task.applyAsDouble(i);
+                return sum;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, threshold, task);
+            left.fork();
+            double right = new RangeTask(mid, to, threshold, task).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package tech.legend.learn;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扇出 / 扇入负载：一个请求并发调用 width 个下游，全部返回后才完成
+ * Fan-out / fan-in workload: one request calls width downstreams concurrently and completes when all have returned
+ *
+ * 下游调用模型 / Downstream call model:
+ * - 每次调用阻塞 subtaskMs 毫秒；slowPct% 的调用放大 slowFactor 倍（尾延迟随扇出宽度放大）
+ *   Each call blocks for subtaskMs; slowPct% of calls are stretched by slowFactor (tail latency amplifies with width)
+ * - failPct% 的调用在 subtaskMs / 2 时失败 / failPct% of calls fail after subtaskMs / 2
+ * - 按 (请求, 子任务, 副本) 确定随机数，多次运行选中相同的调用
+ *   Randomness is keyed by (request, subtask, replica), so repeated runs pick the same calls
+ *
+ * 浪费的工作 / Wasted work:
+ *   请求结果已确定（某个子任务失败，或对冲调用已有副本成功）后，其余子任务仍在运行的时间；
+ *   能够取消兄弟任务的方式（StructuredTaskScope）浪费接近 0，allOf 与逐个 join 则会跑完全部子任务
+ *   Time siblings keep running after the outcome is decided (a subtask failed, or a hedged call already
+ *   has a winning replica); approaches that cancel siblings (StructuredTaskScope) waste close to nothing,
+ *   while allOf and join-all run every subtask to completion
+ *
+ * StructuredTaskScope 在 JDK 21 中是预览 API，相关实现放在 StructuredFanOut 中，仅在 --enable-preview 时加载
+ * StructuredTaskScope is a preview API in JDK 21; its approaches live in StructuredFanOut and are only
+ * loaded under --enable-preview
+ */
+final class FanOutWorkload {
+
+    /**
+     * 一组调用的结果判定时刻（首次调用 decide() 的时间）
+     * Decision instant of a group of calls (time of the first decide())
+     */
+    static final class Group {
+        private final AtomicLong decidedAt = new AtomicLong();
+
+        void decide() {
+            decidedAt.compareAndSet(0, System.nanoTime());
+        }
+
+        long decidedAt() {
+            return decidedAt.get();
+        }
+    }
+
+    private final int width;
+    private final int subtaskMs;
+    private final double slowPct;
+    private final int slowFactor;
+    private final double failPct;
+    private final int hedge;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder wastedNanos = new LongAdder();
+
+    /**
+     * @param width 每个请求的下游调用数 / Downstream calls per request
+     * @param subtaskMs 每次调用的阻塞时间（毫秒）/ Blocking time per call (milliseconds)
+     * @param slowPct 慢调用百分比 / Percentage of slow calls
+     * @param slowFactor 慢调用放大倍数 / Stretch factor of slow calls
+     * @param failPct 失败调用百分比 / Percentage of failing calls
+     * @param hedge 对冲副本数（ShutdownOnSuccess）/ Hedged replicas per call (ShutdownOnSuccess)
+     */
+    FanOutWorkload(int width, int subtaskMs, double slowPct, int slowFactor, double failPct, int hedge) {
+        this.width = Math.max(1, width);
+        this.subtaskMs = Math.max(1, subtaskMs);
+        this.slowPct = Math.min(100.0, Math.max(0.0, slowPct));
+        this.slowFactor = Math.max(1, slowFactor);
+        this.failPct = Math.min(100.0, Math.max(0.0, failPct));
+        this.hedge = Math.max(1, hedge);
+    }
+
+    int width() {
+        return width;
+    }
+
+    int hedge() {
+        return hedge;
+    }
+
+    /**
+     * 一次下游调用 / One downstream call
+     *
+     * @param request 请求索引 / Request index
+     * @param sub 子任务索引 / Subtask index
+     * @param replica 副本索引（非对冲时为 0）/ Replica index (0 when not hedged)
+     * @param requestGroup 请求级判定：非对冲调用失败时判定 / Request-level decision, made when an unhedged call fails
+     * @param hedgeGroup 对冲判定：副本成功时判定，非对冲时为 null / Hedge decision, made when a replica succeeds; null when not hedged
+     * @return 调用结果 / Call result
+     * @throws IllegalStateException 调用失败时 / When the call fails
+     * @throws InterruptedException 被取消时 / When cancelled
+     */
+    String call(int request, int sub, int replica, Group requestGroup, Group hedgeGroup) throws InterruptedException {
+        started.increment();
+        SplittableRandom random = new SplittableRandom(((long) request << 32) ^ (sub * 1_000_003L + replica));
+        boolean fail = random.nextDouble() * 100.0 < failPct;
+        boolean slow = !fail && random.nextDouble() * 100.0 < slowPct;
+        long millis = fail ? Math.max(1, subtaskMs / 2) : slow ? (long) subtaskMs * slowFactor : subtaskMs;
+
+        long t0 = System.nanoTime();
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            cancelled.increment();
+            throw e;
+        } finally {
+            recordWaste(t0, System.nanoTime(), requestGroup, hedgeGroup);
+        }
+
+        if (fail) {
+            if (hedgeGroup == null) requestGroup.decide();
+            throw new IllegalStateException("downstream " + sub + "/" + replica + " of request " + request + " failed");
+        }
+        if (hedgeGroup != null) hedgeGroup.decide();
+        return "r" + request + "-" + sub + "-" + replica;
+    }
+
+    private void recordWaste(long start, long end, Group requestGroup, Group hedgeGroup) {
+        long decided = earliest(requestGroup.decidedAt(), hedgeGroup == null ? 0 : hedgeGroup.decidedAt());
+        if (decided != 0 && end > decided) {
+            wastedNanos.add(end - Math.max(start, decided));
+        }
+    }
+
+    private static long earliest(long a, long b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        return Math.min(a, b);
+    }
+
+    /**
+     * 方式一：在平台线程池上 CompletableFuture.supplyAsync + allOf，失败不会取消兄弟任务
+     * Approach 1: CompletableFuture.supplyAsync + allOf on a platform pool; a failure does not cancel siblings
+     */
+    void allOf(int request, Executor pool) {
+        Group group = new Group();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[width];
+        for (int j = 0; j < width; j++) {
+            int sub = j;
+            futures[j] = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call(request, sub, 0, group, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("interrupted");
+                }
+            }, pool);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("fan-out failed", e.getCause());
+        }
+    }
+
+    /**
+     * 方式二：每个子任务一个虚拟线程，逐个 join，同样不会取消兄弟任务
+     * Approach 2: one virtual thread per subtask, joined one by one; siblings are not cancelled either
+     */
+    void threadPerSubtask(int request) {
+        Group group = new Group();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[width];
+        for (int j = 0; j < width; j++) {
+            int sub = j;
+            threads[j] = Thread.ofVirtual().start(() -> {
+                try {
+                    call(request, sub, 0, group, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        boolean interrupted = false;
+        for (Thread t : threads) {
+            while (true) {
+                try {
+                    t.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure.get() != null) throw new IllegalStateException("fan-out failed", failure.get());
+    }
+
+    /**
+     * StructuredFanOut 是否可用（需要 --enable-preview）
+     * Whether StructuredFanOut can be loaded (requires --enable-preview)
+     */
+    static boolean structuredConcurrencyAvailable() {
+        try {
+            Class.forName("tech.legend.learn.StructuredFanOut");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /** 清零计数器（每种方式运行前调用）/ Reset counters (before each approach) */
+    void resetCounters() {
+        started.reset();
+        cancelled.reset();
+        wastedNanos.reset();
+    }
+
+    /**
+     * 输出子任务与浪费统计 / Print subtask and waste statistics
+     *
+     * @param indent 行首缩进 / Line indent
+     * @param requests 请求数 / Number of requests
+     */
+    void printCounters(String indent, int requests) {
+        double wastedMs = wastedNanos.sum() / 1_000_000.0;
+        System.out.printf(Locale.ROOT,
+                "%sfan-out -> subtasks=%d, cancelled=%d, wasted=%.1f ms total (%.3f ms/request)\n",
+                indent, started.sum(), cancelled.sum(), wastedMs, wastedMs / Math.max(1, requests));
+    }
+
+    /** 用于输出的描述 / Human-readable description */
+    String describe() {
+        return String.format(Locale.ROOT, "width=%d, subtaskMs=%d, slow %.1f%% x%d, fail %.1f%%, hedge=%d",
+                width, subtaskMs, slowPct, slowFactor, failPct, hedge);
+    }
+}
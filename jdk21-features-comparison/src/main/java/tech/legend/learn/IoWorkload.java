@@ -0,0 +1,434 @@
+package tech.legend.learn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 可插拔的 IO 负载（通过 io.kind= 选择）
+ * Pluggable IO workloads (selected with io.kind=)
+ *
+ * 虚拟线程在不同阻塞方式下表现差异很大 / Virtual threads behave very differently depending on how they block:
+ * - sleep: Thread.sleep，虚拟线程可以完美卸载 / Thread.sleep, virtual threads unmount perfectly
+ * - socket: 回环 NIO echo 服务器往返，阻塞在 socket 读上（服务端延迟 io.sleepMs 后回显）
+ *   Loopback NIO echo round trip, blocks on a socket read (server echoes after io.sleepMs)
+ * - file: FileChannel 读取临时文件，文件 IO 会占住载体线程（JDK 通过临时扩容载体池补偿）
+ *   FileChannel read of a temp file; file IO holds the carrier (the JDK compensates by growing the carrier pool)
+ * - synchronized: 在 synchronized 块内做 socket 往返，虚拟线程被钉住（pinning）在载体线程上
+ *   Socket round trip inside a synchronized block; the virtual thread is pinned to its carrier
+ * - lock: 同样的临界区改用 ReentrantLock，虚拟线程可以正常卸载
+ *   The same critical section guarded by a ReentrantLock; the virtual thread can unmount normally
+ *
+ * 后两者模拟 "JDBC 驱动用 synchronized 保护连接" 的常见写法
+ * The last two model the common "JDBC driver guards its connection with synchronized" pattern
+ */
+interface IoWorkload extends AutoCloseable {
+
+    /** 单次 echo 请求/响应的字节数 / Bytes per echo request/response */
+    int ECHO_PAYLOAD_BYTES = 64;
+
+    /**
+     * 执行一次 IO 操作 / Perform one IO operation
+     *
+     * @param idx 任务索引 / Task index
+     */
+    void run(int idx);
+
+    /** 负载名称 / Workload name */
+    String name();
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * 按名称创建 IO 负载 / Create an IO workload by name
+     *
+     * @param kind sleep / socket / file / synchronized / lock
+     * @param sleepMs 阻塞时长：sleep 的睡眠时间，或 echo 服务器的回显延迟 / Blocking time: sleep duration or echo server delay
+     * @param fileKb file 负载每次读取的 KB 数 / KB read per task by the file workload
+     * @param lockStripes synchronized/lock 负载的锁分段数 / Lock stripes for the synchronized/lock workloads
+     */
+    static IoWorkload create(String kind, int sleepMs, int fileKb, int lockStripes) throws IOException {
+        return switch (kind) {
+            case "socket" -> new SocketEcho(new EchoServer(sleepMs));
+            case "file" -> new FileRead(fileKb);
+            case "synchronized" -> new SynchronizedSection(new SocketEcho(new EchoServer(sleepMs)), lockStripes);
+            case "lock" -> new LockedSection(new SocketEcho(new EchoServer(sleepMs)), lockStripes);
+            default -> new Sleep(sleepMs);
+        };
+    }
+
+    /** Thread.sleep 模拟阻塞 / Thread.sleep as simulated blocking */
+    record Sleep(int sleepMs) implements IoWorkload {
+        @Override
+        public void run(int idx) {
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                // 恢复中断标志 / Restore interrupt flag
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public String name() {
+            return "sleep";
+        }
+    }
+
+    /**
+     * 回环 echo 往返：每个任务新建连接，写入请求后阻塞读取响应
+     * Loopback echo round trip: each task opens a connection, writes a request and blocks reading the reply
+     */
+    final class SocketEcho implements IoWorkload {
+        /** 连接与读取超时的余量（在服务端延迟之上）/ Connect and read timeout margin on top of the server delay */
+        private static final int TIMEOUT_MARGIN_MS = 10_000;
+
+        private final EchoServer server;
+        private final int timeoutMs;
+
+        SocketEcho(EchoServer server) {
+            this.server = server;
+            this.timeoutMs = server.delayMs() + TIMEOUT_MARGIN_MS;
+        }
+
+        @Override
+        public void run(int idx) {
+            // 使用 Socket 而非 SocketChannel：只有前者的读取遵守 SO_TIMEOUT，服务器失效时任务失败而不是永久阻塞
+            // Socket rather than SocketChannel: only its reads honour SO_TIMEOUT, so a dead server fails the task
+            // instead of blocking it forever
+            try (Socket socket = new Socket()) {
+                // SO_LINGER=0：关闭时直接复位，避免大量 TIME_WAIT 耗尽临时端口
+                // SO_LINGER=0: reset on close so TIME_WAIT sockets don't exhaust ephemeral ports
+                socket.setSoLinger(true, 0);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(timeoutMs);
+                socket.connect(server.address(), timeoutMs);
+                byte[] buf = new byte[ECHO_PAYLOAD_BYTES];
+                ByteBuffer.wrap(buf).putInt(0, idx);
+                socket.getOutputStream().write(buf);
+                InputStream in = socket.getInputStream();
+                for (int n = 0; n < buf.length; ) {
+                    int read = in.read(buf, n, buf.length - n);
+                    if (read < 0) throw new IOException("echo server closed connection early");
+                    n += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String name() {
+            return "socket";
+        }
+
+        @Override
+        public void close() {
+            server.close();
+        }
+    }
+
+    /**
+     * 对临时文件做定位读取（FileChannel.read(buf, position) 线程安全，可共享同一个通道）
+     * Positional reads of a temp file (FileChannel.read(buf, position) is thread-safe, the channel is shared)
+     */
+    final class FileRead implements IoWorkload {
+        private static final int FILE_BLOCKS = 256;
+
+        private final Path file;
+        private final FileChannel channel;
+        private final int readBytes;
+
+        FileRead(int readKb) throws IOException {
+            this.readBytes = Math.max(1, readKb) * 1024;
+            this.file = Files.createTempFile("io-workload", ".bin");
+            byte[] block = new byte[readBytes];
+            for (int i = 0; i < block.length; i++) block[i] = (byte) i;
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < FILE_BLOCKS; i++) out.write(ByteBuffer.wrap(block));
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        @Override
+        public void run(int idx) {
+            ByteBuffer buf = ByteBuffer.allocate(readBytes);
+            long position = (long) (idx % FILE_BLOCKS) * readBytes;
+            try {
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, position + buf.position()) < 0) break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String name() {
+            return "file";
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException ignore) {
+                // 临时文件清理失败不影响结果 / Temp file cleanup failure does not affect results
+            }
+        }
+    }
+
+    /**
+     * synchronized 临界区内做阻塞 IO：JDK 21 中虚拟线程在 monitor 内阻塞会钉住载体线程
+     * Blocking IO inside a synchronized section: in JDK 21 a virtual thread blocking while holding a
+     * monitor pins its carrier thread
+     *
+     * 使用锁分段降低竞争，使测得的差异主要来自 pinning 而非锁争用
+     * Lock striping keeps contention low, so the measured difference comes from pinning, not lock contention
+     */
+    final class SynchronizedSection implements IoWorkload {
+        private final IoWorkload inner;
+        private final Object[] monitors;
+
+        SynchronizedSection(IoWorkload inner, int stripes) {
+            this.inner = inner;
+            this.monitors = new Object[Math.max(1, stripes)];
+            for (int i = 0; i < monitors.length; i++) monitors[i] = new Object();
+        }
+
+        @Override
+        public void run(int idx) {
+            synchronized (monitors[idx % monitors.length]) {
+                inner.run(idx);
+            }
+        }
+
+        @Override
+        public String name() {
+            return "synchronized";
+        }
+
+        @Override
+        public void close() {
+            inner.close();
+        }
+    }
+
+    /** 同样的临界区改用 ReentrantLock，虚拟线程阻塞时可以卸载 / Same section with ReentrantLock, virtual threads can unmount */
+    final class LockedSection implements IoWorkload {
+        private final IoWorkload inner;
+        private final ReentrantLock[] locks;
+
+        LockedSection(IoWorkload inner, int stripes) {
+            this.inner = inner;
+            this.locks = new ReentrantLock[Math.max(1, stripes)];
+            for (int i = 0; i < locks.length; i++) locks[i] = new ReentrantLock();
+        }
+
+        @Override
+        public void run(int idx) {
+            ReentrantLock lock = locks[idx % locks.length];
+            lock.lock();
+            try {
+                inner.run(idx);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String name() {
+            return "lock";
+        }
+
+        @Override
+        public void close() {
+            inner.close();
+        }
+    }
+
+    /**
+     * 回环 NIO echo 服务器：单个 Selector 线程处理所有连接，读满请求后由定时器延迟 delayMs 回显
+     * Loopback NIO echo server: one selector thread serves every connection; once a request is read
+     * a timer echoes it after delayMs
+     *
+     * 服务端只使用平台线程，不与被测的虚拟线程共享载体线程池；否则被钉住的客户端会饿死服务端
+     * The server uses platform threads only and never shares the carrier pool with the virtual threads
+     * under test; otherwise pinned clients could starve the server
+     *
+     * 服务端延迟模拟远端处理时间，客户端因此真正阻塞在 socket 读上而不是 Thread.sleep
+     * The server-side delay models remote processing time, so clients truly block on a socket read
+     * instead of Thread.sleep
+     */
+    final class EchoServer implements AutoCloseable {
+        private final ServerSocketChannel server;
+        private final Selector selector;
+        private final ScheduledExecutorService replyTimer;
+        private final Thread selectorThread;
+        private final int delayMs;
+
+        /** 每个连接的状态：请求缓冲区 + 用于探测客户端关闭的读缓冲区 / Per-connection state: request buffer + drain buffer to detect client close */
+        private record Connection(ByteBuffer request, ByteBuffer drain) {
+        }
+
+        EchoServer(int delayMs) throws IOException {
+            this.delayMs = delayMs;
+            this.server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+            server.configureBlocking(false);
+            this.selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            this.replyTimer = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("echo-reply").factory());
+            this.selectorThread = Thread.ofPlatform().daemon().name("echo-selector").start(this::selectLoop);
+        }
+
+        int delayMs() {
+            return delayMs;
+        }
+
+        InetSocketAddress address() {
+            try {
+                return (InetSocketAddress) server.getLocalAddress();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 单个连接或单次 accept 的 IO 错误（例如高负载下的 EMFILE）只记录日志，服务器继续运行
+         * An IO error on one connection or one accept (e.g. EMFILE under load) is only logged; the server keeps running
+         */
+        private void selectLoop() {
+            while (selector.isOpen()) {
+                try {
+                    selector.select();
+                } catch (ClosedSelectorException e) {
+                    // 服务器已关闭，退出循环 / Server closed, leave the loop
+                    return;
+                } catch (IOException e) {
+                    System.out.println("echo server: select failed, retrying: " + e);
+                    continue;
+                }
+                try {
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    return;
+                }
+            }
+        }
+
+        private void accept() {
+            try {
+                SocketChannel ch;
+                while ((ch = server.accept()) != null) {
+                    try {
+                        ch.configureBlocking(false);
+                        ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                        ch.register(selector, SelectionKey.OP_READ,
+                                new Connection(ByteBuffer.allocate(ECHO_PAYLOAD_BYTES), ByteBuffer.allocate(ECHO_PAYLOAD_BYTES)));
+                    } catch (IOException e) {
+                        System.out.println("echo server: dropping connection: " + e);
+                        ch.close();
+                    }
+                }
+            } catch (IOException e) {
+                // 未接受的连接留在 backlog 中，稍后下一轮 select 再试，避免文件描述符耗尽时空转刷屏
+                // Pending connections stay in the backlog; back off briefly so fd exhaustion doesn't spin the loop
+                System.out.println("echo server: accept failed: " + e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+
+        private void read(SelectionKey key) {
+            SocketChannel ch = (SocketChannel) key.channel();
+            Connection conn = (Connection) key.attachment();
+            try {
+                // 请求已读满后继续读，仅用于发现客户端关闭或复位
+                // Once the request is complete, keep reading only to notice the client closing or resetting
+                ByteBuffer target = conn.request().hasRemaining() ? conn.request() : conn.drain().clear();
+                if (ch.read(target) < 0) {
+                    closeQuietly(key);
+                    return;
+                }
+                if (target == conn.request() && !conn.request().hasRemaining()) {
+                    ByteBuffer reply = conn.request().duplicate().flip();
+                    if (delayMs > 0) {
+                        replyTimer.schedule(() -> reply(key, reply), delayMs, TimeUnit.MILLISECONDS);
+                    } else {
+                        reply(key, reply);
+                    }
+                }
+            } catch (IOException e) {
+                closeQuietly(key);
+            }
+        }
+
+        private void reply(SelectionKey key, ByteBuffer reply) {
+            try {
+                // 64 字节的响应总能一次写入空闲的 socket 发送缓冲区
+                // A 64-byte reply always fits into an idle socket send buffer
+                SocketChannel ch = (SocketChannel) key.channel();
+                while (reply.hasRemaining()) {
+                    if (ch.write(reply) == 0) Thread.onSpinWait();
+                }
+            } catch (IOException e) {
+                closeQuietly(key);
+            }
+        }
+
+        private static void closeQuietly(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignore) {
+                // 关闭失败可忽略 / Close failure can be ignored
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                selector.close();
+                server.close();
+            } catch (IOException ignore) {
+                // 关闭失败可忽略 / Close failure can be ignored
+            }
+            selectorThread.interrupt();
+            replyTimer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package tech.legend.learn;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定内存、对数分桶的并发延迟直方图（HdrHistogram 风格）
+ * Fixed-memory, log-bucketed concurrent latency histogram (HdrHistogram style)
+ *
+ * 设计要点 / Design:
+ * - 值域按 2 的幂划分为若干桶（bucket），每个桶再线性划分为若干子桶（sub-bucket）
+ *   The value range is split into power-of-two buckets, each linearly split into sub-buckets
+ * - 子桶数量由有效数字位数（precision）决定，保证相对误差不超过 10^-precision
+ *   Sub-bucket count is derived from the significant digits, bounding relative error to 10^-precision
+ * - 内存大小只与值域和精度相关，与记录次数无关（百万级任务也是常量内存）
+ *   Memory depends only on range and precision, not on sample count (constant memory for millions of tasks)
+ * - 记录操作无锁（AtomicLongArray / LongAdder），可在多个线程中并发调用
+ *   Recording is lock-free (AtomicLongArray / LongAdder) and safe to call from many threads
+ *
+ * 取代原先 "每任务一个 long 槽位 + Arrays.sort" 的做法，避免大规模运行时的堆占用和排序开销
+ * Replaces the previous "one long slot per task + Arrays.sort" approach, avoiding heap growth
+ * and sort time on large runs
+ */
+final class LatencyHistogram {
+
+    /** 默认可追踪的最大值：1 小时（纳秒）/ Default highest trackable value: 1 hour (nanoseconds) */
+    static final long DEFAULT_HIGHEST_TRACKABLE_NANOS = 3_600_000_000_000L;
+
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final int subBucketCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final AtomicLongArray counts;
+
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 使用默认值域（1 小时）创建直方图
+     * Create a histogram with the default range (1 hour)
+     *
+     * @param significantDigits 有效数字位数（1-5）/ Number of significant decimal digits (1-5)
+     */
+    LatencyHistogram(int significantDigits) {
+        this(DEFAULT_HIGHEST_TRACKABLE_NANOS, significantDigits);
+    }
+
+    /**
+     * @param highestTrackableValue 可追踪的最大值，超出部分按最大值记录 / Highest trackable value, larger values are clamped
+     * @param significantDigits 有效数字位数（1-5）/ Number of significant decimal digits (1-5)
+     */
+    LatencyHistogram(long highestTrackableValue, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be 1..5: " + significantDigits);
+        }
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("highestTrackableValue must be >= 2: " + highestTrackableValue);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        // 在单位精度下需要区分的最大值：2 * 10^digits
+        // Largest value that must be resolved at single-unit precision: 2 * 10^digits
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketCount = 1 << subBucketCountMagnitude;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = subBucketCount - 1;
+        this.leadingZeroCountBase = 64 - subBucketCountMagnitude;
+
+        // 计算覆盖 highestTrackableValue 所需的桶数
+        // Compute the number of buckets needed to cover highestTrackableValue
+        long smallestUntrackableValue = subBucketCount;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.counts = new AtomicLongArray((bucketCount + 1) * subBucketHalfCount);
+    }
+
+    /**
+     * 记录一个值（线程安全）/ Record a value (thread-safe)
+     *
+     * @param value 非负值，通常为纳秒 / Non-negative value, usually nanoseconds
+     */
+    void record(long value) {
+        long v = Math.min(Math.max(0, value), highestTrackableValue);
+        counts.incrementAndGet(countsIndexFor(v));
+        totalCount.increment();
+        totalSum.add(v);
+        min.accumulate(v);
+        max.accumulate(v);
+    }
+
+    /** 记录总数 / Total number of recorded values */
+    long count() {
+        return totalCount.sum();
+    }
+
+    /** 有效数字位数 / Significant digits */
+    int significantDigits() {
+        return significantDigits;
+    }
+
+    /** 精确平均值（基于累加和）/ Exact mean (from the running sum) */
+    double mean() {
+        long n = totalCount.sum();
+        return n == 0 ? 0.0 : (double) totalSum.sum() / n;
+    }
+
+    /** 精确最小值 / Exact minimum */
+    long min() {
+        return totalCount.sum() == 0 ? 0 : min.get();
+    }
+
+    /** 精确最大值 / Exact maximum */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * 查询分位数 / Query a percentile
+     *
+     * 返回值是对应子桶的上界（与 HdrHistogram 一致），误差受 significantDigits 约束；
+     * 结果不会超过实际记录到的最大值
+     * Returns the upper bound of the matching sub-bucket (as HdrHistogram does), with error
+     * bounded by significantDigits; never exceeds the actual recorded maximum
+     *
+     * @param p 分位数（0.0-1.0），如 0.999 表示 99.9% 分位数 / Percentile (0.0-1.0), e.g. 0.999 for p99.9
+     * @return 分位数值 / Percentile value
+     */
+    long valueAtPercentile(double p) {
+        long n = totalCount.sum();
+        if (n == 0) return 0;
+        return valueAtRank((long) Math.ceil(Math.min(1.0, Math.max(0.0, p)) * n));
+    }
+
+    /**
+     * 分位数的置信区间（基于次序统计量的正态近似，与分布无关）
+     * Confidence interval of a percentile (normal approximation of order statistics, distribution-free)
+     *
+     * 第 p 分位数的样本秩近似服从 N(np, np(1-p))，取 np ± z·sqrt(np(1-p)) 两个秩对应的值作为上下界
+     * The sample rank of the p-th quantile is approximately N(np, np(1-p)); the values at ranks
+     * np ± z·sqrt(np(1-p)) are used as the bounds
+     *
+     * @param p 分位数（0.0-1.0）/ Percentile (0.0-1.0)
+     * @param z 标准正态分位数，1.96 对应 95% / Standard normal quantile, 1.96 for 95%
+     * @return 置信区间 / Confidence interval
+     */
+    Bounds percentileConfidenceInterval(double p, double z) {
+        long n = totalCount.sum();
+        if (n == 0) return new Bounds(0, 0);
+        double center = n * p;
+        double halfWidth = z * Math.sqrt(n * p * (1 - p));
+        return new Bounds(valueAtRank((long) Math.floor(center - halfWidth)),
+                valueAtRank((long) Math.ceil(center + halfWidth)));
+    }
+
+    /**
+     * 第 rank 小的记录值（1 起始，超出范围时截断）
+     * The rank-th smallest recorded value (1-based, clamped to the valid range)
+     */
+    long valueAtRank(long rank) {
+        long n = totalCount.sum();
+        if (n == 0) return 0;
+        long target = Math.min(n, Math.max(1, rank));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(valueFromIndex(i)), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * 合并另一个直方图（两者精度与值域需相同）
+     * Merge another histogram (both must share precision and range)
+     */
+    void add(LatencyHistogram other) {
+        if (other.counts.length() != counts.length() || other.highestTrackableValue != highestTrackableValue) {
+            throw new IllegalArgumentException("incompatible histogram layout");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        totalCount.add(other.totalCount.sum());
+        totalSum.add(other.totalSum.sum());
+        if (other.count() > 0) {
+            min.accumulate(other.min());
+            max.accumulate(other.max());
+        }
+    }
+
+    /**
+     * 区间上下界 / Interval bounds
+     */
+    record Bounds(long lower, long upper) {
+    }
+
+    // ============================================
+    // 索引计算 / Index arithmetic
+    // ============================================
+
+    private int countsIndexFor(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long valueFromIndex(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    private long highestEquivalentValue(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        int adjustedBucket = subBucketIndex >= subBucketCount ? bucketIndex + 1 : bucketIndex;
+        long lowest = (long) subBucketIndex << bucketIndex;
+        return lowest + (1L << adjustedBucket) - 1;
+    }
+}
@@ -0,0 +1,394 @@
+package tech.legend.learn;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.ObjectName;
+
+/**
+ * 每个并发任务的内存占用：同时挂起 N 个任务，测量 RSS、堆占用与 NMT 原生内存
+ * Memory footprint per concurrent task: park N tasks at once and measure RSS, heap used and NMT native memory
+ *
+ * 回答"一个 2 GB 容器能同时容纳多少个在途请求"：每个 (线程类型, 栈深度, N) 组合在一个新的子 JVM 中运行，
+ * 子 JVM 以 -XX:MaxRAM=<预算> 启动（堆上限按容器规则取 75%），并开启 -XX:NativeMemoryTracking=summary
+ * Answers "how many in-flight requests fit in a 2 GB container": every (thread kind, stack depth, N) combination
+ * runs in a fresh child JVM started with -XX:MaxRAM=<budget> (heap capped at 75% like in a container) and
+ * -XX:NativeMemoryTracking=summary
+ *
+ * 子进程中每个任务先递归到指定深度（模拟请求处理的调用栈），再在 CountDownLatch 或 LockSupport.park 上挂起；
+ * 全部挂起后执行 GC 并与启动前的基线相减，得到每任务字节数。平台线程的栈在原生内存中（NMT Thread），
+ * 虚拟线程挂起时栈帧被复制到堆上（stack chunk），因此两者要同时看 RSS、堆与 NMT
+ * In the child every task recurses to the given depth (modelling a request-handling call stack) and then parks
+ * on a CountDownLatch or in LockSupport.park; once all are parked the child runs a GC and subtracts the baseline
+ * to get bytes per task. Platform thread stacks live in native memory (NMT Thread), while a parked virtual thread
+ * copies its frames to the heap (stack chunks), so RSS, heap and NMT all need to be read together
+ *
+ * 内存耗尽的判定 / Out-of-memory detection:
+ * - oom: 创建线程或任务执行时抛出 OutOfMemoryError（堆耗尽，或 "unable to create native thread"）
+ *   OutOfMemoryError while creating threads or running tasks (heap exhausted, or "unable to create native thread")
+ * - budget: RSS 超过预算，停止创建新任务（真实容器中此时会被 OOM killer 杀掉）
+ *   RSS exceeded the budget, no further tasks are started (a real container would be OOM-killed here)
+ * - heap: GC 后堆占用仍超过上限的 90%，停止创建新任务（继续下去只会在 GC 中空转直到 OutOfMemoryError）
+ *   Heap still above 90% of its cap after a GC, no further tasks are started (going on would only thrash in GC
+ *   until an OutOfMemoryError)
+ * - timeout: 已启动的任务未能在超时内全部挂起（reached < n）/ Started tasks did not all park before the timeout (reached < n)
+ * - crash: 子 JVM 异常退出，没有回传结果 / The child JVM died without reporting a result
+ * 某个组合失败后，同一线程类型和栈深度下更大的 N 不再运行
+ * Once a combination fails, larger N for the same kind and depth are skipped
+ */
+final class MemoryFootprint {
+
+    /** 子进程结果行中的测试名前缀 / Test-name prefix in child result lines */
+    private static final String NAME_PREFIX = "FOOT-";
+
+    /**
+     * 每创建这么多任务检查一次内存；检查前先等已启动的任务全部挂起，否则尚未运行的任务还没占用栈内存
+     * Check memory after starting this many tasks; wait for the started ones to park first, since tasks that
+     * have not run yet do not hold their stacks
+     */
+    private static final int RSS_CHECK_INTERVAL = 1_000;
+
+    /** 视为堆耗尽的占用比例 / Heap occupancy treated as exhausted */
+    private static final double HEAP_LIMIT = 0.9;
+
+    /** 等待任务全部挂起的最长时间 / Longest wait for all tasks to park */
+    private static final long READY_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private static final Pattern NMT_TOTAL = Pattern.compile("Total: reserved=(\\d+)KB, committed=(\\d+)KB");
+    private static final Pattern NMT_THREAD = Pattern.compile("Thread \\(reserved=(\\d+)KB, committed=(\\d+)KB\\)");
+
+    private MemoryFootprint() {
+    }
+
+    /**
+     * 挂起方式 / How tasks park
+     */
+    enum ParkMode {
+        /** 等待一个永不打开的 CountDownLatch / Await a CountDownLatch that never opens */
+        LATCH,
+        /** 循环调用 LockSupport.park / Loop on LockSupport.park */
+        PARK;
+
+        static ParkMode of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * 一个组合的结果；内存字段为相对基线的增量（字节），-1 表示不可用
+     * Result of one combination; memory fields are deltas over the baseline in bytes, -1 when unavailable
+     */
+    record Row(String kind, int depth, int requested, int reached, String status,
+               long baseRssBytes, long rssBytes, long heapBytes, long nmtBytes, long nmtThreadBytes) {
+
+        boolean ok() {
+            return "ok".equals(status);
+        }
+
+        /** 每任务字节数，-1 表示不可用 / Bytes per task, -1 when unavailable */
+        long perTask(long bytes) {
+            return bytes < 0 || reached == 0 ? -1 : bytes / reached;
+        }
+    }
+
+    /**
+     * 父进程：对每个 (线程类型, 栈深度, N) 组合启动一个子 JVM，输出占用表与容量估算
+     * Parent: launch one child JVM per (thread kind, stack depth, N) combination, then print the
+     * footprint table and capacity estimate
+     *
+     * @param mainClass 子进程入口类 / Child entry class
+     * @param counts 并发任务数列表（升序执行）/ Concurrent task counts (run in ascending order)
+     * @param depths 栈深度列表 / Stack depths
+     * @param kinds 线程类型（platform / virtual）/ Thread kinds (platform / virtual)
+     * @param park 挂起方式 / Park mode
+     * @param budgetMb 容器内存预算（MB）/ Container memory budget (MB)
+     * @param stackKb 平台线程栈大小（KB），0 使用 JVM 默认值 / Platform thread stack size (KB), 0 keeps the JVM default
+     */
+    static void run(Class<?> mainClass,
+                    List<Integer> counts,
+                    List<Integer> depths,
+                    List<String> kinds,
+                    ParkMode park,
+                    int budgetMb,
+                    int stackKb) throws IOException, InterruptedException {
+        List<Integer> ascending = counts.stream().sorted().toList();
+        List<Row> rows = new ArrayList<>();
+
+        for (String kind : kinds) {
+            for (int depth : depths) {
+                boolean failed = false;
+                for (int n : ascending) {
+                    if (failed) {
+                        rows.add(new Row(kind, depth, n, 0, "skipped", -1, -1, -1, -1, -1));
+                        continue;
+                    }
+                    List<String> jvmArgs = List.of(
+                            "-XX:MaxRAM=" + budgetMb + "m",
+                            "-XX:MaxRAMPercentage=75",
+                            "-XX:NativeMemoryTracking=summary");
+                    List<String> args = List.of(
+                            "footprint.child=" + kind + ":" + n + ":" + depth,
+                            "footprint.park=" + park.name().toLowerCase(Locale.ROOT),
+                            "footprint.budgetMb=" + budgetMb,
+                            "footprint.stackKb=" + stackKb);
+
+                    System.out.printf(Locale.ROOT, "--> child JVM: kind=%s, depth=%d, n=%d%n", kind, depth, n);
+                    List<String[]> result = ChildJvm.run(ChildJvm.command(mainClass, jvmArgs, args));
+                    Row row = result.isEmpty()
+                            ? new Row(kind, depth, n, 0, "crash", -1, -1, -1, -1, -1)
+                            : parse(result.get(0));
+                    rows.add(row);
+                    failed = !row.ok();
+                }
+            }
+        }
+
+        printTable(rows, budgetMb, park, stackKb);
+    }
+
+    /**
+     * 子进程：挂起 N 个任务并回传一行结果
+     * Child: park N tasks and report one result line
+     *
+     * @param spec kind:n:depth
+     * @param park 挂起方式 / Park mode
+     * @param budgetMb 内存预算（MB），RSS 超过时停止创建 / Memory budget (MB), creation stops once RSS exceeds it
+     * @param stackKb 平台线程栈大小（KB），0 使用 JVM 默认值 / Platform thread stack size (KB), 0 keeps the JVM default
+     */
+    static void child(String spec, ParkMode park, int budgetMb, int stackKb) throws InterruptedException {
+        String[] parts = spec.split(":");
+        String kind = parts[0];
+        int n = Integer.parseInt(parts[1]);
+        int depth = Integer.parseInt(parts[2]);
+
+        Thread.Builder builder = "platform".equals(kind)
+                ? Thread.ofPlatform().daemon(true).stackSize(stackKb * 1024L)
+                : Thread.ofVirtual();
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger parked = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Runnable task = () -> {
+            try {
+                descend(depth, park, never, parked);
+            } catch (Throwable t) {
+                // 任务内的 OutOfMemoryError（如虚拟线程栈帧无法复制到堆上）/ OutOfMemoryError inside a task
+                // (e.g. a virtual thread's frames cannot be copied to the heap)
+                failed.incrementAndGet();
+            }
+        };
+
+        // 基线：启动任务前 / Baseline: before any task starts
+        Snapshot before = Snapshot.take();
+        long budgetBytes = budgetMb * 1024L * 1024L;
+        String status = "ok";
+        int started = 0;
+        try {
+            for (; started < n; started++) {
+                if (started % RSS_CHECK_INTERVAL == 0 && started > 0) {
+                    if (!awaitParked(started, parked, failed)) break;
+                    long rss = Snapshot.currentRss();
+                    if (rss > budgetBytes) {
+                        status = "budget";
+                        break;
+                    }
+                    if (Snapshot.heapNearlyFull()) {
+                        status = "heap";
+                        break;
+                    }
+                }
+                builder.start(task);
+            }
+        } catch (OutOfMemoryError e) {
+            status = "oom";
+        }
+
+        awaitParked(started, parked, failed);
+        if (failed.get() > 0) {
+            status = "oom";
+        } else if ("ok".equals(status) && parked.get() < n) {
+            // 挂起超时：不能把未达到的 n 记为成功 / Parking timed out: an n that was not reached must not count as ok
+            status = "timeout";
+        }
+
+        Snapshot after = Snapshot.take();
+        int reached = parked.get();
+        System.out.printf(Locale.ROOT, "%s\t%s%s\t%s\t%d\t%d\t%d\t%s\t%d\t%d\t%d\t%d\t%d%n",
+                ChildJvm.REPORT_PREFIX, NAME_PREFIX, kind, kind, depth, n, reached, status, before.rss,
+                delta(before.rss, after.rss), delta(before.heap, after.heap),
+                delta(before.nmt, after.nmt), delta(before.nmtThread, after.nmtThread));
+        // 平台线程为守护线程、虚拟线程也是守护线程，main 返回后 JVM 直接退出
+        // Platform threads are daemons and so are virtual threads, so the JVM exits once main returns
+    }
+
+    /**
+     * 等待已启动的任务全部挂起（或失败）；超时或有任务失败时返回 false
+     * Wait for every started task to park (or fail); false on timeout or when a task failed
+     */
+    private static boolean awaitParked(int started, AtomicInteger parked, AtomicInteger failed)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + READY_TIMEOUT_NANOS;
+        while (parked.get() + failed.get() < started && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return failed.get() == 0 && parked.get() >= started;
+    }
+
+    /**
+     * 递归到指定深度后挂起，每层保留几个局部变量，让栈帧大小接近真实调用链
+     * Recurse to the given depth and then park; every level keeps a few locals so frames resemble a real call chain
+     */
+    private static long descend(int depth, ParkMode park, CountDownLatch never, AtomicInteger parked)
+            throws InterruptedException {
+        if (depth > 0) {
+            long a = depth * 31L;
+            long b = a ^ (a >>> 7);
+            return descend(depth - 1, park, never, parked) + a + b;
+        }
+        parked.incrementAndGet();
+        if (park == ParkMode.LATCH) {
+            never.await();
+        } else {
+            while (true) LockSupport.park();
+        }
+        return 0;
+    }
+
+    /** 增量；GC 后低于基线时记为 0（低于测量噪声）/ Delta; below the baseline after GC counts as 0 (under the noise floor) */
+    private static long delta(long before, long after) {
+        return before < 0 || after < 0 ? -1 : Math.max(0, after - before);
+    }
+
+    /**
+     * 进程内存快照（字节），-1 表示不可用 / Process memory snapshot in bytes, -1 when unavailable
+     */
+    private record Snapshot(long rss, long heap, long nmt, long nmtThread) {
+
+        private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+        static Snapshot take() {
+            // 先 GC，只保留存活对象（挂起任务的栈帧）/ GC first so only live objects (parked stacks) remain
+            System.gc();
+            long[] nmt = nmtCommitted();
+            return new Snapshot(currentRss(), MEMORY.getHeapMemoryUsage().getUsed(), nmt[0], nmt[1]);
+        }
+
+        /** 堆占用超过 HEAP_LIMIT 时先 GC 再确认 / Above HEAP_LIMIT, confirm after a GC */
+        static boolean heapNearlyFull() {
+            long max = MEMORY.getHeapMemoryUsage().getMax();
+            if (max <= 0 || MEMORY.getHeapMemoryUsage().getUsed() < max * HEAP_LIMIT) return false;
+            System.gc();
+            return MEMORY.getHeapMemoryUsage().getUsed() >= max * HEAP_LIMIT;
+        }
+
+        /** /proc/self/status 中的 VmRSS，仅 Linux 可用 / VmRSS from /proc/self/status, Linux only */
+        static long currentRss() {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", "")) * 1024L;
+                    }
+                }
+            } catch (IOException | RuntimeException ignore) {
+                // 非 Linux 平台 / Not on Linux
+            }
+            return -1;
+        }
+
+        /**
+         * NMT 汇总中的已提交总量与线程（含平台线程栈）已提交量；未开启 NMT 时为 -1
+         * Total and Thread (including platform thread stacks) committed from the NMT summary; -1 without NMT
+         */
+        static long[] nmtCommitted() {
+            try {
+                Object out = ManagementFactory.getPlatformMBeanServer().invoke(
+                        new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                        "vmNativeMemory",
+                        new Object[]{new String[]{"summary"}},
+                        new String[]{String[].class.getName()});
+                String text = String.valueOf(out);
+                Matcher total = NMT_TOTAL.matcher(text);
+                Matcher thread = NMT_THREAD.matcher(text);
+                if (total.find() && thread.find()) {
+                    return new long[]{Long.parseLong(total.group(2)) * 1024L, Long.parseLong(thread.group(2)) * 1024L};
+                }
+            } catch (Exception ignore) {
+                // 诊断命令不可用 / Diagnostic command unavailable
+            }
+            return new long[]{-1, -1};
+        }
+    }
+
+    private static Row parse(String[] f) {
+        return new Row(f[2], Integer.parseInt(f[3]), Integer.parseInt(f[4]), Integer.parseInt(f[5]), f[6],
+                Long.parseLong(f[7]), Long.parseLong(f[8]), Long.parseLong(f[9]), Long.parseLong(f[10]),
+                Long.parseLong(f[11]));
+    }
+
+    private static void printTable(List<Row> rows, int budgetMb, ParkMode park, int stackKb) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "=== Memory footprint per parked task (budget=%d MB, park=%s, stack=%s) ===%n",
+                budgetMb, park.name().toLowerCase(Locale.ROOT), stackKb > 0 ? stackKb + " KB" : "default");
+        System.out.printf(Locale.ROOT, "%-9s %6s %9s %9s %-8s %10s %10s %10s %12s %12s %12s %12s%n",
+                "kind", "depth", "n", "reached", "status", "rss MB", "heap MB", "nmt MB",
+                "rss B/task", "heap B/task", "nmt B/task", "stack B/task");
+        for (Row r : rows) {
+            System.out.printf(Locale.ROOT, "%-9s %6d %9d %9d %-8s %10s %10s %10s %12s %12s %12s %12s%n",
+                    r.kind(), r.depth(), r.requested(), r.reached(), r.status(),
+                    mb(r.rssBytes()), mb(r.heapBytes()), mb(r.nmtBytes()),
+                    bytes(r.perTask(r.rssBytes())), bytes(r.perTask(r.heapBytes())),
+                    bytes(r.perTask(r.nmtBytes())), bytes(r.perTask(r.nmtThreadBytes())));
+        }
+
+        // 容量：最大的成功 N、首个失败的 N，以及外推的预算内容量：
+        // 扣除 JVM 基线后的 RSS 预算与 75% 堆上限中，先耗尽的那一个
+        // Capacity: largest successful N, first failing N, and the extrapolated in-budget capacity:
+        // whichever runs out first of the RSS budget minus the JVM baseline and the 75% heap cap
+        System.out.println();
+        System.out.println("Capacity within budget:");
+        List<String> seen = new ArrayList<>();
+        for (Row r : rows) {
+            String key = r.kind() + "/" + r.depth();
+            if (seen.contains(key)) continue;
+            seen.add(key);
+            List<Row> series = rows.stream().filter(x -> x.kind().equals(r.kind()) && x.depth() == r.depth()).toList();
+            Row largestOk = series.stream().filter(Row::ok).reduce((a, b) -> b).orElse(null);
+            Row firstFail = series.stream().filter(x -> !x.ok() && !"skipped".equals(x.status())).findFirst().orElse(null);
+            long capacity = largestOk == null ? -1 : capacity(largestOk, budgetMb);
+            System.out.printf(Locale.ROOT, "  %-9s depth=%-4d largest ok n=%-9s out of memory at n=%-9s %s%n",
+                    r.kind(), r.depth(),
+                    largestOk == null ? "-" : String.valueOf(largestOk.requested()),
+                    firstFail == null ? "-" : firstFail.requested() + " (" + firstFail.status() + " after "
+                            + firstFail.reached() + ")",
+                    capacity > 0 ? String.format(Locale.ROOT, "~%d tasks per %d MB", capacity, budgetMb) : "");
+        }
+    }
+
+    private static long capacity(Row r, int budgetMb) {
+        long budget = budgetMb * 1024L * 1024L;
+        long rssPerTask = r.perTask(r.rssBytes());
+        long heapPerTask = r.perTask(r.heapBytes());
+        long capacity = Long.MAX_VALUE;
+        if (rssPerTask > 0 && r.baseRssBytes() >= 0) capacity = (budget - r.baseRssBytes()) / rssPerTask;
+        if (heapPerTask > 0) capacity = Math.min(capacity, budget * 3 / 4 / heapPerTask);
+        return capacity == Long.MAX_VALUE ? -1 : capacity;
+    }
+
+    private static String mb(long bytes) {
+        return bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String bytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.valueOf(bytes);
+    }
+}
@@ -0,0 +1,121 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 混合 CPU + IO 负载：按阶段依次计算、阻塞、再计算，模拟真实请求处理流程
+ * Mixed CPU + IO workload: compute, block and compute again in phases, modelling a real request handler
+ *
+ * 阶段描述格式 / Phase spec format:
+ *   cpu:N  - 执行 N 次数学迭代（与 CPU 场景相同的计算）/ run N math iterations (same kernel as the CPU scenario)
+ *   io:M   - 阻塞 M 毫秒 / block for M milliseconds
+ *   例如 / e.g.  mix=cpu:2000,io:5,cpu:500  ->  解析 / 阻塞 / 计算 (parse / block / compute)
+ *
+ * 慢请求离群值 / Slow outliers:
+ *   slowPct% 的任务其 IO 阶段耗时放大 slowFactor 倍（例如下游偶发变慢）；按任务索引确定，多次运行一致
+ *   slowPct% of tasks have their IO phases stretched by slowFactor (e.g. an occasionally slow downstream);
+ *   chosen by task index so repeated runs pick the same tasks
+ */
+final class MixedWorkload {
+
+    /**
+     * CPU 计算内核：返回值用于防止 JIT 消除计算
+     * CPU kernel: the return value keeps the JIT from eliminating the work
+     */
+    @FunctionalInterface
+    interface CpuKernel {
+        double compute(int seed, int iterations);
+    }
+
+    /** 单个阶段 / A single phase */
+    sealed interface Phase permits Cpu, Io {
+    }
+
+    /** 计算阶段 / Compute phase */
+    record Cpu(int iterations) implements Phase {
+    }
+
+    /** 阻塞阶段 / Blocking phase */
+    record Io(int millis) implements Phase {
+    }
+
+    private final List<Phase> phases;
+    private final double slowPct;
+    private final int slowFactor;
+    private final CpuKernel kernel;
+
+    /**
+     * @param spec 阶段描述，如 "cpu:2000,io:5,cpu:500" / Phase spec, e.g. "cpu:2000,io:5,cpu:500"
+     * @param slowPct 慢请求百分比（0-100）/ Percentage of slow outliers (0-100)
+     * @param slowFactor 慢请求 IO 放大倍数 / IO stretch factor for slow outliers
+     * @param kernel CPU 计算内核 / CPU kernel
+     */
+    MixedWorkload(String spec, double slowPct, int slowFactor, CpuKernel kernel) {
+        this.phases = parse(spec);
+        this.slowPct = Math.min(100.0, Math.max(0.0, slowPct));
+        this.slowFactor = Math.max(1, slowFactor);
+        this.kernel = kernel;
+    }
+
+    /**
+     * 解析阶段描述 / Parse a phase spec
+     *
+     * @throws IllegalArgumentException 格式错误时 / On a malformed spec
+     */
+    static List<Phase> parse(String spec) {
+        List<Phase> result = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("bad mix phase: " + part);
+            int amount = Integer.parseInt(kv[1].trim());
+            switch (kv[0].trim()) {
+                case "cpu" -> result.add(new Cpu(amount));
+                case "io" -> result.add(new Io(amount));
+                default -> throw new IllegalArgumentException("unknown mix phase kind: " + kv[0]);
+            }
+        }
+        if (result.isEmpty()) throw new IllegalArgumentException("empty mix spec");
+        return List.copyOf(result);
+    }
+
+    /**
+     * 执行一个任务的全部阶段 / Run all phases of one task
+     *
+     * @param idx 任务索引 / Task index
+     * @return 计算结果 / Computation result
+     */
+    double run(int idx) {
+        boolean slow = slowPct > 0 && new SplittableRandom(idx).nextDouble() * 100.0 < slowPct;
+        double acc = 0;
+        for (Phase phase : phases) {
+            switch (phase) {
+                case Cpu(int iterations) -> acc += kernel.compute(idx, iterations);
+                case Io(int millis) -> block(slow ? millis * slowFactor : millis);
+            }
+        }
+        return acc;
+    }
+
+    private static void block(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // 恢复中断标志 / Restore interrupt flag
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 用于输出的描述 / Human-readable description */
+    String describe() {
+        String p = phases.stream()
+                .map(ph -> switch (ph) {
+                    case Cpu(int iterations) -> "cpu:" + iterations;
+                    case Io(int millis) -> "io:" + millis;
+                })
+                .collect(Collectors.joining(","));
+        return slowPct > 0 ? p + " (slow " + slowPct + "% x" + slowFactor + ")" : p;
+    }
+}
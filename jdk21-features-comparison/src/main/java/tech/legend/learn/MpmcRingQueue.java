@@ -0,0 +1,103 @@
+package tech.legend.learn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界多生产者 / 多消费者无锁环形队列（Vyukov 序号槽位算法）
+ * Bounded multi-producer / multi-consumer lock-free ring queue (Vyukov's sequenced-slot algorithm)
+ *
+ * - 每个槽位带一个序号：序号 == 写入位置时可写，序号 == 读取位置 + 1 时可读
+ *   Every slot carries a sequence: writable when it equals the enqueue position, readable when it
+ *   equals the dequeue position + 1
+ * - 生产者之间、消费者之间各用一次 CAS 抢占位置，生产者与消费者互不争用同一个计数器
+ *   Producers race each other (and consumers each other) with one CAS on their own position;
+ *   producers and consumers never contend on the same counter
+ * - 数组预先分配，入队不创建节点（LinkedBlockingQueue 每个元素分配一个 Node 并加锁）
+ *   The array is preallocated and enqueueing creates no node (LinkedBlockingQueue allocates a Node
+ *   per element and takes a lock)
+ *
+ * @param <E> 元素类型 / Element type
+ */
+final class MpmcRingQueue<E> {
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong enqueuePos = new AtomicLong();
+    private final AtomicLong dequeuePos = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂 / Capacity, rounded up to a power of two
+     */
+    MpmcRingQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * 入队（任意线程）/ Enqueue (any thread)
+     *
+     * @return 队列已满时返回 false / false when the queue is full
+     */
+    boolean offer(E e) {
+        long pos = enqueuePos.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = e;
+                    // release：元素写入对读到新序号的消费者可见 / release: the element is visible to a consumer that reads the new sequence
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = enqueuePos.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = enqueuePos.get();
+            }
+        }
+    }
+
+    /**
+     * 出队（任意线程）/ Dequeue (any thread)
+     *
+     * @return 队列为空时返回 null / null when the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long pos = dequeuePos.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    E e = (E) buffer[index];
+                    buffer[index] = null;
+                    // 槽位留给下一圈的生产者 / Hand the slot to the producer of the next lap
+                    sequences.lazySet(index, pos + buffer.length);
+                    return e;
+                }
+                pos = dequeuePos.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = dequeuePos.get();
+            }
+        }
+    }
+
+    /** 是否为空（近似值）/ Whether the queue is empty (approximate) */
+    boolean isEmpty() {
+        return dequeuePos.get() >= enqueuePos.get();
+    }
+}
@@ -0,0 +1,143 @@
+package tech.legend.learn;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住（pinning）检测器：进程内 JFR 事件流
+ * Virtual-thread pinning detector: in-process JFR event stream
+ *
+ * 监听事件 / Events consumed:
+ * - jdk.VirtualThreadPinned: 虚拟线程在持有 monitor 或执行本地方法时阻塞，无法从载体线程卸载
+ *   A virtual thread blocked while holding a monitor or inside native code and could not unmount
+ * - jdk.VirtualThreadSubmitFailed: 虚拟线程无法提交到调度器
+ *   A virtual thread could not be submitted to the scheduler
+ *
+ * 每次运行结束后汇总：钉住次数、总钉住时间、导致钉住的栈帧（按次数排序）
+ * Summarized after each run: pinned count, total pinned time and the stack frames causing pinning (by count)
+ */
+final class PinningMonitor implements AutoCloseable {
+
+    /** 每个栈签名保留的应用栈帧数 / Application frames kept per stack signature */
+    private static final int FRAMES_PER_SIGNATURE = 3;
+
+    private final RecordingStream stream;
+    private final LongAdder pinnedCount = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final LongAdder submitFailed = new LongAdder();
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+
+    /**
+     * 启动事件流 / Start the event stream
+     *
+     * @param threshold 钉住时长阈值，低于该值的事件不记录（JFR 默认 20ms）
+     *                  Pinned-duration threshold, shorter events are not recorded (JFR default is 20ms)
+     */
+    PinningMonitor(Duration threshold) {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.enable("jdk.VirtualThreadSubmitFailed").withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.onEvent("jdk.VirtualThreadSubmitFailed", e -> submitFailed.increment());
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+        pinnedBySite.computeIfAbsent(signature(event.getStackTrace()), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * 提取栈签名：跳过 JDK 内部帧，取前几个应用帧（阻塞点 <- 持有 monitor 的调用者）
+     * Build a stack signature: skip JDK frames and keep the first application frames
+     * (blocking call <- caller holding the monitor)
+     */
+    private static String signature(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) return "<no stack trace>";
+        StringBuilder sb = new StringBuilder();
+        int kept = 0;
+        for (RecordedFrame f : stackTrace.getFrames()) {
+            if (!f.isJavaFrame()) continue;
+            String type = f.getMethod().getType().getName();
+            if (isJdkFrame(type)) continue;
+            if (kept > 0) sb.append(" <- ");
+            sb.append(type).append('.').append(f.getMethod().getName()).append(':').append(f.getLineNumber());
+            if (++kept == FRAMES_PER_SIGNATURE) break;
+        }
+        if (kept == 0) {
+            RecordedFrame top = stackTrace.getFrames().get(0);
+            return top.getMethod().getType().getName() + "." + top.getMethod().getName();
+        }
+        return sb.toString();
+    }
+
+    private static boolean isJdkFrame(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.") || type.startsWith("com.sun.");
+    }
+
+    /**
+     * 停止事件流（会先刷出所有已缓冲的事件）并返回汇总
+     * Stop the stream (flushing all buffered events first) and return the summary
+     */
+    Report stop() {
+        stream.stop();
+        List<Map.Entry<String, Long>> sites = pinnedBySite.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .toList();
+        return new Report(pinnedCount.sum(), pinnedNanos.sum(), submitFailed.sum(), sites);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    /**
+     * 钉住汇总 / Pinning summary
+     *
+     * @param pinnedCount 钉住事件数 / Number of pinned events
+     * @param pinnedNanos 总钉住时间（纳秒）/ Total pinned time (nanoseconds)
+     * @param submitFailed 提交失败事件数 / Number of submit-failed events
+     * @param sites 栈签名及次数，按次数降序 / Stack signatures with counts, descending
+     */
+    record Report(long pinnedCount, long pinnedNanos, long submitFailed, List<Map.Entry<String, Long>> sites) {
+
+        /** 总钉住时间（毫秒）/ Total pinned time (milliseconds) */
+        double pinnedMillis() {
+            return pinnedNanos / 1_000_000.0;
+        }
+
+        /**
+         * 是否超过阈值（任一阈值 < 0 表示不检查）
+         * Whether a threshold is exceeded (a negative threshold disables that check)
+         */
+        boolean exceeds(long maxCount, double maxMillis) {
+            return (maxCount >= 0 && pinnedCount > maxCount) || (maxMillis >= 0 && pinnedMillis() > maxMillis);
+        }
+
+        /**
+         * 输出汇总 / Print the summary
+         *
+         * @param indent 行首缩进 / Line indent
+         * @param topN 输出的栈签名数量 / Number of stack signatures to print
+         */
+        void print(String indent, int topN) {
+            System.out.printf(Locale.ROOT, "%spinning -> events=%d, pinnedTotal=%.3f ms, submitFailed=%d\n",
+                    indent, pinnedCount, pinnedMillis(), submitFailed);
+            sites.stream().limit(topN).forEach(e ->
+                    System.out.printf(Locale.ROOT, "%s    %6d x %s\n", indent, e.getValue(), e.getKey()));
+        }
+    }
+}
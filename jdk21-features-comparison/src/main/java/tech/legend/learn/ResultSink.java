@@ -0,0 +1,402 @@
+package tech.legend.learn;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 机器可读的结果输出（JSON / CSV）与基准文件读取
+ * Machine-readable result sinks (JSON / CSV) and baseline file loading
+ *
+ * 输出包含 printEnv 采集的环境信息，以及每次测试的吞吐量、服务时间 / 响应时间分位数、
+ * 用于回归比较的 p99 及其 95% 置信区间和 JVM 遥测；不依赖任何 JSON 库
+ * Output includes the environment block collected by printEnv plus, per run, throughput,
+ * service / response percentiles, the comparison p99 with its 95% confidence interval and
+ * JVM telemetry; no JSON library is required
+ */
+final class ResultSink {
+
+    /** 输出的分位数及其字段名 / Exported percentiles and their field names */
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999, 0.9999};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p90", "p99", "p99_9", "p99_99"};
+
+    /** 95% 置信区间对应的 z 值 / z value of a 95% confidence interval */
+    static final double Z_95 = 1.96;
+
+    private ResultSink() {
+    }
+
+    /**
+     * 基准文件中的一条记录 / One entry loaded from a baseline file
+     *
+     * @param name 测试名称 / Test name
+     * @param throughput 吞吐量（任务数/秒）/ Throughput (tasks/second)
+     * @param p99Ms 比较用 p99（毫秒）/ Comparison p99 (milliseconds)
+     * @param p99LowerMs p99 置信区间下界 / Lower bound of the p99 confidence interval
+     * @param p99UpperMs p99 置信区间上界 / Upper bound of the p99 confidence interval
+     */
+    record Entry(String name, double throughput, double p99Ms, double p99LowerMs, double p99UpperMs) {
+
+        static Entry of(RunResult r) {
+            LatencyHistogram h = r.comparisonLatency();
+            LatencyHistogram.Bounds ci = h.percentileConfidenceInterval(0.99, Z_95);
+            return new Entry(r.name(), r.throughput(), h.valueAtPercentile(0.99) / 1_000_000.0,
+                    ci.lower() / 1_000_000.0, ci.upper() / 1_000_000.0);
+        }
+    }
+
+    // ============================================
+    // 写出 / Writing
+    // ============================================
+
+    /**
+     * 写出 JSON 结果文件 / Write the JSON result file
+     *
+     * @param file 目标文件 / Target file
+     * @param environment 环境信息 / Environment block
+     * @param results 测试结果 / Run results
+     */
+    static void writeJson(Path file, Map<String, String> environment, List<RunResult> results) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"environment\": {");
+        StringJoiner env = new StringJoiner(",\n", "\n", "\n  ");
+        environment.forEach((k, v) -> env.add("    " + quote(k) + ": " + quote(v)));
+        sb.append(env).append("},\n  \"results\": [");
+        StringJoiner runs = new StringJoiner(",\n", "\n", "\n  ");
+        for (RunResult r : results) {
+            Entry e = Entry.of(r);
+            runs.add(String.format(Locale.ROOT,
+                    "    {\"name\": %s, \"tasks\": %d, \"wallMillis\": %d, \"throughput\": %.3f, " +
+                            "\"schedule\": %s, \"errors\": %d, \"cpuMs\": %.3f,\n" +
+                            "     \"p99Ms\": %.6f, \"p99CiLowerMs\": %.6f, \"p99CiUpperMs\": %.6f,\n" +
+                            "     \"service\": %s,\n     \"response\": %s,\n     \"jvm\": %s}",
+                    quote(r.name()), r.tasks(), r.wallMillis(), r.throughput(),
+                    quote(r.schedule().describe()), r.errors(), r.cpuNanos() / 1_000_000.0,
+                    e.p99Ms(), e.p99LowerMs(), e.p99UpperMs(),
+                    latencyJson(r.serviceTime()), latencyJson(r.responseTime()), telemetryJson(r)));
+        }
+        sb.append(runs).append("]\n}\n");
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    private static String telemetryJson(RunResult r) {
+        RunTelemetry t = r.telemetry();
+        return String.format(Locale.ROOT,
+                "{\"gcCount\": %d, \"gcPauseMs\": %d, \"allocBytesPerTask\": %.1f, \"peakThreads\": %d, " +
+                        "\"heapBeforeMb\": %.3f, \"heapAfterMb\": %.3f}",
+                t.gcCount(), t.gcPauseMillis(), t.allocatedBytesPerTask(r.tasks()), t.peakLiveThreads(),
+                t.heapUsedBefore() / (1024.0 * 1024.0), t.heapUsedAfter() / (1024.0 * 1024.0));
+    }
+
+    private static String latencyJson(LatencyHistogram h) {
+        StringJoiner j = new StringJoiner(", ", "{", "}");
+        j.add(String.format(Locale.ROOT, "\"avgMs\": %.6f", h.mean() / 1_000_000.0));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            j.add(String.format(Locale.ROOT, "\"%sMs\": %.6f", PERCENTILE_KEYS[i], h.valueAtPercentile(PERCENTILES[i]) / 1_000_000.0));
+        }
+        j.add(String.format(Locale.ROOT, "\"maxMs\": %.6f", h.max() / 1_000_000.0));
+        return j.toString();
+    }
+
+    /**
+     * 写出 CSV 结果文件：环境信息以 "# key=value" 注释行写在表头之前
+     * Write the CSV result file: the environment block precedes the header as "# key=value" comment lines
+     */
+    static void writeCsv(Path file, Map<String, String> environment, List<RunResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        environment.forEach((k, v) -> lines.add("# " + k + "=" + v));
+
+        StringJoiner header = new StringJoiner(",");
+        for (String h : List.of("name", "tasks", "wallMillis", "throughput", "schedule", "errors", "cpuMs",
+                "p99Ms", "p99CiLowerMs", "p99CiUpperMs")) {
+            header.add(h);
+        }
+        for (String prefix : List.of("service", "response")) {
+            header.add(prefix + "_avgMs");
+            for (String k : PERCENTILE_KEYS) header.add(prefix + "_" + k + "Ms");
+            header.add(prefix + "_maxMs");
+        }
+        for (String h : List.of("gcCount", "gcPauseMs", "allocBytesPerTask", "peakThreads", "heapBeforeMb", "heapAfterMb")) {
+            header.add(h);
+        }
+        lines.add(header.toString());
+
+        for (RunResult r : results) {
+            Entry e = Entry.of(r);
+            StringJoiner row = new StringJoiner(",");
+            row.add(csv(r.name())).add(Integer.toString(r.tasks())).add(Long.toString(r.wallMillis()))
+                    .add(fmt(r.throughput())).add(csv(r.schedule().describe())).add(Long.toString(r.errors()))
+                    .add(fmt(r.cpuNanos() / 1_000_000.0))
+                    .add(fmt(e.p99Ms())).add(fmt(e.p99LowerMs())).add(fmt(e.p99UpperMs()));
+            for (LatencyHistogram h : List.of(r.serviceTime(), r.responseTime())) {
+                row.add(fmt(h.mean() / 1_000_000.0));
+                for (double p : PERCENTILES) row.add(fmt(h.valueAtPercentile(p) / 1_000_000.0));
+                row.add(fmt(h.max() / 1_000_000.0));
+            }
+            RunTelemetry t = r.telemetry();
+            row.add(Long.toString(t.gcCount())).add(Long.toString(t.gcPauseMillis()))
+                    .add(fmt(t.allocatedBytesPerTask(r.tasks()))).add(Integer.toString(t.peakLiveThreads()))
+                    .add(fmt(t.heapUsedBefore() / (1024.0 * 1024.0))).add(fmt(t.heapUsedAfter() / (1024.0 * 1024.0)));
+            lines.add(row.toString());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    // ============================================
+    // 读取基准 / Baseline loading
+    // ============================================
+
+    /**
+     * 读取之前保存的结果文件（按扩展名识别 .json / .csv）
+     * Load a previously saved result file (.json or .csv, by extension)
+     *
+     * @return 按测试名称索引的记录 / Entries keyed by test name
+     * @throws IllegalArgumentException 文件格式无法识别时 / When the file cannot be parsed
+     */
+    static Map<String, Entry> readBaseline(Path file) throws IOException {
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        return file.toString().endsWith(".csv") ? readCsv(content) : readJson(content);
+    }
+
+    private static Map<String, Entry> readCsv(String content) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        List<String> header = null;
+        for (String line : content.split("\\R")) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            List<String> cells = splitCsv(line);
+            if (header == null) {
+                header = cells;
+                continue;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < cells.size(); i++) row.put(header.get(i), cells.get(i));
+            Entry e = new Entry(row.get("name"), Double.parseDouble(row.get("throughput")),
+                    Double.parseDouble(row.get("p99Ms")), Double.parseDouble(row.get("p99CiLowerMs")),
+                    Double.parseDouble(row.get("p99CiUpperMs")));
+            entries.put(e.name(), e);
+        }
+        return entries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entry> readJson(String content) {
+        Object root = new JsonReader(content).readValue();
+        if (!(root instanceof Map<?, ?> map) || !(map.get("results") instanceof List<?> results)) {
+            throw new IllegalArgumentException("baseline JSON has no \"results\" array");
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Object o : results) {
+            Map<String, Object> r = (Map<String, Object>) o;
+            Entry e = new Entry((String) r.get("name"), num(r.get("throughput")), num(r.get("p99Ms")),
+                    num(r.get("p99CiLowerMs")), num(r.get("p99CiUpperMs")));
+            entries.put(e.name(), e);
+        }
+        return entries;
+    }
+
+    private static double num(Object o) {
+        return o instanceof Number n ? n.doubleValue() : Double.NaN;
+    }
+
+    // ============================================
+    // 格式化工具 / Formatting helpers
+    // ============================================
+
+    private static String fmt(double v) {
+        return String.format(Locale.ROOT, "%.6f", v);
+    }
+
+    private static String csv(String s) {
+        return s.contains(",") || s.contains("\"") ? "\"" + s.replace("\"", "\"\"") + "\"" : s;
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        cells.add(cur.toString());
+        return cells;
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 最小化的 JSON 读取器：只用于读回本类写出的文件（对象、数组、字符串、数字、布尔、null）
+     * Minimal JSON reader, only meant to read back files written by this class
+     * (objects, arrays, strings, numbers, booleans, null)
+     */
+    private static final class JsonReader {
+        private final String s;
+        private int pos;
+
+        JsonReader(String s) {
+            this.s = s;
+        }
+
+        Object readValue() {
+            skipWhitespace();
+            if (pos >= s.length()) throw error("unexpected end of input");
+            char c = s.charAt(pos);
+            return switch (c) {
+                case '{' -> readObject();
+                case '[' -> readArray();
+                case '"' -> readString();
+                case 't', 'f', 'n' -> readLiteral();
+                default -> readNumber();
+            };
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                map.put(key, readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> readArray() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c == '\\') {
+                    char e = s.charAt(pos++);
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'u' -> {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private Object readLiteral() {
+            for (String lit : List.of("true", "false", "null")) {
+                if (s.startsWith(lit, pos)) {
+                    pos += lit.length();
+                    return switch (lit) {
+                        case "true" -> Boolean.TRUE;
+                        case "false" -> Boolean.FALSE;
+                        default -> null;
+                    };
+                }
+            }
+            throw error("unexpected literal");
+        }
+
+        private Double readNumber() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw error("unexpected character '" + s.charAt(pos) + "'");
+            return Double.valueOf(s.substring(start, pos));
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private char peek() {
+            if (pos >= s.length()) throw error("unexpected end of input");
+            return s.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("invalid JSON at offset " + pos + ": " + msg);
+        }
+    }
+}
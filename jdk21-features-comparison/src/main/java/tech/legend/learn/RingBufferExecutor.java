@@ -0,0 +1,184 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于有界无锁 MPMC 环形队列的固定大小线程池，用于与 LinkedBlockingQueue 版本的 newFixedThreadPool 对比
+ * Fixed-size thread pool backed by a bounded lock-free MPMC ring queue, to compare with the
+ * LinkedBlockingQueue-backed newFixedThreadPool
+ *
+ * - 提交与取任务都不加锁、不分配队列节点 / Neither submit nor take locks or allocates a queue node
+ * - 队列空（工作线程）或满（提交者）时按等待策略等待；没有条件变量，也就没有"唤醒"开销，
+ *   代价是空闲时的 CPU 占用（spin / yield）或唤醒延迟（park / backoff）
+ *   Workers facing an empty queue and submitters facing a full one wait per the wait strategy; there is
+ *   no condition variable and therefore no signalling cost, paid for by idle CPU burn (spin / yield) or
+ *   wake-up latency (park / backoff)
+ */
+final class RingBufferExecutor extends AbstractExecutorService {
+
+    /**
+     * 等待策略 / Wait strategy
+     */
+    enum WaitStrategy {
+        /** 忙等（Thread.onSpinWait），延迟最低，空闲时占满 CPU / Busy spin, lowest latency, burns a CPU while idle */
+        SPIN,
+        /** 每次让出 CPU / Yield on every attempt */
+        YIELD,
+        /** 每次 park 固定的短时间 / Park a fixed short time on every attempt */
+        PARK,
+        /** 先自旋、再让出、最后以指数增长的时长 park（上限 1ms）/ Spin, then yield, then park with exponentially growing time (capped at 1 ms) */
+        BACKOFF;
+
+        private static final int SPINS = 100;
+        private static final int YIELDS = 10;
+        private static final long PARK_NANOS = 10_000;
+        private static final long MAX_BACKOFF_NANOS = 1_000_000;
+
+        /**
+         * 第 attempt 次（从 0 开始）等待 / Wait for the attempt-th time (0-based)
+         */
+        void idle(int attempt) {
+            switch (this) {
+                case SPIN -> Thread.onSpinWait();
+                case YIELD -> Thread.yield();
+                case PARK -> LockSupport.parkNanos(PARK_NANOS);
+                case BACKOFF -> {
+                    if (attempt < SPINS) {
+                        Thread.onSpinWait();
+                    } else if (attempt < SPINS + YIELDS) {
+                        Thread.yield();
+                    } else {
+                        int shift = Math.min(attempt - SPINS - YIELDS, 7);
+                        LockSupport.parkNanos(Math.min(MAX_BACKOFF_NANOS, PARK_NANOS << shift));
+                    }
+                }
+            }
+        }
+
+        static WaitStrategy of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final MpmcRingQueue<Runnable> queue;
+    private final WaitStrategy waitStrategy;
+    private final List<Thread> workers = new ArrayList<>();
+    private final CountDownLatch terminated;
+    private final LongAdder fullWaits = new LongAdder();
+    /**
+     * 已通过关闭检查、尚未完成入队的提交数；工作线程只在它为 0 且队列为空时退出，避免任务在工作线程退出后才入队
+     * Submissions past the shutdown check but not yet enqueued; workers only exit when it is 0 and the queue
+     * is empty, so no task can be enqueued after the workers are gone
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
+    private volatile boolean shutdown;
+    private volatile boolean stopNow;
+
+    /**
+     * @param threads 工作线程数 / Worker count
+     * @param capacity 队列容量 / Queue capacity
+     * @param waitStrategy 等待策略 / Wait strategy
+     */
+    RingBufferExecutor(int threads, int capacity, WaitStrategy waitStrategy) {
+        this.queue = new MpmcRingQueue<>(capacity);
+        this.waitStrategy = waitStrategy;
+        int n = Math.max(1, threads);
+        this.terminated = new CountDownLatch(n);
+        for (int i = 0; i < n; i++) {
+            workers.add(Thread.ofPlatform().name("ring-worker-" + i).start(this::work));
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new NullPointerException();
+        // 先登记再检查关闭标志：看到 shutdown=false 的提交者一定会被退出中的工作线程看到
+        // Register before checking the flag: a submitter that sees shutdown=false is always seen by exiting workers
+        submitting.incrementAndGet();
+        try {
+            if (shutdown) throw new RejectedExecutionException("executor is shut down");
+            if (queue.offer(task)) return;
+            // 队列满：按等待策略重试（背压）/ Queue full: retry per the wait strategy (backpressure)
+            fullWaits.increment();
+            int attempt = 0;
+            while (!queue.offer(task)) {
+                if (shutdown) throw new RejectedExecutionException("executor is shut down");
+                waitStrategy.idle(attempt++);
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private void work() {
+        try {
+            int attempt = 0;
+            while (!stopNow) {
+                Runnable task = queue.poll();
+                if (task != null) {
+                    attempt = 0;
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), t);
+                    }
+                    continue;
+                }
+                if (shutdown && submitting.get() == 0 && queue.isEmpty()) break;
+                waitStrategy.idle(attempt++);
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /** 立即停止：中断工作线程，返回尚未执行的任务 / Stop now: interrupt workers and return the tasks never started */
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopNow = true;
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+        List<Runnable> pending = new ArrayList<>();
+        for (Runnable r; (r = queue.poll()) != null; ) pending.add(r);
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * 输出队列统计 / Print queue statistics
+     *
+     * @param indent 行首缩进 / Line indent
+     */
+    void printStats(String indent) {
+        System.out.printf(Locale.ROOT, "%sring -> workers=%d, capacity=%d, wait=%s, queue-full waits=%d\n",
+                indent, workers.size(), queue.capacity(), waitStrategy.name().toLowerCase(Locale.ROOT), fullWaits.sum());
+    }
+}
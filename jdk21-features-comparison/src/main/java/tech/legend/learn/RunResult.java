@@ -0,0 +1,49 @@
+package tech.legend.learn;
+
+/**
+ * 单次对比测试的结果 / Result of a single comparison run
+ *
+ * @param name 测试名称 / Test name
+ * @param tasks 任务总数 / Total number of tasks
+ * @param wallMillis 总执行时间（毫秒）/ Total execution time (milliseconds)
+ * @param throughput 吞吐量（任务数/秒）/ Throughput (tasks/second)
+ * @param schedule 到达调度策略 / Arrival schedule
+ * @param serviceTime 服务时间：任务开始运行到结束（纳秒）/ Service time: task start to end (nanoseconds)
+ * @param responseTime 响应时间：计划开始（闭环为提交时刻）到结束（纳秒）
+ *                     Response time: intended start (submission for closed loop) to end (nanoseconds)
+ * @param errors 失败的任务数 / Number of failed tasks
+ * @param pinning 虚拟线程钉住汇总，未开启检测时为 null / Virtual-thread pinning summary, null when detection is off
+ * @param cpuNanos 运行期间进程 CPU 时间（纳秒）/ Process CPU time consumed during the run (nanoseconds)
+ * @param telemetry GC、分配、线程数与堆占用 / GC, allocation, thread count and heap usage
+ */
+record RunResult(String name,
+                 int tasks,
+                 long wallMillis,
+                 double throughput,
+                 ArrivalSchedule schedule,
+                 LatencyHistogram serviceTime,
+                 LatencyHistogram responseTime,
+                 long errors,
+                 PinningMonitor.Report pinning,
+                 long cpuNanos,
+                 RunTelemetry telemetry) {
+
+    /** 服务时间分位数（毫秒）/ Service-time percentile (milliseconds) */
+    double serviceMs(double p) {
+        return serviceTime.valueAtPercentile(p) / 1_000_000.0;
+    }
+
+    /** 响应时间分位数（毫秒）/ Response-time percentile (milliseconds) */
+    double responseMs(double p) {
+        return responseTime.valueAtPercentile(p) / 1_000_000.0;
+    }
+
+    /**
+     * 用于回归比较的延迟：开环取响应时间（不受 coordinated omission 影响），闭环取服务时间（即输出中的 p99）
+     * Latency used for regression checks: response time for open loop (free of coordinated omission),
+     * service time for closed loop (the printed p99)
+     */
+    LatencyHistogram comparisonLatency() {
+        return schedule.isOpenLoop() ? responseTime : serviceTime;
+    }
+}
@@ -0,0 +1,122 @@
+package tech.legend.learn;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+
+/**
+ * 单次运行的 JVM 遥测：GC、分配量、线程数、堆占用
+ * JVM telemetry of a single run: GC, allocation, thread count and heap usage
+ *
+ * 虚拟线程的栈保存在堆上，因此它们会增加分配量和 GC 压力，而平台线程的栈在堆外；
+ * 与延迟数据并列输出，才能看出"每连接内存"上的取舍
+ * Virtual-thread stacks live on the heap, so they add allocation and GC pressure where platform-thread
+ * stacks live off-heap; printed next to the latency numbers to make the memory-per-connection tradeoff visible
+ *
+ * 数据来源 / Sources:
+ * - GarbageCollectorMXBean：GC 次数与耗时；若收集器单独报告停顿（ZGC 的 "... Pauses"），只统计停顿，
+ *   否则统计全部收集时间（Serial / Parallel / G1 的收集时间即停顿时间）
+ *   GC count and time; when a collector reports pauses separately (ZGC's "... Pauses") only pauses are
+ *   counted, otherwise all collection time is (for Serial / Parallel / G1 it is the pause time)
+ * - com.sun.management.ThreadMXBean#getTotalThreadAllocatedBytes：全部线程（含虚拟线程的载体线程）的累计分配量
+ *   Cumulative allocation by all threads (including carriers of virtual threads)
+ * - ThreadMXBean#getPeakThreadCount：峰值存活平台线程数（虚拟线程不计入）
+ *   Peak live platform threads (virtual threads are not counted)
+ * - MemoryMXBean：运行前后的堆使用量 / Heap used before and after the run
+ *
+ * @param gcCount GC 次数 / Number of collections
+ * @param gcPauseMillis GC 停顿时间（毫秒）/ GC pause time (milliseconds)
+ * @param allocatedBytes 分配字节数，不支持时为 -1 / Allocated bytes, -1 when unsupported
+ * @param peakLiveThreads 峰值存活平台线程数 / Peak live platform threads
+ * @param heapUsedBefore 运行前堆使用量（字节）/ Heap used before the run (bytes)
+ * @param heapUsedAfter 运行后堆使用量（字节）/ Heap used after the run (bytes)
+ */
+record RunTelemetry(long gcCount,
+                    long gcPauseMillis,
+                    long allocatedBytes,
+                    int peakLiveThreads,
+                    long heapUsedBefore,
+                    long heapUsedAfter) {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 开始采集：记录基线并重置峰值线程数
+     * Start collecting: take the baseline and reset the peak thread count
+     */
+    static Probe start() {
+        THREADS.resetPeakThreadCount();
+        return new Probe(gcCounts(), allocatedBytesNow(), MEMORY.getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * 运行中的采集器 / In-flight probe
+     */
+    static final class Probe {
+        private final long[] gcStart;
+        private final long allocatedStart;
+        private final long heapBefore;
+
+        private Probe(long[] gcStart, long allocatedStart, long heapBefore) {
+            this.gcStart = gcStart;
+            this.allocatedStart = allocatedStart;
+            this.heapBefore = heapBefore;
+        }
+
+        /** 结束采集 / Finish collecting */
+        RunTelemetry stop() {
+            long[] gcEnd = gcCounts();
+            long allocatedEnd = allocatedBytesNow();
+            return new RunTelemetry(
+                    gcEnd[0] - gcStart[0],
+                    gcEnd[1] - gcStart[1],
+                    allocatedStart < 0 || allocatedEnd < 0 ? -1 : allocatedEnd - allocatedStart,
+                    THREADS.getPeakThreadCount(),
+                    heapBefore,
+                    MEMORY.getHeapMemoryUsage().getUsed());
+        }
+    }
+
+    /** 每任务分配字节数，不支持时为 -1 / Allocated bytes per task, -1 when unsupported */
+    double allocatedBytesPerTask(int tasks) {
+        return allocatedBytes < 0 ? -1 : (double) allocatedBytes / Math.max(1, tasks);
+    }
+
+    /**
+     * 输出遥测行 / Print the telemetry line
+     *
+     * @param indent 行首缩进 / Line indent
+     * @param tasks 任务数 / Number of tasks
+     * @param cpuNanos 进程 CPU 时间（纳秒）/ Process CPU time (nanoseconds)
+     */
+    void print(String indent, int tasks, long cpuNanos) {
+        String alloc = allocatedBytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f KB/task", allocatedBytesPerTask(tasks) / 1024.0);
+        System.out.printf(Locale.ROOT,
+                "%sjvm -> gc=%d (pause %d ms), alloc=%s, peakThreads=%d, cpu=%.1f ms, heap=%.1f -> %.1f MB\n",
+                indent, gcCount, gcPauseMillis, alloc, peakLiveThreads, cpuNanos / 1_000_000.0,
+                heapUsedBefore / (1024.0 * 1024.0), heapUsedAfter / (1024.0 * 1024.0));
+    }
+
+    /** {GC 次数, GC 停顿毫秒} / {collection count, pause milliseconds} */
+    private static long[] gcCounts() {
+        boolean separatePauses = ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .anyMatch(b -> b.getName().endsWith("Pauses"));
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (separatePauses && !gc.getName().endsWith("Pauses")) continue;
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    private static long allocatedBytesNow() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemoryEnabled()) {
+            return sun.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
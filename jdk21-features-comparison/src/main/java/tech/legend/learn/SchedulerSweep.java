@@ -0,0 +1,91 @@
+package tech.legend.learn;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 虚拟线程调度器参数扫描：用不同的 jdk.virtualThreadScheduler.* 设置在子 JVM 中重新运行基准
+ * Virtual-thread scheduler sweep: rerun the benchmark in child JVMs with different
+ * jdk.virtualThreadScheduler.* settings
+ *
+ * 调度器参数只能在 JVM 启动时设置，因此每个组合都需要一个新的进程
+ * Scheduler settings are read once at JVM startup, so every combination needs a fresh process
+ *
+ * 子进程通过 ChildJvm 回传结果行，父进程收集吞吐量、p99 与 CPU 时间后输出对比表；
+ * 任一子进程以非零状态退出时，列出失败的组合并以非零状态退出
+ * Children report back through ChildJvm; the parent collects throughput, p99 and CPU time and prints
+ * a comparison table; if any child exits non-zero, the failing combinations are listed and the parent
+ * exits non-zero
+ */
+final class SchedulerSweep {
+
+    private SchedulerSweep() {
+    }
+
+    /**
+     * 子进程中的单次结果 / A single result reported by a child
+     */
+    record Row(int parallelism, int maxPoolSize, String name, double throughput, double p99Ms, double cpuMs) {
+    }
+
+    /**
+     * 对每个 (parallelism, maxPoolSize) 组合启动一个子 JVM 并输出对比表
+     * Launch one child JVM per (parallelism, maxPoolSize) combination and print the comparison table
+     *
+     * @param mainClass 子进程入口类 / Child entry class
+     * @param forwardedArgs 透传给子进程的基准参数 / Benchmark arguments forwarded to children
+     * @param parallelisms 载体线程数列表 / Carrier thread counts
+     * @param maxPoolSizes 载体线程池上限列表 / Carrier pool size caps
+     * @param activeProcessors 子进程可见 CPU 数（模拟容器配额），<= 0 表示不设置
+     *                         CPUs visible to children (models a container quota), <= 0 leaves it unset
+     */
+    static void run(Class<?> mainClass,
+                    List<String> forwardedArgs,
+                    List<Integer> parallelisms,
+                    List<Integer> maxPoolSizes,
+                    int activeProcessors) throws IOException, InterruptedException {
+        List<Row> rows = new ArrayList<>();
+        List<String> failedChildren = new ArrayList<>();
+
+        for (int parallelism : parallelisms) {
+            for (int maxPoolSize : maxPoolSizes) {
+                if (maxPoolSize < parallelism) continue;
+                List<String> jvmArgs = new ArrayList<>();
+                if (activeProcessors > 0) jvmArgs.add("-XX:ActiveProcessorCount=" + activeProcessors);
+                jvmArgs.add("-Djdk.virtualThreadScheduler.parallelism=" + parallelism);
+                jvmArgs.add("-Djdk.virtualThreadScheduler.maxPoolSize=" + maxPoolSize);
+
+                String label = String.format(Locale.ROOT, "parallelism=%d/maxPoolSize=%d", parallelism, maxPoolSize);
+                System.out.println("--> child JVM: " + label);
+                List<String> cmd = ChildJvm.command(mainClass, jvmArgs, forwardedArgs);
+                for (String[] f : ChildJvm.run(cmd, exit -> { if (exit != 0) failedChildren.add(label); })) {
+                    rows.add(new Row(parallelism, maxPoolSize, f[1],
+                            Double.parseDouble(f[2]), Double.parseDouble(f[3]), Double.parseDouble(f[4])));
+                }
+            }
+        }
+
+        printTable(rows, activeProcessors);
+
+        // 子进程在钉住超阈值（pinning.fail*）或崩溃时以非零状态退出，父进程同样以非零状态退出
+        // A child exits non-zero on a pinning violation (pinning.fail*) or a crash; the parent does the same
+        if (!failedChildren.isEmpty()) {
+            System.out.println("\nFAILED: child JVM(s) exited with a non-zero status: " + failedChildren);
+            System.exit(1);
+        }
+    }
+
+    private static void printTable(List<Row> rows, int activeProcessors) {
+        System.out.println();
+        System.out.println("=== Virtual-thread scheduler sweep" +
+                (activeProcessors > 0 ? " (ActiveProcessorCount=" + activeProcessors + ")" : "") + " ===");
+        System.out.printf(Locale.ROOT, "%-11s %-11s %-26s %14s %12s %12s%n",
+                "parallelism", "maxPoolSize", "run", "throughput/s", "resp p99 ms", "cpu ms");
+        for (Row r : rows) {
+            System.out.printf(Locale.ROOT, "%-11d %-11d %-26s %14.1f %12.3f %12.1f%n",
+                    r.parallelism(), r.maxPoolSize(), r.name(), r.throughput(), r.p99Ms(), r.cpuMs());
+        }
+    }
+}
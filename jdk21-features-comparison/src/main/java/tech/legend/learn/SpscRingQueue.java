@@ -0,0 +1,95 @@
+package tech.legend.learn;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界单生产者 / 单消费者环形队列（无锁、无节点分配）
+ * Bounded single-producer / single-consumer ring queue (lock-free, no node allocation)
+ *
+ * - 生产者只写 tail，消费者只写 head，两端都不需要 CAS
+ *   The producer only writes tail and the consumer only writes head, so neither side needs a CAS
+ * - 元素先以普通写入放入槽位，再以 release 语义（lazySet）发布 tail；消费者读 tail 后即可看到元素
+ *   An element is stored with a plain write and then published by a release store (lazySet) of tail;
+ *   a consumer that reads tail sees the element
+ * - 每端缓存对端的最后一次读数，只有看似满 / 空时才重新读取，减少缓存行往返
+ *   Each side caches the other side's last index and re-reads it only when the queue looks full / empty,
+ *   cutting cache-line round trips
+ *
+ * offer 只能由一个线程调用，poll 只能由另一个线程调用
+ * offer must be called by one thread only, and poll by one other thread only
+ *
+ * @param <E> 元素类型 / Element type
+ */
+final class SpscRingQueue<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+
+    /** 下一个读取位置，消费者写 / Next read position, written by the consumer */
+    private final AtomicLong head = new AtomicLong();
+    /** 下一个写入位置，生产者写 / Next write position, written by the producer */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 生产者缓存的 head / The producer's cached head */
+    private long cachedHead;
+    /** 消费者缓存的 tail / The consumer's cached tail */
+    private long cachedTail;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂 / Capacity, rounded up to a power of two
+     */
+    SpscRingQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * 入队（仅生产者线程）/ Enqueue (producer thread only)
+     *
+     * @return 队列已满时返回 false / false when the queue is full
+     */
+    boolean offer(E e) {
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length) return false;
+        }
+        buffer[(int) t & mask] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * 出队（仅消费者线程）/ Dequeue (consumer thread only)
+     *
+     * @return 队列为空时返回 null / null when the queue is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail) return null;
+        }
+        int index = (int) h & mask;
+        E e = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    /** 是否为空（任意线程，近似值）/ Whether the queue is empty (any thread, approximate) */
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    /** 当前元素数（任意线程，近似值）/ Current size (any thread, approximate) */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
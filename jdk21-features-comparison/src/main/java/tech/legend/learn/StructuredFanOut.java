@@ -0,0 +1,72 @@
+package tech.legend.learn;
+
+import java.util.concurrent.StructuredTaskScope;
+
+/**
+ * 基于 StructuredTaskScope 的扇出方式（JDK 21 预览 API，运行时需要 --enable-preview）
+ * Fan-out approaches built on StructuredTaskScope (JDK 21 preview API, needs --enable-preview at run time)
+ *
+ * 只有这个类依赖预览 API，其余类不受影响；未开启预览时主程序会跳过这些方式
+ * Only this class depends on the preview API; the rest are unaffected, and the main program skips
+ * these approaches when preview features are disabled
+ */
+final class StructuredFanOut {
+
+    private StructuredFanOut() {
+    }
+
+    /**
+     * 方式三：ShutdownOnFailure，首个子任务失败时中断其余子任务
+     * Approach 3: ShutdownOnFailure, interrupting the remaining subtasks on the first failure
+     */
+    static void shutdownOnFailure(FanOutWorkload w, int request) {
+        FanOutWorkload.Group group = new FanOutWorkload.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            for (int j = 0; j < w.width(); j++) {
+                int sub = j;
+                scope.fork(() -> w.call(request, sub, 0, group, null));
+            }
+            scope.join().throwIfFailed(e -> new IllegalStateException("fan-out failed", e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    /**
+     * 方式四：对冲请求，每个下游调用向 hedge 个副本发起，ShutdownOnSuccess 取最先成功的副本并取消其余副本；
+     * 外层仍使用 ShutdownOnFailure 扇出
+     * Approach 4: hedged requests, each downstream call goes to hedge replicas and ShutdownOnSuccess keeps the
+     * first successful replica, cancelling the others; the outer fan-out still uses ShutdownOnFailure
+     */
+    static void hedged(FanOutWorkload w, int request) {
+        FanOutWorkload.Group group = new FanOutWorkload.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            for (int j = 0; j < w.width(); j++) {
+                int sub = j;
+                scope.fork(() -> hedgedCall(w, request, sub, group));
+            }
+            scope.join().throwIfFailed(e -> new IllegalStateException("fan-out failed", e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    private static String hedgedCall(FanOutWorkload w, int request, int sub, FanOutWorkload.Group requestGroup)
+            throws InterruptedException {
+        FanOutWorkload.Group hedgeGroup = new FanOutWorkload.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnSuccess<String>()) {
+            for (int r = 0; r < w.hedge(); r++) {
+                int replica = r;
+                scope.fork(() -> w.call(request, sub, replica, requestGroup, hedgeGroup));
+            }
+            scope.join();
+            // 全部副本失败时整个请求失败 / The request fails when every replica failed
+            return scope.result(e -> {
+                requestGroup.decide();
+                return new IllegalStateException("all replicas failed", e);
+            });
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package tech.legend.learn;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 每核一个工作线程的执行器：每个工作线程拥有私有的 SPSC 环形队列，任务按轮询或哈希路由
+ * Thread-per-core executor: each worker owns a private SPSC ring queue, and tasks are routed round-robin or by hash
+ *
+ * 与 newFixedThreadPool 的区别 / Differences from newFixedThreadPool:
+ * - 没有共享的 LinkedBlockingQueue：提交者与各工作线程之间没有锁、没有共享的 head / tail 缓存行，入队不分配节点
+ *   No shared LinkedBlockingQueue: no lock and no shared head / tail cache lines between the submitter and the
+ *   workers, and enqueueing allocates no node
+ * - 任务一经路由便固定在某个工作线程上，不做窃取；负载不均时队列会积压（见 printStats 的 min / max）
+ *   A routed task stays on its worker and is never stolen; uneven load shows up as backlog (see min / max in printStats)
+ *
+ * 亲和性 / Affinity:
+ *   纯 Java 无法把线程绑定到 CPU 核心（需要 taskset / JNI），这里的亲和性指任务到工作线程的固定映射；
+ *   工作线程数默认等于 CPU 核心数，由操作系统调度器保持其在核心上的相对稳定
+ *   Pure Java cannot bind a thread to a CPU core (that takes taskset / JNI), so affinity here is the fixed
+ *   task-to-worker mapping; the worker count defaults to the core count and the OS scheduler keeps them
+ *   reasonably stable on their cores
+ *
+ * 单生产者约束 / Single-producer constraint:
+ *   每个环形队列只有一个生产者，因此 execute 只允许由首次提交的线程调用，其他线程提交会被拒绝
+ *   Each ring has a single producer, so execute may only be called by the thread that submitted first;
+ *   submissions from other threads are rejected
+ */
+final class ThreadPerCoreExecutor extends AbstractExecutorService {
+
+    /**
+     * 任务路由方式 / Task routing
+     */
+    enum Routing {
+        /** 依次分配给每个工作线程 / Hand tasks to each worker in turn */
+        ROUND_ROBIN,
+        /** 按任务的 identityHashCode 打散 / Spread by the task's identityHashCode */
+        HASH;
+
+        static Routing of(String name) {
+            return name.equalsIgnoreCase("hash") ? HASH : ROUND_ROBIN;
+        }
+    }
+
+    /** 进入 park 前的空转次数 / Empty polls spun before parking */
+    private static final int SPINS_BEFORE_PARK = 1_000;
+    /** 队列满时生产者 park 前的让出次数 / Yields by a producer facing a full ring before it parks */
+    private static final int YIELDS_BEFORE_PARK = 100;
+    /** 队列满时生产者每次 park 的时长 / Park duration of a producer facing a full ring */
+    private static final long PRODUCER_PARK_NANOS = 50_000;
+
+    private final Worker[] workers;
+    private final Routing routing;
+    private final CountDownLatch terminated;
+    private final AtomicReference<Thread> producer = new AtomicReference<>();
+    private final LongAdder producerWaits = new LongAdder();
+    private volatile boolean shutdown;
+    private volatile boolean stopNow;
+    private long next;
+
+    /**
+     * @param threads 工作线程数（通常等于 CPU 核心数）/ Worker count (usually the number of CPU cores)
+     * @param routing 路由方式 / Routing
+     * @param queueCapacity 每个工作线程的队列容量 / Queue capacity per worker
+     */
+    ThreadPerCoreExecutor(int threads, Routing routing, int queueCapacity) {
+        this.routing = routing;
+        this.workers = new Worker[Math.max(1, threads)];
+        this.terminated = new CountDownLatch(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(queueCapacity);
+            workers[i].thread = Thread.ofPlatform().name("tpc-worker-" + i).unstarted(workers[i]);
+        }
+        for (Worker w : workers) w.thread.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) throw new NullPointerException();
+        if (shutdown) throw new RejectedExecutionException("executor is shut down");
+        Thread current = Thread.currentThread();
+        if (producer.get() != current && !producer.compareAndSet(null, current)) {
+            throw new RejectedExecutionException("single-producer executor: submit from " + producer.get().getName());
+        }
+
+        Worker w = workers[route(task)];
+        if (!w.queue.offer(task)) {
+            // 队列满：先让出 CPU，仍未腾出空间（工作线程可能正在阻塞）时短暂 park
+            // Ring full: yield first, then park briefly while there is still no room (the worker may be blocked)
+            producerWaits.increment();
+            int attempts = 0;
+            do {
+                // shutdownNow 之后工作线程不再消费，继续等待会永远阻塞 / After shutdownNow the worker stops consuming
+                if (stopNow) throw new RejectedExecutionException("executor is shut down");
+                w.wake();
+                if (++attempts <= YIELDS_BEFORE_PARK) Thread.yield();
+                else LockSupport.parkNanos(PRODUCER_PARK_NANOS);
+            } while (!w.queue.offer(task));
+        }
+        // 发布 tail 与读取 parked 之间需要 StoreLoad 屏障，否则可能错过唤醒
+        // A StoreLoad barrier between publishing tail and reading parked prevents a lost wake-up
+        VarHandle.fullFence();
+        w.wake();
+    }
+
+    private int route(Runnable task) {
+        return switch (routing) {
+            case ROUND_ROBIN -> (int) (next++ % workers.length);
+            case HASH -> {
+                int h = System.identityHashCode(task);
+                h ^= h >>> 16;
+                yield Math.floorMod(h * 0x9E3779B9, workers.length);
+            }
+        };
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Worker w : workers) LockSupport.unpark(w.thread);
+    }
+
+    /**
+     * 立即停止：中断工作线程，返回尚未执行的任务
+     * Stop now: interrupt workers and return the tasks never started
+     *
+     * 环形队列只允许一个消费者，因此先等每个工作线程退出（正在执行的任务已被中断），再由调用线程接管消费端取出剩余任务；
+     * 在工作线程内部调用时，该线程本身就是自己队列的消费者，直接取出
+     * Each ring allows a single consumer, so wait for every worker to exit (its running task has been interrupted)
+     * before the calling thread takes over the consumer side and drains it; called from inside a worker, that
+     * thread already is its own queue's consumer and drains it directly
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopNow = true;
+        shutdown();
+        for (Worker w : workers) w.thread.interrupt();
+
+        boolean interrupted = false;
+        List<Runnable> pending = new ArrayList<>();
+        for (Worker w : workers) {
+            while (w.thread != Thread.currentThread()) {
+                try {
+                    w.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            for (Runnable r; (r = w.queue.poll()) != null; ) pending.add(r);
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * 输出路由与背压统计 / Print routing and backpressure statistics
+     *
+     * @param indent 行首缩进 / Line indent
+     */
+    void printStats(String indent) {
+        long[] executed = Arrays.stream(workers).mapToLong(w -> w.executed.sum()).toArray();
+        System.out.printf(Locale.ROOT,
+                "%stpc -> workers=%d, routing=%s, tasks/worker min=%d max=%d, ring-full waits=%d, worker parks=%d\n",
+                indent, workers.length, routing.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                Arrays.stream(executed).min().orElse(0), Arrays.stream(executed).max().orElse(0),
+                producerWaits.sum(), Arrays.stream(workers).mapToLong(w -> w.parks.sum()).sum());
+    }
+
+    /**
+     * 工作线程：只消费自己的队列，空闲时先自旋再 park
+     * Worker: consumes only its own queue, spinning before parking when idle
+     */
+    private final class Worker implements Runnable {
+        final SpscRingQueue<Runnable> queue;
+        final LongAdder executed = new LongAdder();
+        final LongAdder parks = new LongAdder();
+        volatile boolean parked;
+        Thread thread;
+
+        Worker(int queueCapacity) {
+            this.queue = new SpscRingQueue<>(queueCapacity);
+        }
+
+        void wake() {
+            if (parked) LockSupport.unpark(thread);
+        }
+
+        @Override
+        public void run() {
+            try {
+                int idle = 0;
+                while (!stopNow) {
+                    Runnable task = queue.poll();
+                    if (task != null) {
+                        idle = 0;
+                        runTask(task);
+                        continue;
+                    }
+                    if (shutdown && queue.isEmpty()) break;
+                    if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    // 先声明 parked 再复查队列，与生产者的屏障配合避免错过唤醒
+                    // Announce parked before re-checking the queue; pairs with the producer's fence to avoid lost wake-ups
+                    parked = true;
+                    if (queue.isEmpty() && !shutdown) {
+                        parks.increment();
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    idle = 0;
+                }
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), t);
+            } finally {
+                executed.increment();
+            }
+        }
+    }
+}
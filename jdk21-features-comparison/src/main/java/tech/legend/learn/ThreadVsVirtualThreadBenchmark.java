@@ -1,11 +1,24 @@
 package tech.legend.learn;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * JDK 8 平台线程 vs JDK 21 虚拟线程 性能对比基准
@@ -18,14 +31,35 @@ import java.util.function.IntFunction;
  * 测试场景 / Test Scenarios:
  * 1. IO 密集型负载（IO-bound）：使用 Thread.sleep() 模拟阻塞操作（如网络请求、文件读写）
  *    IO-intensive workload: Uses Thread.sleep() to simulate blocking operations (network, file I/O)
+ *    可通过 io.kind 切换为真实阻塞：socket（回环 echo）、file（FileChannel）、synchronized（钉住载体）、lock（ReentrantLock）
+ *    Switch to real blocking with io.kind: socket (loopback echo), file (FileChannel), synchronized (pins the carrier), lock (ReentrantLock)
  * 2. CPU 密集型负载（CPU-bound）：使用数学计算循环模拟计算密集任务
  *    CPU-intensive workload: Uses math computation loops to simulate computation-heavy tasks
+ *    另对比 ForkJoin RecursiveTask、并行流与批量提交，并输出相对单线程的加速比
+ *    Also compares ForkJoin RecursiveTask, parallel streams and batched submission, with speedup over a single thread
+ *    以及每核一线程执行器（私有 SPSC 环形队列，轮询 / 哈希路由），用于判断共享队列的竞争是否是瓶颈
+ *    and a thread-per-core executor (private SPSC rings, round-robin / hash routing) to tell whether
+ *    contention on the shared queue is the bottleneck
+ * 3. 混合负载（Mixed）：按阶段计算/阻塞/计算，可带慢请求离群值，对比平台线程池、虚拟线程、commonPool 与限流虚拟线程
+ *    Mixed workload: compute/block/compute phases with optional slow outliers, on platform pool, virtual threads,
+ *    commonPool and semaphore-bounded virtual threads
+ * 4. 扇出负载（Fan-out）：一个请求并发调用多个下游并等待全部返回，对比 CompletableFuture.allOf、每子任务一个虚拟线程、
+ *    StructuredTaskScope.ShutdownOnFailure 与 ShutdownOnSuccess 对冲（后两者需要 --enable-preview）
+ *    Fan-out workload: one request calls several downstreams and waits for all of them, comparing CompletableFuture.allOf,
+ *    a virtual thread per subtask, StructuredTaskScope.ShutdownOnFailure and ShutdownOnSuccess hedging (the last two need --enable-preview)
+ * 5. SIMD 数组内核：标量、自动向量化与 Vector API 三种数组变换，按数组长度参数化，分别在单线程和各执行器上运行
+ *    （Vector API 需要 --add-modules jdk.incubator.vector）
+ *    SIMD array kernels: scalar, auto-vectorized and Vector API array transforms, parameterized by array length and
+ *    run single-threaded and on each executor (the Vector API needs --add-modules jdk.incubator.vector)
  *
  * 性能指标 / Performance Metrics:
  * - wall: 总执行时间（毫秒） / Total execution time (milliseconds)
  * - throughput: 吞吐量（任务数/秒） / Throughput (tasks/second)
  * - avg: 平均任务延迟（毫秒） / Average task latency (milliseconds)
- * - p50/p95/p99: 延迟分位数（毫秒） / Latency percentiles (milliseconds)
+ * - p50/p90/p99/p99.9/p99.99/max: 延迟分位数（毫秒），来自固定内存的对数分桶直方图
+ *   Latency percentiles (milliseconds), read from a fixed-memory log-bucketed histogram
+ * - jvm: GC 次数与停顿、每任务分配量、峰值平台线程数、进程 CPU 时间、运行前后堆占用
+ *   GC count and pauses, allocation per task, peak platform threads, process CPU time, heap used before/after
  *
  * 关键发现 / Key Findings:
  * - IO 密集型：虚拟线程显著优于平台线程（10-100x 提升），因为虚拟线程开销极低、可创建数百万个
@@ -41,14 +75,51 @@ import java.util.function.IntFunction;
  *    Custom parameters: java ThreadVsVirtualThreadBenchmark io.tasks=20000 io.sleepMs=5
  * 3. 预设场景：java ThreadVsVirtualThreadBenchmark preset=io-heavy
  *    Preset scenarios: java ThreadVsVirtualThreadBenchmark preset=io-heavy
+ * 4. 直方图精度（有效数字 1-5，默认 3）：java ThreadVsVirtualThreadBenchmark hist.digits=4
+ *    Histogram precision (significant digits 1-5, default 3): java ThreadVsVirtualThreadBenchmark hist.digits=4
+ * 5. 开环负载（按速率到达，延迟从计划开始时间计算）：java ThreadVsVirtualThreadBenchmark io.rate=50000/s io.arrival=poisson
+ *    Open-loop load (rate-driven arrivals, latency from intended start): java ThreadVsVirtualThreadBenchmark io.rate=50000/s io.arrival=poisson
+ * 6. IO 负载类型：java ThreadVsVirtualThreadBenchmark io.kind=synchronized
+ *    IO workload kind: java ThreadVsVirtualThreadBenchmark io.kind=synchronized
+ * 7. 钉住检测（JFR）：java ThreadVsVirtualThreadBenchmark io.kind=synchronized jfr.pinning=true [pinning.failCount=0]
+ *    Pinning detection (JFR): java ThreadVsVirtualThreadBenchmark io.kind=synchronized jfr.pinning=true [pinning.failCount=0]
+ * 8. 混合负载：java ThreadVsVirtualThreadBenchmark mix=cpu:2000,io:5,cpu:500 mix.slowPct=1
+ *    Mixed workload: java ThreadVsVirtualThreadBenchmark mix=cpu:2000,io:5,cpu:500 mix.slowPct=1
+ * 9. 饱和扫描（寻找满足 SLO 的最大吞吐）：java ThreadVsVirtualThreadBenchmark preset=sweep slo.p99Ms=50 [sweep.by=concurrency]
+ *    Saturation sweep (max throughput within SLO): java ThreadVsVirtualThreadBenchmark preset=sweep slo.p99Ms=50 [sweep.by=concurrency]
+ *    可用 run.only=IO-VirtualThreads 只扫描指定执行器 / Use run.only=IO-VirtualThreads to sweep only the named executors
+ * 10. 调度器参数扫描（子 JVM）：java ThreadVsVirtualThreadBenchmark preset=scheduler-sweep vt.parallelism=1,2,4 vt.maxPoolSize=256 [vt.activeProcessors=2]
+ *     Scheduler sweep (child JVMs): java ThreadVsVirtualThreadBenchmark preset=scheduler-sweep vt.parallelism=1,2,4 vt.maxPoolSize=256 [vt.activeProcessors=2]
+ * 11. 结果导出与基准比较：java ThreadVsVirtualThreadBenchmark out.json=jdk21.json out.csv=jdk21.csv baseline=jdk17.json [baseline.tolerancePct=5]
+ *     Result export and baseline comparison: java ThreadVsVirtualThreadBenchmark out.json=jdk21.json out.csv=jdk21.csv baseline=jdk17.json [baseline.tolerancePct=5]
+ *     吞吐量或 p99 出现显著回归时以非零状态码退出 / Exits non-zero on a significant throughput or p99 regression
+ * 12. 重复试验统计（均值、截尾均值、中位数、标准差、95% 置信区间）：java ThreadVsVirtualThreadBenchmark trials=5 [trials.fork=true]
+ *     Repeated-trial statistics (mean, trimmed mean, median, stddev, 95% CI): java ThreadVsVirtualThreadBenchmark trials=5 [trials.fork=true]
+ * 13. 扇出负载：java --enable-preview ThreadVsVirtualThreadBenchmark fanout=10 fanout.failPct=0.5 [fanout.hedge=2]
+ *     Fan-out workload: java --enable-preview ThreadVsVirtualThreadBenchmark fanout=10 fanout.failPct=0.5 [fanout.hedge=2]
+ * 14. CPU 并行模型（只运行选中的测试，指定切分粒度）：java ThreadVsVirtualThreadBenchmark run.only=CPU-SingleThread,CPU-ForkJoinRecursiveTask cpu.chunk=50
+ *     CPU parallelism models (selected tests only, explicit chunk size): java ThreadVsVirtualThreadBenchmark run.only=CPU-SingleThread,CPU-ForkJoinRecursiveTask cpu.chunk=50
+ * 15. SIMD 数组内核：java --add-modules jdk.incubator.vector ThreadVsVirtualThreadBenchmark simd=1024,65536 [simd.elements=2097152 simd.passes=32]
+ *     SIMD array kernels: java --add-modules jdk.incubator.vector ThreadVsVirtualThreadBenchmark simd=1024,65536 [simd.elements=2097152 simd.passes=32]
+ * 16. 每核一线程执行器（哈希路由）：java ThreadVsVirtualThreadBenchmark preset=mixed tpc.routing=hash [tpc.queueCapacity=256]
+ *     Thread-per-core executor (hash routing): java ThreadVsVirtualThreadBenchmark preset=mixed tpc.routing=hash [tpc.queueCapacity=256]
+ * 17. 无锁环形队列线程池（等待策略 spin / yield / park / backoff）：java ThreadVsVirtualThreadBenchmark ring.wait=yield [ring.capacity=4096]
+ *     Lock-free ring-buffer pool (wait strategy spin / yield / park / backoff): java ThreadVsVirtualThreadBenchmark ring.wait=yield [ring.capacity=4096]
+ * 18. 有界虚拟线程执行器（溢出策略 reject / caller-runs / block）：java ThreadVsVirtualThreadBenchmark bounded.maxConcurrency=500 bounded.policy=caller-runs [bounded.maxQueued=1000]
+ *     Bounded virtual-thread executor (overflow policy reject / caller-runs / block): java ThreadVsVirtualThreadBenchmark bounded.maxConcurrency=500 bounded.policy=caller-runs [bounded.maxQueued=1000]
+ * 19. 每个挂起任务的内存占用（子 JVM，2 GB 预算）：java ThreadVsVirtualThreadBenchmark preset=footprint [footprint=1000,100000 footprint.depth=0,64 footprint.park=park footprint.budgetMb=2048 footprint.stackKb=256]
+ *     Memory footprint per parked task (child JVMs, 2 GB budget): java ThreadVsVirtualThreadBenchmark preset=footprint [footprint=1000,100000 footprint.depth=0,64 footprint.park=park footprint.budgetMb=2048 footprint.stackKb=256]
  *
  * 注意事项 / Important Notes:
  * - 本基准不依赖外部库（如 JMH），方便快速运行和理解
  *   This benchmark doesn't depend on external libraries (like JMH), easy to run and understand
  * - 结果受硬件、JVM 版本、系统负载影响，仅用于趋势对比而非绝对值
  *   Results vary with hardware, JVM version, system load - use for trend comparison, not absolute values
- * - 建议多次运行取平均值以减少误差
- *   Recommend running multiple times and averaging results to reduce variance
+ * - 建议用 trials=N 多次运行并参考置信区间，trials.fork=true 可隔离各测试的 JIT 状态（trials>1 时不能与 out.* 同用，
+ *   trials.fork=true 时也不能与 baseline 同用）；与 baseline 比较时，只有 trials>1 才能判定吞吐量变化是否显著
+ *   Use trials=N to repeat runs and read the confidence intervals; trials.fork=true isolates JIT state per test
+ *   (trials>1 cannot be combined with out.*, trials.fork=true not with baseline either); against a baseline,
+ *   only trials>1 can tell whether a throughput change is significant
  */
 public class ThreadVsVirtualThreadBenchmark {
 
@@ -60,11 +131,107 @@ public class ThreadVsVirtualThreadBenchmark {
     private static int IO_TASKS = 10_000;      // IO 任务总数 / Total number of IO tasks
     private static int IO_SLEEP_MS = 10;       // 每个任务睡眠时间（毫秒），模拟 IO 阻塞 / Sleep time per task (ms), simulates IO blocking
     private static int IO_PLATFORM_THREADS = Math.min(200, Runtime.getRuntime().availableProcessors() * 20); // 平台线程池大小 / Platform thread pool size
+    private static double IO_RATE = 0;         // 开环到达速率（任务数/秒），0 表示闭环 / Open-loop arrival rate (tasks/s), 0 means closed loop
+    private static String IO_ARRIVAL = "constant"; // 开环到达分布：constant 或 poisson / Open-loop arrival distribution: constant or poisson
+    private static String IO_KIND = "sleep";   // IO 负载类型：sleep/socket/file/synchronized/lock / IO workload kind
+    private static int IO_FILE_KB = 64;        // file 负载每次读取的 KB 数 / KB read per task by the file workload
+    private static int IO_LOCK_STRIPES = 1024; // synchronized/lock 负载的锁分段数 / Lock stripes of the synchronized/lock workloads
 
     // CPU 密集型负载配置 / CPU-bound workload configuration
     private static int CPU_TASKS = 10_000;     // CPU 任务总数 / Total number of CPU tasks
     private static int CPU_ITERATIONS = 50_000;// 每个任务的计算迭代次数 / Computation iterations per task
     private static int CPU_PLATFORM_THREADS = Runtime.getRuntime().availableProcessors(); // 平台线程池大小（通常等于 CPU 核心数）/ Platform thread pool size (usually equals CPU cores)
+    private static int CPU_CHUNK = 0;          // ForkJoin 阈值与批量大小，0 表示自动（每线程约 8 段）/ ForkJoin threshold and batch size, 0 means auto (~8 chunks per thread)
+
+    // 混合负载配置 / Mixed workload configuration
+    private static String MIX_SPEC = null;     // 阶段描述，如 cpu:2000,io:5,cpu:500；null 表示不执行 / Phase spec, e.g. cpu:2000,io:5,cpu:500; null skips the scenario
+    private static int MIX_TASKS = 10_000;     // 混合任务总数 / Total number of mixed tasks
+    private static double MIX_SLOW_PCT = 0;    // 慢请求百分比 / Percentage of slow outliers
+    private static int MIX_SLOW_FACTOR = 10;   // 慢请求 IO 放大倍数 / IO stretch factor of slow outliers
+    private static int MIX_PLATFORM_THREADS = 0; // 平台线程池大小及虚拟线程限流许可数，0 表示同 io.platformThreads / Platform pool size and virtual-thread permit count, 0 means io.platformThreads
+
+    // 扇出负载配置 / Fan-out workload configuration
+    private static int FANOUT_WIDTH = 0;          // 每个请求的下游调用数，0 表示不执行 / Downstream calls per request, 0 skips the scenario
+    private static int FANOUT_TASKS = 2_000;      // 请求总数 / Total number of requests
+    private static int FANOUT_CONCURRENCY = 64;   // 同时在途的请求数（闭环）/ Requests in flight at once (closed loop)
+    private static int FANOUT_SUBTASK_MS = 5;     // 每次下游调用的阻塞时间（毫秒）/ Blocking time per downstream call (ms)
+    private static double FANOUT_SLOW_PCT = 1.0;  // 慢调用百分比 / Percentage of slow calls
+    private static int FANOUT_SLOW_FACTOR = 10;   // 慢调用放大倍数 / Stretch factor of slow calls
+    private static double FANOUT_FAIL_PCT = 0;    // 失败调用百分比 / Percentage of failing calls
+    private static int FANOUT_HEDGE = 2;          // 对冲副本数 / Hedged replicas per call
+    private static int FANOUT_PLATFORM_THREADS = 0; // allOf 使用的下游平台线程池大小，0 表示同 io.platformThreads / Downstream platform pool size for allOf, 0 means io.platformThreads
+
+    // 每核一线程执行器配置（CPU 与混合负载）/ Thread-per-core executor configuration (CPU and mixed workloads)
+    private static int TPC_THREADS = Runtime.getRuntime().availableProcessors(); // 工作线程数 / Worker count
+    private static ThreadPerCoreExecutor.Routing TPC_ROUTING = ThreadPerCoreExecutor.Routing.ROUND_ROBIN; // 路由方式 / Routing
+    private static int TPC_QUEUE_CAPACITY = 1_024; // 每个工作线程的环形队列容量 / Ring capacity per worker
+
+    // 无锁环形队列线程池配置（IO、CPU 与混合负载）/ Lock-free ring-buffer pool configuration (IO, CPU and mixed workloads)
+    private static RingBufferExecutor.WaitStrategy RING_WAIT = RingBufferExecutor.WaitStrategy.BACKOFF; // 等待策略 / Wait strategy
+    private static int RING_CAPACITY = 1_024;      // 队列容量 / Queue capacity
+
+    // 有界虚拟线程执行器配置（IO 负载）/ Bounded virtual-thread executor configuration (IO workload)
+    private static int BOUNDED_MAX_CONCURRENCY = 1_000; // 同时运行的任务数上限 / Maximum running tasks
+    private static int BOUNDED_MAX_QUEUED = 10_000;     // 排队任务数上限 / Maximum queued tasks
+    private static BoundedVirtualThreadExecutor.OverflowPolicy BOUNDED_POLICY = BoundedVirtualThreadExecutor.OverflowPolicy.BLOCK; // 溢出策略 / Overflow policy
+
+    // SIMD 数组内核配置 / SIMD array kernel configuration
+    private static List<Integer> SIMD_SIZES = List.of(); // 每个任务的数组长度，为空表示不执行 / Array length per task, empty skips the scenario
+    private static int SIMD_ELEMENTS = 1 << 21;   // 数组总长度 / Total array length
+    private static int SIMD_PASSES = 32;          // 每个任务的重复次数 / Passes per task
+
+    // 延迟直方图配置 / Latency histogram configuration
+    private static int HISTOGRAM_DIGITS = 3;   // 有效数字位数，决定分位数精度 / Significant digits, controls percentile precision
+
+    // 饱和扫描配置 / Saturation sweep configuration
+    private static boolean SWEEP = false;          // 是否执行扫描模式（preset=sweep）/ Whether to run the sweep mode (preset=sweep)
+    private static String SWEEP_BY = "rate";       // 扫描维度：rate（开环到达速率）或 concurrency（闭环在途数）/ Sweep axis: rate (open-loop) or concurrency (closed-loop)
+    private static double SWEEP_START = 0;         // 起始值，0 表示按维度取默认值 / Start level, 0 picks the axis default
+    private static double SWEEP_FACTOR = 2.0;      // 每步的放大倍数 / Multiplier applied per step
+    private static int SWEEP_MAX_STEPS = 12;       // 最大步数 / Maximum number of steps
+    private static double SWEEP_SECONDS = 2.0;     // rate 维度下每步的持续时间（秒）/ Duration of each step on the rate axis (seconds)
+    private static double SLO_P99_MS = 50.0;       // p99 响应时间 SLO（毫秒）/ p99 response-time SLO (milliseconds)
+
+    // 虚拟线程钉住检测配置（JFR）/ Virtual-thread pinning detection configuration (JFR)
+    private static boolean PINNING = false;                // 是否开启检测（jfr.pinning=true）/ Enable detection (jfr.pinning=true)
+    private static double PINNING_EVENT_THRESHOLD_MS = 0;  // 只记录钉住时间超过该值的事件 / Only record pinned events longer than this
+    private static long PINNING_FAIL_COUNT = -1;           // 钉住次数超过该值则失败，-1 不检查 / Fail when pinned count exceeds this, -1 disables
+    private static double PINNING_FAIL_MS = -1;            // 总钉住时间超过该值则失败，-1 不检查 / Fail when total pinned ms exceeds this, -1 disables
+    private static int PINNING_TOP_FRAMES = 5;             // 输出的栈签名数量 / Number of stack signatures printed
+    private static boolean PINNING_VIOLATED = false;       // 是否有运行超过阈值 / Whether any run exceeded a threshold
+
+    // 虚拟线程调度器扫描配置 / Virtual-thread scheduler sweep configuration
+    private static boolean SCHEDULER_SWEEP = false;  // preset=scheduler-sweep
+    private static List<Integer> VT_PARALLELISM = defaultParallelisms();  // jdk.virtualThreadScheduler.parallelism 取值 / values
+    private static List<Integer> VT_MAX_POOL_SIZE = List.of(256);        // jdk.virtualThreadScheduler.maxPoolSize 取值 / values
+    private static int VT_ACTIVE_PROCESSORS = 0;     // 子 JVM 的 -XX:ActiveProcessorCount，0 不设置 / Child -XX:ActiveProcessorCount, 0 leaves it unset
+    private static boolean CHILD_REPORT = false;     // 作为子进程运行时输出机器可读结果行 / Print machine-readable lines when running as a child
+
+    // 内存占用测量配置（子 JVM）/ Memory footprint measurement configuration (child JVMs)
+    private static List<Integer> FOOTPRINT_COUNTS = List.of(); // 同时挂起的任务数，为空表示不执行 / Concurrently parked tasks, empty skips the mode
+    private static List<Integer> FOOTPRINT_DEPTHS = List.of(0, 64); // 挂起时的栈深度 / Stack depth when parked
+    private static List<String> FOOTPRINT_KINDS = List.of("platform", "virtual"); // 线程类型 / Thread kinds
+    private static MemoryFootprint.ParkMode FOOTPRINT_PARK = MemoryFootprint.ParkMode.LATCH; // 挂起方式 / Park mode
+    private static int FOOTPRINT_BUDGET_MB = 2_048;  // 容器内存预算 / Container memory budget
+    private static int FOOTPRINT_STACK_KB = 0;       // 平台线程栈大小，0 使用 JVM 默认值 / Platform thread stack size, 0 keeps the JVM default
+    private static String FOOTPRINT_CHILD = null;    // 子进程要运行的组合（kind:n:depth）/ Combination run by a child (kind:n:depth)
+
+    // 结果导出与基准比较配置 / Result export and baseline comparison configuration
+    private static String OUT_JSON = null;            // JSON 结果文件，null 不输出 / JSON result file, null disables
+    private static String OUT_CSV = null;             // CSV 结果文件，null 不输出 / CSV result file, null disables
+    private static String BASELINE = null;            // 基准结果文件（.json 或 .csv）/ Baseline result file (.json or .csv)
+    private static double BASELINE_TOLERANCE_PCT = 5.0; // 视为显著的最小相对变化（%）/ Minimum relative change treated as significant (%)
+    private static List<String> ARGS = List.of();     // 原始命令行参数，写入结果文件 / Original arguments, written to result files
+    private static final List<RunResult> RESULTS = new ArrayList<>(); // 本次运行的全部结果（不含预热）/ All results of this run (warmup excluded)
+
+    // 重复试验配置 / Repeated trial configuration
+    private static int TRIALS = 1;                    // 试验次数，每次试验前重新预热 / Number of trials, each preceded by its own warmup
+    private static boolean TRIALS_FORK = false;       // 每次试验的每个测试在新 JVM 中运行 / Run every test of every trial in a fresh JVM
+    private static List<String> RUN_ONLY = null;      // 只执行这些测试（分叉试验的子进程使用）/ Only run these tests (used by forked trial children)
+
+    // 开环调度常量 / Open-loop scheduling constants
+    private static final long ARRIVAL_SEED = 42L;              // 泊松到达随机种子 / Poisson arrival seed
+    private static final long SPIN_THRESHOLD_NANOS = 50_000L;  // 剩余时间低于该值时自旋等待 / Spin instead of park below this remaining time
 
     /**
      * 主程序入口 / Main program entry
@@ -75,11 +242,39 @@ public class ThreadVsVirtualThreadBenchmark {
      * 3. 预热 JVM（稳定 JIT 编译）/ Warmup JVM (stabilize JIT compilation)
      * 4. 执行 IO 密集型对比测试 / Run IO-bound comparison tests
      * 5. 执行 CPU 密集型对比测试 / Run CPU-bound comparison tests
+     * 6. trials > 1 时重复 3-5 并输出跨试验统计 / With trials > 1, repeat 3-5 and print cross-trial statistics
      */
     public static void main(String[] args) throws Exception {
         // 解析命令行参数（如 io.tasks=20000）
         // Parse command line arguments (e.g., io.tasks=20000)
         parseArgs(args);
+        ARGS = List.of(args);
+
+        // 调度器参数扫描：由父进程启动多个子 JVM，自身不运行基准
+        // Scheduler sweep: the parent launches child JVMs and runs no benchmark itself
+        if (SCHEDULER_SWEEP) {
+            printEnv();
+            List<String> forwarded = Arrays.stream(args)
+                    .filter(a -> !a.startsWith("vt.") && !a.startsWith("out.") && !a.startsWith("baseline")
+                            && !a.startsWith("trials") && !a.equals("preset=scheduler-sweep"))
+                    .toList();
+            SchedulerSweep.run(ThreadVsVirtualThreadBenchmark.class, forwarded,
+                    VT_PARALLELISM, VT_MAX_POOL_SIZE, VT_ACTIVE_PROCESSORS);
+            return;
+        }
+
+        // 内存占用测量：子进程挂起任务并回传结果，父进程逐个启动子 JVM 并汇总
+        // Memory footprint: children park tasks and report back, the parent launches them one by one and summarizes
+        if (FOOTPRINT_CHILD != null) {
+            MemoryFootprint.child(FOOTPRINT_CHILD, FOOTPRINT_PARK, FOOTPRINT_BUDGET_MB, FOOTPRINT_STACK_KB);
+            return;
+        }
+        if (!FOOTPRINT_COUNTS.isEmpty()) {
+            printEnv();
+            MemoryFootprint.run(ThreadVsVirtualThreadBenchmark.class, FOOTPRINT_COUNTS, FOOTPRINT_DEPTHS,
+                    FOOTPRINT_KINDS, FOOTPRINT_PARK, FOOTPRINT_BUDGET_MB, FOOTPRINT_STACK_KB);
+            return;
+        }
 
         // 打印环境信息（Java 版本、OS、CPU 核心数等）
         // Print environment info (Java version, OS, CPU cores, etc.)
@@ -89,119 +284,735 @@ public class ThreadVsVirtualThreadBenchmark {
         // Print current configuration parameters
         System.out.println("=== 配置 / Config ===");
         System.out.printf(Locale.ROOT,
-                "IO: tasks=%d, sleepMs=%d, platformThreads=%d\n",
-                IO_TASKS, IO_SLEEP_MS, IO_PLATFORM_THREADS);
+                "IO: kind=%s, tasks=%d, sleepMs=%d, platformThreads=%d, arrival=%s\n",
+                IO_KIND, IO_TASKS, IO_SLEEP_MS, IO_PLATFORM_THREADS, ioSchedule().describe());
+        System.out.printf(Locale.ROOT,
+                "CPU: tasks=%d, iterations=%d, platformThreads=%d, chunk=%s\n",
+                CPU_TASKS, CPU_ITERATIONS, CPU_PLATFORM_THREADS, CPU_CHUNK > 0 ? CPU_CHUNK : "auto");
         System.out.printf(Locale.ROOT,
-                "CPU: tasks=%d, iterations=%d, platformThreads=%d\n\n",
-                CPU_TASKS, CPU_ITERATIONS, CPU_PLATFORM_THREADS);
+                "TPC: threads=%d, routing=%s, queueCapacity=%d\n",
+                TPC_THREADS, TPC_ROUTING.name().toLowerCase(Locale.ROOT).replace('_', '-'), TPC_QUEUE_CAPACITY);
+        System.out.printf(Locale.ROOT,
+                "RING: wait=%s, capacity=%d\n",
+                RING_WAIT.name().toLowerCase(Locale.ROOT), RING_CAPACITY);
+        System.out.printf(Locale.ROOT,
+                "BOUNDED: maxConcurrency=%d, maxQueued=%d, policy=%s\n",
+                BOUNDED_MAX_CONCURRENCY, BOUNDED_MAX_QUEUED,
+                BOUNDED_POLICY.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+        if (MIX_SPEC != null) {
+            System.out.printf(Locale.ROOT,
+                    "MIX: spec=%s, tasks=%d, slowPct=%.1f, slowFactor=%d, platformThreads=%d\n",
+                    MIX_SPEC, MIX_TASKS, MIX_SLOW_PCT, MIX_SLOW_FACTOR, MIX_PLATFORM_THREADS);
+        }
+        if (FANOUT_WIDTH > 0) {
+            System.out.printf(Locale.ROOT,
+                    "FANOUT: width=%d, tasks=%d, concurrency=%d, subtaskMs=%d, slowPct=%.1f, slowFactor=%d, failPct=%.1f, hedge=%d, platformThreads=%d\n",
+                    FANOUT_WIDTH, FANOUT_TASKS, FANOUT_CONCURRENCY, FANOUT_SUBTASK_MS, FANOUT_SLOW_PCT, FANOUT_SLOW_FACTOR,
+                    FANOUT_FAIL_PCT, FANOUT_HEDGE, FANOUT_PLATFORM_THREADS);
+        }
+        if (!SIMD_SIZES.isEmpty()) {
+            System.out.printf(Locale.ROOT, "SIMD: sizes=%s, elements=%d, passes=%d, vectorApi=%s\n",
+                    SIMD_SIZES, SIMD_ELEMENTS, SIMD_PASSES,
+                    ArrayKernels.vectorApiAvailable() ? VectorKernels.lanes() + " lanes" : "unavailable");
+        }
+        if (TRIALS > 1) {
+            System.out.printf(Locale.ROOT, "Trials: n=%d, fork=%b\n", TRIALS, TRIALS_FORK);
+        }
+        System.out.printf(Locale.ROOT,
+                "Histogram: significantDigits=%d\n\n",
+                HISTOGRAM_DIGITS);
+
+        // 饱和扫描模式：逐步加压直到突破 SLO，替代常规对比
+        // Saturation sweep mode: ramp load until the SLO breaks, replaces the regular comparison
+        if (SWEEP) {
+            warmup();
+            runSweep();
+            finish();
+            return;
+        }
+
+        // 分叉试验：每次试验的每个测试都在新的 JVM 中运行，JIT 状态不会在测试之间泄漏
+        // Forked trials: every test of every trial runs in a fresh JVM, so JIT state never leaks between tests
+        if (TRIALS_FORK) {
+            runForkedTrials(args);
+            return;
+        }
+
+        // 重复试验会让同一测试名称在结果中出现多次，导出文件无法区分，因此与分叉试验一样明确拒绝；
+        // 基准比较则按名称汇总各次试验，并用跨试验置信区间判定吞吐量变化
+        // Repeated trials put the same test name into the results once per trial, which the exported files
+        // cannot tell apart, so reject the combination as forked trials do; the baseline comparison groups the
+        // trials by name and judges throughput with the cross-trial confidence interval
+        if (TRIALS > 1 && (OUT_JSON != null || OUT_CSV != null)) {
+            throw new IllegalArgumentException(
+                    "trials>1 cannot be combined with out.json= or out.csv=; run with trials=1");
+        }
+
+        // 重复试验：每次试验前重新预热，结束后汇总各次试验的统计量
+        // Repeated trials: warm up again before each trial and summarize across trials at the end
+        for (int trial = 1; trial <= TRIALS; trial++) {
+            if (TRIALS > 1) System.out.printf(Locale.ROOT, "##### Trial %d/%d #####\n\n", trial, TRIALS);
+
+            // 预热阶段：让 JIT 编译器优化热点代码，确保后续测试结果稳定
+            // Warmup phase: Let JIT compiler optimize hot code, ensure stable test results
+            warmup();
+            runScenarios();
+        }
+        if (TRIALS > 1) {
+            TrialStatistics.print(RESULTS.stream().map(TrialStatistics.Sample::of).toList());
+        }
 
-        // 预热阶段：让 JIT 编译器优化热点代码，确保后续测试结果稳定
-        // Warmup phase: Let JIT compiler optimize hot code, ensure stable test results
-        warmup();
+        finish();
+    }
 
+    /**
+     * 执行一次完整对比：IO、CPU 以及（可选的）混合负载
+     * Run one full comparison: IO, CPU and (optionally) the mixed workload
+     */
+    private static void runScenarios() throws Exception {
         // ============================================
         // IO 密集型负载对比测试
         // IO-bound workload comparison test
         // ============================================
         // 预期结果：虚拟线程显著优于平台线程
         // Expected: Virtual threads significantly outperform platform threads
-        System.out.println("=== IO-bound workload (sleep) ===");
+        // 注意：synchronized 内阻塞会钉住载体线程，此时虚拟线程优势消失
+        // Note: blocking inside synchronized pins the carrier, and the virtual-thread advantage disappears
+        if (anySelected("IO-")) {
+            try (IoWorkload io = ioWorkload()) {
+                System.out.println("=== IO-bound workload (" + io.name() + ") ===");
 
-        // 平台线程测试：使用固定大小线程池
-        // Platform threads test: Uses fixed-size thread pool
-        runComparison(
-                "IO-PlatformThreads",
-                () -> Executors.newFixedThreadPool(IO_PLATFORM_THREADS),
-                i -> () -> sleepTask(IO_SLEEP_MS),
-                IO_TASKS
-        );
+                // 平台线程测试：使用固定大小线程池
+                // Platform threads test: Uses fixed-size thread pool
+                runComparison(
+                        "IO-PlatformThreads",
+                        () -> Executors.newFixedThreadPool(IO_PLATFORM_THREADS),
+                        i -> () -> io.run(i),
+                        IO_TASKS,
+                        ioSchedule()
+                );
 
-        // 虚拟线程测试：每个任务一个虚拟线程（JDK 21 新特性）
-        // Virtual threads test: One virtual thread per task (JDK 21 new feature)
-        runComparison(
-                "IO-VirtualThreads",
-                Executors::newVirtualThreadPerTaskExecutor,
-                i -> () -> sleepTask(IO_SLEEP_MS),
-                IO_TASKS
-        );
+                // 同样大小的平台线程池，队列换成无锁环形队列
+                // Same-size platform pool with the queue swapped for a lock-free ring
+                runRingBuffer("IO-RingBufferThreads", IO_PLATFORM_THREADS, i -> () -> io.run(i), IO_TASKS, ioSchedule());
 
-        System.out.println();
+                // 虚拟线程测试：每个任务一个虚拟线程（JDK 21 新特性）
+                // Virtual threads test: One virtual thread per task (JDK 21 new feature)
+                runComparison(
+                        "IO-VirtualThreads",
+                        Executors::newVirtualThreadPerTaskExecutor,
+                        i -> () -> io.run(i),
+                        IO_TASKS,
+                        ioSchedule()
+                );
+
+                // 有界虚拟线程：限制同时运行与排队的任务数，超出时按溢出策略处理
+                // Bounded virtual threads: cap running and queued tasks, apply the overflow policy beyond that
+                runBounded("IO-BoundedVirtualThreads", i -> () -> io.run(i), IO_TASKS, ioSchedule());
+                System.out.println();
+            }
+        }
 
         // ============================================
         // CPU 密集型负载对比测试
         // CPU-bound workload comparison test
         // ============================================
-        // 预期结果：两者性能接近，因为受 CPU 核心数限制
-        // Expected: Similar performance, limited by CPU cores
+        // 预期结果：平台线程与虚拟线程接近，受 CPU 核心数限制；按区间切分的模型开销更低
+        // Expected: platform and virtual threads are close, limited by CPU cores; range-splitting models cost less
+        if (anySelected("CPU-")) {
+            runCpu();
+        }
+
+        // ============================================
+        // 混合 CPU + IO 负载对比测试（mix= 或 preset=mixed 时执行）
+        // Mixed CPU + IO workload comparison (runs with mix= or preset=mixed)
+        // ============================================
+        if (MIX_SPEC != null && anySelected("MIX-")) {
+            System.out.println();
+            runMixed();
+        }
+
+        // ============================================
+        // 扇出 / 扇入负载对比测试（fanout= 或 preset=fanout 时执行）
+        // Fan-out / fan-in workload comparison (runs with fanout= or preset=fanout)
+        // ============================================
+        if (FANOUT_WIDTH > 0 && anySelected("FAN-")) {
+            System.out.println();
+            runFanOut();
+        }
+
+        // ============================================
+        // SIMD 数组内核对比测试（simd= 或 preset=simd 时执行）
+        // SIMD array kernel comparison (runs with simd= or preset=simd)
+        // ============================================
+        for (int size : SIMD_SIZES) {
+            if (anySelected("SIMD-n" + size + "-")) {
+                System.out.println();
+                runSimd(size);
+            }
+        }
+    }
+
+    /**
+     * 当前配置下会执行的全部测试名称（分叉试验按名称逐个启动子 JVM）
+     * Names of all tests run under the current configuration (forked trials launch one child JVM per name)
+     */
+    private static List<String> comparisonNames() {
+        List<String> names = new ArrayList<>(List.of(
+                "IO-PlatformThreads", "IO-RingBufferThreads", "IO-VirtualThreads", "IO-BoundedVirtualThreads",
+                "CPU-SingleThread", "CPU-PlatformThreads", "CPU-RingBufferThreads", "CPU-VirtualThreads", "CPU-ThreadPerCore",
+                "CPU-ForkJoinRecursiveTask", "CPU-ParallelStream", "CPU-BatchedPlatformThreads"));
+        if (MIX_SPEC != null) {
+            names.addAll(List.of("MIX-PlatformThreads", "MIX-VirtualThreads",
+                    "MIX-ForkJoinCommonPool", "MIX-BoundedVirtualThreads", "MIX-ThreadPerCore", "MIX-RingBufferThreads"));
+        }
+        if (FANOUT_WIDTH > 0) {
+            names.addAll(List.of("FAN-CompletableFutureAllOf", "FAN-VirtualThreadPerSubtask"));
+            if (FanOutWorkload.structuredConcurrencyAvailable()) {
+                names.addAll(List.of("FAN-StructuredShutdownOnFailure", "FAN-StructuredHedged"));
+            }
+        }
+        for (int size : SIMD_SIZES) {
+            for (String kernel : simdKernels().keySet()) {
+                for (String executor : List.of("SingleThread", "PlatformThreads", "VirtualThreads")) {
+                    names.add(simdName(size, kernel, executor));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 测试是否被 run.only 选中（预热总是执行）；饱和扫描的 "执行器@档位" 按执行器名称匹配
+     * Whether run.only selects the test (warmup always runs); saturation sweep runs named "executor@level"
+     * match on the executor name
+     */
+    private static boolean isSelected(String name) {
+        if (RUN_ONLY == null || name.startsWith("WARMUP")) return true;
+        int at = name.indexOf('@');
+        return RUN_ONLY.contains(at < 0 ? name : name.substring(0, at));
+    }
+
+    /** 是否有以 prefix 开头的测试被选中 / Whether any selected test starts with prefix */
+    private static boolean anySelected(String prefix) {
+        return RUN_ONLY == null || RUN_ONLY.stream().anyMatch(n -> n.startsWith(prefix));
+    }
+
+    /**
+     * 分叉试验：对每次试验、每个测试启动一个子 JVM（子进程自行预热），汇总后输出统计表
+     * Forked trials: launch one child JVM per trial and test (each child warms up on its own),
+     * then print the summary table
+     */
+    private static void runForkedTrials(String[] args) throws Exception {
+        // 子进程只回传吞吐量与延迟分位数，不足以导出完整结果或与基准比较，因此明确拒绝而不是静默忽略
+        // Children only report throughput and latency percentiles, which is not enough for a full export or a
+        // baseline comparison, so reject the combination instead of silently dropping it
+        if (OUT_JSON != null || OUT_CSV != null || BASELINE != null) {
+            throw new IllegalArgumentException(
+                    "trials.fork=true cannot be combined with out.json=, out.csv= or baseline=; run with trials.fork=false");
+        }
+        List<String> forwarded = Arrays.stream(args)
+                .filter(a -> !a.startsWith("trials") && !a.startsWith("run.only") && !a.startsWith("out.")
+                        && !a.startsWith("baseline"))
+                .toList();
+        List<TrialStatistics.Sample> samples = new ArrayList<>();
+        List<String> failedChildren = new ArrayList<>();
+        for (int trial = 1; trial <= TRIALS; trial++) {
+            for (String name : comparisonNames()) {
+                List<String> childArgs = new ArrayList<>(forwarded);
+                childArgs.add("run.only=" + name);
+                String label = String.format(Locale.ROOT, "trial %d %s", trial, name);
+                List<String> cmd = ChildJvm.command(ThreadVsVirtualThreadBenchmark.class, List.of(), childArgs);
+                for (String[] f : ChildJvm.run(cmd, exit -> { if (exit != 0) failedChildren.add(label); })) {
+                    TrialStatistics.Sample sample = TrialStatistics.Sample.parse(f);
+                    samples.add(sample);
+                    System.out.printf(Locale.ROOT, "--> trial %d/%d, child JVM: %-26s throughput=%.1f tasks/s, p99=%.3f ms\n",
+                            trial, TRIALS, sample.name(), sample.throughput(), sample.percentilesMs()[2]);
+                }
+            }
+        }
+        System.out.println();
+        TrialStatistics.print(samples);
+
+        // 子进程在钉住超阈值（pinning.fail*）或崩溃时以非零状态退出，父进程同样以非零状态退出
+        // A child exits non-zero on a pinning violation (pinning.fail*) or a crash; the parent does the same
+        if (!failedChildren.isEmpty()) {
+            System.out.println("\nFAILED: child JVM(s) exited with a non-zero status: " + failedChildren);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * CPU 密集型对比：逐个提交任务的执行器与按区间切分的并行模型，最后输出相对单线程基线的加速比
+     * CPU-bound comparison: executors that submit task by task and range-splitting parallel models,
+     * followed by the speedup over the single-threaded baseline
+     *
+     * - 单线程基线 / Single-threaded baseline
+     * - 平台线程池、每任务一个虚拟线程（逐个提交）/ Platform pool, virtual thread per task (submitted one by one)
+     * - ForkJoinPool + RecursiveTask、IntStream.parallel()、批量提交（每个任务处理 cpu.chunk 个索引）
+     *   ForkJoinPool + RecursiveTask, IntStream.parallel(), batched submission (cpu.chunk indices per task)
+     */
+    private static void runCpu() throws Exception {
         System.out.println("=== CPU-bound workload (math loop) ===");
+        int chunk = CPU_CHUNK > 0 ? CPU_CHUNK : CpuParallelism.defaultChunk(CPU_TASKS, CPU_PLATFORM_THREADS);
+        IntToDoubleFunction kernel = i -> cpuTask(i, CPU_ITERATIONS);
+        List<RunResult> runs = new ArrayList<>();
+
+        // 单线程基线：没有任何调度开销 / Single-threaded baseline: no scheduling overhead at all
+        runs.add(runBatch("CPU-SingleThread", CPU_TASKS, kernel,
+                task -> CpuParallelism.singleThread(CPU_TASKS, task)));
 
         // 平台线程测试：线程数通常等于 CPU 核心数
         // Platform threads test: Thread count usually equals CPU cores
-        runComparison(
+        runs.add(runComparison(
                 "CPU-PlatformThreads",
                 () -> Executors.newFixedThreadPool(CPU_PLATFORM_THREADS),
                 i -> () -> cpuTask(i, CPU_ITERATIONS),
                 CPU_TASKS
-        );
+        ));
+        runs.add(runRingBuffer("CPU-RingBufferThreads", CPU_PLATFORM_THREADS,
+                i -> () -> cpuTask(i, CPU_ITERATIONS), CPU_TASKS, ArrivalSchedule.closedLoop()));
 
         // 虚拟线程测试：虽然可以创建大量虚拟线程，但 CPU 密集任务仍受核心数限制
         // Virtual threads test: Although many virtual threads can be created, CPU-bound tasks are still limited by cores
-        runComparison(
+        runs.add(runComparison(
                 "CPU-VirtualThreads",
                 Executors::newVirtualThreadPerTaskExecutor,
                 i -> () -> cpuTask(i, CPU_ITERATIONS),
                 CPU_TASKS
+        ));
+
+        // 每核一线程：私有 SPSC 队列，没有共享队列上的竞争
+        // Thread per core: private SPSC queues, no contention on a shared queue
+        runs.add(runThreadPerCore("CPU-ThreadPerCore", i -> () -> cpuTask(i, CPU_ITERATIONS), CPU_TASKS));
+
+        // 工作窃取：RecursiveTask 二分索引区间 / Work stealing: RecursiveTask halves the index range
+        try (ForkJoinPool pool = new ForkJoinPool(CPU_PLATFORM_THREADS)) {
+            runs.add(runBatch("CPU-ForkJoinRecursiveTask", CPU_TASKS, kernel,
+                    task -> CpuParallelism.forkJoin(pool, CPU_TASKS, chunk, task)));
+        }
+
+        // 并行流：运行在 commonPool 上（并行度 = CPU 核心数 - 1，外加调用线程）
+        // Parallel stream: runs on the commonPool (parallelism = cores - 1, plus the calling thread)
+        runs.add(runBatch("CPU-ParallelStream", CPU_TASKS, kernel,
+                task -> CpuParallelism.parallelStream(CPU_TASKS, task)));
+
+        // 批量提交：提交次数从 CPU_TASKS 降到 CPU_TASKS / chunk
+        // Batched submission: submissions drop from CPU_TASKS to CPU_TASKS / chunk
+        try (ExecutorService pool = Executors.newFixedThreadPool(CPU_PLATFORM_THREADS)) {
+            runs.add(runBatch("CPU-BatchedPlatformThreads", CPU_TASKS, kernel,
+                    task -> CpuParallelism.batched(pool, CPU_TASKS, chunk, task)));
+        }
+
+        printSpeedup(runs, "CPU-SingleThread");
+    }
+
+    /**
+     * 输出相对基线的加速比与并行效率（加速比 / CPU 核心数）
+     * Print speedup over the baseline and parallel efficiency (speedup / CPU cores)
+     *
+     * @param runs 本组运行结果（被 run.only 跳过的为 null）/ Results of this group (null when skipped by run.only)
+     * @param baselineName 基线测试名称 / Name of the baseline run
+     */
+    private static void printSpeedup(List<RunResult> runs, String baselineName) {
+        RunResult baseline = runs.stream()
+                .filter(r -> r != null && r.name().equals(baselineName))
+                .findFirst()
+                .orElse(null);
+        if (baseline == null) return;
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int width = runs.stream().filter(r -> r != null).mapToInt(r -> r.name().length()).max().orElse(0);
+        System.out.printf(Locale.ROOT, "--- Speedup vs %s (CPUs=%d) ---\n", baselineName, cpus);
+        for (RunResult r : runs) {
+            if (r == null) continue;
+            double speedup = r.throughput() / Math.max(1e-9, baseline.throughput());
+            System.out.printf(Locale.ROOT, "%-" + width + "s %10.1f tasks/s  speedup=x%.2f  efficiency=%.0f%%\n",
+                    r.name(), r.throughput(), speedup, speedup / cpus * 100);
+        }
+        System.out.println();
+    }
+
+    /**
+     * 批量驱动：一次调用处理全部索引（由驱动自行决定并行方式）
+     * Batch driver: one call processes every index (the driver decides how to parallelize)
+     */
+    @FunctionalInterface
+    private interface BatchDriver {
+        double run(IntToDoubleFunction task) throws Exception;
+    }
+
+    /** 保存批量运行的结果，防止 JIT 消除计算 / Keeps batch results alive so the JIT cannot eliminate the work */
+    private static volatile double BATCH_SINK;
+
+    /**
+     * 执行一次批量测试：每个索引的耗时记为服务时间，从批次开始到该索引完成记为响应时间
+     * Run one batch test: each index's own time is its service time, and the time from batch start to
+     * its completion is its response time
+     *
+     * @param name 测试名称 / Test name
+     * @param tasks 索引总数 / Number of indices
+     * @param body 单个索引的计算 / Computation for one index
+     * @param driver 并行模型 / Parallelism model
+     * @return 测试结果，未被 run.only 选中时为 null / Run result, null when run.only does not select the test
+     */
+    private static RunResult runBatch(String name, int tasks, IntToDoubleFunction body, BatchDriver driver) throws Exception {
+        if (!isSelected(name)) return null;
+
+        LatencyHistogram durations = new LatencyHistogram(HISTOGRAM_DIGITS);
+        LatencyHistogram responses = new LatencyHistogram(HISTOGRAM_DIGITS);
+
+        Instant startWall = Instant.now();
+        long cpuStart = processCpuNanos();
+        RunTelemetry.Probe telemetry = RunTelemetry.start();
+        long batchStart = System.nanoTime();
+
+        BATCH_SINK = driver.run(i -> {
+            long t0 = System.nanoTime();
+            try {
+                return body.applyAsDouble(i);
+            } finally {
+                long t1 = System.nanoTime();
+                durations.record(t1 - t0);
+                responses.record(t1 - batchStart);
+            }
+        });
+
+        long wallMillis = Duration.between(startWall, Instant.now()).toMillis();
+        long cpuNanos = processCpuNanos() - cpuStart;
+        RunTelemetry jvm = telemetry.stop();
+        double throughput = (tasks * 1000.0) / Math.max(1.0, wallMillis);
+
+        RunResult result = new RunResult(name, tasks, wallMillis, throughput, ArrivalSchedule.closedLoop(),
+                durations, responses, 0, null, cpuNanos, jvm);
+        report(result);
+        return result;
+    }
+
+    /**
+     * 扇出负载对比：每个请求并发调用 width 个下游，测量端到端延迟与取消后的浪费
+     * Fan-out comparison: each request calls width downstreams concurrently; measures end-to-end latency
+     * and the work wasted after cancellation
+     *
+     * - CompletableFuture.allOf：请求与下游都运行在平台线程池上（两个独立的池，避免互相等待导致死锁）
+     *   Requests and downstream calls both run on platform pools (two separate pools, so they cannot deadlock)
+     * - 每子任务一个虚拟线程，逐个 join / A virtual thread per subtask, joined one by one
+     * - StructuredTaskScope.ShutdownOnFailure：首个失败即取消兄弟任务 / Cancels siblings on the first failure
+     * - ShutdownOnSuccess 对冲：每个调用发往 hedge 个副本，取最快成功者 / Each call goes to hedge replicas, fastest success wins
+     *
+     * 后三种方式的请求本身运行在虚拟线程上；同时在途的请求数由 fanout.concurrency 限制
+     * The last three run each request on a virtual thread; requests in flight are capped by fanout.concurrency
+     */
+    private static void runFanOut() throws Exception {
+        FanOutWorkload fan = new FanOutWorkload(FANOUT_WIDTH, FANOUT_SUBTASK_MS, FANOUT_SLOW_PCT,
+                FANOUT_SLOW_FACTOR, FANOUT_FAIL_PCT, FANOUT_HEDGE);
+        System.out.println("=== Fan-out workload (" + fan.describe() + ") ===");
+
+        try (ExecutorService downstream = Executors.newFixedThreadPool(FANOUT_PLATFORM_THREADS)) {
+            runFanOut(fan, "FAN-CompletableFutureAllOf",
+                    () -> Executors.newFixedThreadPool(IO_PLATFORM_THREADS),
+                    i -> () -> fan.allOf(i, downstream));
+        }
+
+        runFanOut(fan, "FAN-VirtualThreadPerSubtask",
+                Executors::newVirtualThreadPerTaskExecutor,
+                i -> () -> fan.threadPerSubtask(i));
+
+        if (!FanOutWorkload.structuredConcurrencyAvailable()) {
+            System.out.println("StructuredTaskScope approaches skipped: preview API, rerun with java --enable-preview\n");
+            return;
+        }
+
+        runFanOut(fan, "FAN-StructuredShutdownOnFailure",
+                Executors::newVirtualThreadPerTaskExecutor,
+                i -> () -> StructuredFanOut.shutdownOnFailure(fan, i));
+
+        runFanOut(fan, "FAN-StructuredHedged",
+                Executors::newVirtualThreadPerTaskExecutor,
+                i -> () -> StructuredFanOut.hedged(fan, i));
+    }
+
+    private static void runFanOut(FanOutWorkload fan,
+                                  String name,
+                                  ExecutorServiceFactory executorFactory,
+                                  IntFunction<Runnable> taskFactory) throws Exception {
+        fan.resetCounters();
+        RunResult r = runComparison(name, executorFactory, taskFactory, FANOUT_TASKS,
+                ArrivalSchedule.closedLoop(FANOUT_CONCURRENCY));
+        if (r != null) {
+            fan.printCounters(" ".repeat(name.length() + 4), FANOUT_TASKS);
+            System.out.println();
+        }
+    }
+
+    /**
+     * 混合负载对比：同一组阶段（计算 -> 阻塞 -> 计算）在四种执行器上运行
+     * Mixed workload comparison: the same phases (compute -> block -> compute) on four executors
+     *
+     * - 平台线程池 / Platform thread pool
+     * - 每任务一个虚拟线程 / Virtual thread per task
+     * - ForkJoinPool.commonPool（阻塞会占住工作线程）/ ForkJoinPool.commonPool (blocking holds a worker)
+     * - 信号量限流的虚拟线程（并发数与平台线程池相同）/ Semaphore-bounded virtual threads (same concurrency as the platform pool)
+     *
+     * 计算占比越高，虚拟线程相对平台线程池的优势越小
+     * The larger the compute share, the smaller the virtual-thread advantage over the platform pool
+     */
+    private static void runMixed() throws Exception {
+        MixedWorkload mix = new MixedWorkload(MIX_SPEC, MIX_SLOW_PCT, MIX_SLOW_FACTOR,
+                ThreadVsVirtualThreadBenchmark::cpuTask);
+        System.out.println("=== Mixed workload (" + mix.describe() + ") ===");
+
+        runComparison(
+                "MIX-PlatformThreads",
+                () -> Executors.newFixedThreadPool(MIX_PLATFORM_THREADS),
+                i -> () -> mix.run(i),
+                MIX_TASKS
+        );
+
+        runComparison(
+                "MIX-VirtualThreads",
+                Executors::newVirtualThreadPerTaskExecutor,
+                i -> () -> mix.run(i),
+                MIX_TASKS
+        );
+
+        // commonPool 的 close() 不会关闭公共池，任务完成由 latch 保证
+        // close() on the commonPool does not shut it down; completion is guaranteed by the latch
+        runComparison(
+                "MIX-ForkJoinCommonPool",
+                ForkJoinPool::commonPool,
+                i -> () -> mix.run(i),
+                MIX_TASKS
+        );
+
+        // 在虚拟线程内获取许可再执行，限制同时运行的任务数
+        // Acquire a permit inside the virtual thread before running, bounding concurrently running tasks
+        Semaphore permits = new Semaphore(MIX_PLATFORM_THREADS);
+        runComparison(
+                "MIX-BoundedVirtualThreads",
+                Executors::newVirtualThreadPerTaskExecutor,
+                i -> () -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        mix.run(i);
+                    } finally {
+                        permits.release();
+                    }
+                },
+                MIX_TASKS
         );
+
+        // 每核一线程：阻塞阶段会占住所在核心的唯一工作线程，同一队列中的后续任务只能等待
+        // Thread per core: a blocking phase holds the core's only worker, so later tasks on that queue must wait
+        runThreadPerCore("MIX-ThreadPerCore", i -> () -> mix.run(i), MIX_TASKS);
+
+        runRingBuffer("MIX-RingBufferThreads", MIX_PLATFORM_THREADS, i -> () -> mix.run(i), MIX_TASKS,
+                ArrivalSchedule.closedLoop());
+    }
+
+    /**
+     * 在 RingBufferExecutor 上执行对比测试，并输出队列统计
+     * Run a comparison on a RingBufferExecutor and print its queue statistics
+     */
+    private static RunResult runRingBuffer(String name,
+                                           int threads,
+                                           IntFunction<Runnable> taskFactory,
+                                           int tasks,
+                                           ArrivalSchedule schedule) throws Exception {
+        RingBufferExecutor[] created = new RingBufferExecutor[1];
+        RunResult r = runComparison(name,
+                () -> created[0] = new RingBufferExecutor(threads, RING_CAPACITY, RING_WAIT),
+                taskFactory,
+                tasks,
+                schedule);
+        if (r != null) created[0].printStats(" ".repeat(name.length() + 4));
+        return r;
+    }
+
+    /**
+     * 在 BoundedVirtualThreadExecutor 上执行对比测试，并输出峰值与溢出统计
+     * Run a comparison on a BoundedVirtualThreadExecutor and print its peak and overflow statistics
+     */
+    private static RunResult runBounded(String name,
+                                        IntFunction<Runnable> taskFactory,
+                                        int tasks,
+                                        ArrivalSchedule schedule) throws Exception {
+        BoundedVirtualThreadExecutor[] created = new BoundedVirtualThreadExecutor[1];
+        RunResult r = runComparison(name,
+                () -> created[0] = new BoundedVirtualThreadExecutor(BOUNDED_MAX_CONCURRENCY, BOUNDED_MAX_QUEUED, BOUNDED_POLICY),
+                taskFactory,
+                tasks,
+                schedule);
+        if (r != null) created[0].printStats(" ".repeat(name.length() + 4));
+        return r;
+    }
+
+    /**
+     * 在 ThreadPerCoreExecutor 上执行对比测试，并输出路由与背压统计
+     * Run a comparison on a ThreadPerCoreExecutor and print its routing and backpressure statistics
+     */
+    private static RunResult runThreadPerCore(String name, IntFunction<Runnable> taskFactory, int tasks) throws Exception {
+        ThreadPerCoreExecutor[] created = new ThreadPerCoreExecutor[1];
+        RunResult r = runComparison(name,
+                () -> created[0] = new ThreadPerCoreExecutor(TPC_THREADS, TPC_ROUTING, TPC_QUEUE_CAPACITY),
+                taskFactory,
+                tasks);
+        if (r != null) created[0].printStats(" ".repeat(name.length() + 4));
+        return r;
+    }
+
+    /**
+     * 收尾：导出结果、与基准比较；若有钉住超阈值或显著回归，以非零状态码退出（便于 CI 判定失败）
+     * Wrap up: export results and compare with the baseline; exit with a non-zero status on a pinning
+     * violation or a significant regression (so CI can fail the build)
+     */
+    private static void finish() throws IOException {
+        Map<String, String> env = environment();
+        if (OUT_JSON != null) {
+            ResultSink.writeJson(Path.of(OUT_JSON), env, RESULTS);
+            System.out.println("Results written to " + OUT_JSON);
+        }
+        if (OUT_CSV != null) {
+            ResultSink.writeCsv(Path.of(OUT_CSV), env, RESULTS);
+            System.out.println("Results written to " + OUT_CSV);
+        }
+
+        boolean regressed = false;
+        if (BASELINE != null) {
+            List<BaselineComparison.Delta> deltas = BaselineComparison.compare(
+                    ResultSink.readBaseline(Path.of(BASELINE)), RESULTS, BASELINE_TOLERANCE_PCT);
+            System.out.println();
+            BaselineComparison.print(BASELINE, deltas, BASELINE_TOLERANCE_PCT);
+            regressed = deltas.stream().anyMatch(BaselineComparison.Delta::regression);
+        }
+
+        if (PINNING_VIOLATED) {
+            System.out.println("\nFAILED: virtual-thread pinning exceeded the configured threshold");
+        }
+        if (regressed) {
+            System.out.println("\nFAILED: regression against baseline " + BASELINE);
+        }
+        if (PINNING_VIOLATED || regressed) {
+            System.exit(1);
+        }
     }
 
     /**
-     * 执行一次对比测试并输出统计结果
-     * Run one comparison test and print statistics
+     * 执行一次闭环对比测试并输出统计结果
+     * Run one closed-loop comparison test and print statistics
      *
      * @param name 测试名称（如 "IO-PlatformThreads"）/ Test name (e.g., "IO-PlatformThreads")
      * @param executorFactory 执行器工厂（创建平台线程池或虚拟线程执行器）/ Executor factory (creates platform thread pool or virtual thread executor)
      * @param taskFactory 任务工厂（根据索引创建任务）/ Task factory (creates task based on index)
      * @param tasks 任务总数 / Total number of tasks
+     * @return 测试结果 / Run result
+     */
+    private static RunResult runComparison(String name,
+                                           ExecutorServiceFactory executorFactory,
+                                           IntFunction<Runnable> taskFactory,
+                                           int tasks) throws Exception {
+        return runComparison(name, executorFactory, taskFactory, tasks, ArrivalSchedule.closedLoop());
+    }
+
+    /**
+     * 按指定到达调度执行一次对比测试并输出统计结果
+     * Run one comparison test with the given arrival schedule and print statistics
+     *
+     * 每个任务记录两种延迟 / Two latencies are recorded per task:
+     * - 服务时间：任务开始运行到结束 / Service time: from task start to end
+     * - 响应时间：计划开始时间到结束（闭环时计划开始时间即提交时刻），包含执行器排队时间
+     *   Response time: from intended start to end (the submission instant in closed loop), includes executor queueing
+     *
+     * @param schedule 到达调度（闭环或开环）/ Arrival schedule (closed or open loop)
+     * @return 测试结果，未被 run.only 选中时为 null / Run result, null when run.only does not select the test
      */
-    private static void runComparison(String name,
-                                      ExecutorServiceFactory executorFactory,
-                                      IntFunction<Runnable> taskFactory,
-                                      int tasks) throws Exception {
+    private static RunResult runComparison(String name,
+                                           ExecutorServiceFactory executorFactory,
+                                           IntFunction<Runnable> taskFactory,
+                                           int tasks,
+                                           ArrivalSchedule schedule) throws Exception {
+        if (!isSelected(name)) return null;
+
+        // 可选：进程内 JFR 事件流，统计虚拟线程钉住情况
+        // Optional: in-process JFR event stream that tracks virtual-thread pinning
+        PinningMonitor monitor = PINNING ? new PinningMonitor(Duration.ofNanos((long) (PINNING_EVENT_THRESHOLD_MS * 1_000_000))) : null;
+
         // 使用 try-with-resources 确保执行器正确关闭
         // Use try-with-resources to ensure executor is properly closed
-        try (ExecutorService exec = executorFactory.create()) {
-            // 记录每个任务的执行时间（纳秒）
-            // Record execution time for each task (nanoseconds)
-            long[] durations = new long[tasks];
+        try (monitor; ExecutorService exec = executorFactory.create()) {
+            // 记录每个任务的执行时间（纳秒）：固定内存直方图，多线程并发写入
+            // Record execution time for each task (nanoseconds): fixed-memory histogram, written concurrently
+            LatencyHistogram durations = new LatencyHistogram(HISTOGRAM_DIGITS);
+            LatencyHistogram responses = new LatencyHistogram(HISTOGRAM_DIGITS);
+
+            // 任务失败计数（如 socket 异常），失败的任务仍计入延迟
+            // Failed task count (e.g. socket errors), failed tasks are still counted in latency
+            LongAdder errors = new LongAdder();
 
             // 使用 CountDownLatch 等待所有任务完成
             // Use CountDownLatch to wait for all tasks to complete
             CountDownLatch latch = new CountDownLatch(tasks);
 
+            // 限制并发的闭环：提交前获取许可，任务结束时归还
+            // Concurrency-bounded closed loop: acquire a permit before submitting, release it when the task ends
+            Semaphore inFlight = schedule instanceof ArrivalSchedule.ClosedLoop(int maxInFlight) && maxInFlight > 0
+                    ? new Semaphore(maxInFlight)
+                    : null;
+
+            // 泊松到达使用固定种子，保证多次运行的到达序列一致
+            // Poisson arrivals use a fixed seed so repeated runs see the same arrival sequence
+            RandomGenerator random = new SplittableRandom(ARRIVAL_SEED);
+
             // 记录整体开始时间（墙钟时间）
             // Record overall start time (wall clock time)
             Instant startWall = Instant.now();
+            long cpuStart = processCpuNanos();
+            RunTelemetry.Probe telemetry = RunTelemetry.start();
+            long intendedStart = System.nanoTime();
 
             // 提交所有任务到执行器
             // Submit all tasks to executor
             for (int i = 0; i < tasks; i++) {
                 final int idx = i;
-                exec.submit(() -> {
-                    // 记录单个任务开始时间
-                    // Record individual task start time
-                    long t0 = System.nanoTime();
-                    try {
-                        // 执行实际任务（IO 或 CPU）
-                        // Execute actual task (IO or CPU)
-                        taskFactory.apply(idx).run();
-                    } finally {
-                        // 记录单个任务结束时间并计算耗时
-                        // Record individual task end time and calculate duration
-                        long t1 = System.nanoTime();
-                        durations[idx] = t1 - t0;
-                        latch.countDown();
-                    }
-                });
+                if (schedule.isOpenLoop()) {
+                    // 开环：等待到计划时间再提交；若已落后则立即提交，但延迟仍从计划时间算起
+                    // Open loop: wait for the intended time; if already behind, submit at once but still
+                    // measure latency from the intended time
+                    waitUntil(intendedStart);
+                } else {
+                    if (inFlight != null) inFlight.acquire();
+                    intendedStart = System.nanoTime();
+                }
+                final long intended = intendedStart;
+                try {
+                    exec.submit(() -> {
+                        // 记录单个任务开始时间
+                        // Record individual task start time
+                        long t0 = System.nanoTime();
+                        try {
+                            // 执行实际任务（IO 或 CPU）
+                            // Execute actual task (IO or CPU)
+                            taskFactory.apply(idx).run();
+                        } catch (RuntimeException ex) {
+                            errors.increment();
+                        } finally {
+                            // 记录单个任务结束时间并计算耗时
+                            // Record individual task end time and calculate duration
+                            long t1 = System.nanoTime();
+                            durations.record(t1 - t0);
+                            responses.record(t1 - intended);
+                            if (inFlight != null) inFlight.release();
+                            latch.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    // 有界执行器按 REJECT 策略拒绝：计为失败，不记录延迟
+                    // Rejected by a bounded executor under REJECT: counted as an error, no latency recorded
+                    errors.increment();
+                    if (inFlight != null) inFlight.release();
+                    latch.countDown();
+                }
+                intendedStart += schedule.nextIntervalNanos(random);
             }
 
             // 等待所有任务完成
@@ -212,34 +1023,109 @@ public class ThreadVsVirtualThreadBenchmark {
             // Record overall end time
             Instant endWall = Instant.now();
             long wallMillis = Duration.between(startWall, endWall).toMillis();
+            long cpuNanos = processCpuNanos() - cpuStart;
+            RunTelemetry jvm = telemetry.stop();
+            PinningMonitor.Report pinning = monitor != null ? monitor.stop() : null;
 
-            // ============================================
-            // 计算统计指标 / Calculate statistics
-            // ============================================
+            // 计算吞吐量（任务数/秒）
+            // Calculate throughput (tasks/second)
+            double throughput = (tasks * 1000.0) / Math.max(1.0, wallMillis);
 
-            // 对耗时数组排序，用于计算分位数
-            // Sort duration array for percentile calculation
-            Arrays.sort(durations);
+            RunResult result = new RunResult(name, tasks, wallMillis, throughput, schedule, durations, responses,
+                    errors.sum(), pinning, cpuNanos, jvm);
+            report(result);
+            if (pinning != null && pinning.exceeds(PINNING_FAIL_COUNT, PINNING_FAIL_MS)) {
+                PINNING_VIOLATED = true;
+                System.out.printf(Locale.ROOT,
+                        "%s    pinning threshold exceeded (pinning.failCount=%d, pinning.failMs=%.1f)\n",
+                        " ".repeat(name.length()), PINNING_FAIL_COUNT, PINNING_FAIL_MS);
+            }
+            return result;
+        }
+    }
 
-            // 计算平均延迟（毫秒）
-            // Calculate average latency (milliseconds)
-            double avgMs = avg(durations) / 1_000_000.0;
+    /**
+     * 输出并保存单次测试结果（预热不保存）/ Print and keep a run result (warmup is not kept)
+     */
+    private static void report(RunResult result) {
+        printResult(result);
+        if (!result.name().startsWith("WARMUP")) RESULTS.add(result);
+    }
 
-            // 计算延迟分位数（毫秒）
-            // Calculate latency percentiles (milliseconds)
-            double p50 = percentile(durations, 0.50) / 1_000_000.0;  // 中位数 / Median
-            double p95 = percentile(durations, 0.95) / 1_000_000.0;  // 95% 分位数 / 95th percentile
-            double p99 = percentile(durations, 0.99) / 1_000_000.0;  // 99% 分位数 / 99th percentile
+    /**
+     * 输出单次测试的统计结果 / Print statistics of a single run
+     *
+     * 开环模式额外输出响应时间分位数（从计划开始时间计算）
+     * Open-loop runs additionally print response-time percentiles (measured from the intended start)
+     */
+    private static void printResult(RunResult r) {
+        // ============================================
+        // 计算统计指标 / Calculate statistics
+        // ============================================
+        LatencyHistogram durations = r.serviceTime();
 
-            // 计算吞吐量（任务数/秒）
-            // Calculate throughput (tasks/second)
-            double throughput = (tasks * 1000.0) / Math.max(1.0, wallMillis);
+        // 计算平均延迟（毫秒）
+        // Calculate average latency (milliseconds)
+        double avgMs = avg(durations) / 1_000_000.0;
 
-            // 输出统计结果
-            // Print statistics
+        // 计算延迟分位数（毫秒）
+        // Calculate latency percentiles (milliseconds)
+        double p50 = percentile(durations, 0.50) / 1_000_000.0;      // 中位数 / Median
+        double p90 = percentile(durations, 0.90) / 1_000_000.0;      // 90% 分位数 / 90th percentile
+        double p99 = percentile(durations, 0.99) / 1_000_000.0;      // 99% 分位数 / 99th percentile
+        double p999 = percentile(durations, 0.999) / 1_000_000.0;    // 99.9% 分位数 / 99.9th percentile
+        double p9999 = percentile(durations, 0.9999) / 1_000_000.0;  // 99.99% 分位数 / 99.99th percentile
+        double maxMs = durations.max() / 1_000_000.0;                // 最大值 / Maximum
+
+        // 输出统计结果
+        // Print statistics
+        System.out.printf(Locale.ROOT,
+                "%s -> wall=%d ms, throughput=%.1f tasks/s, avg=%.3f ms, p50=%.3f ms, p90=%.3f ms, " +
+                        "p99=%.3f ms, p99.9=%.3f ms, p99.99=%.3f ms, max=%.3f ms\n",
+                r.name(), r.wallMillis(), r.throughput(), avgMs, p50, p90, p99, p999, p9999, maxMs);
+        if (r.errors() > 0) {
+            System.out.printf(Locale.ROOT, "%s    errors=%d\n", " ".repeat(r.name().length()), r.errors());
+        }
+        if (!r.name().startsWith("WARMUP")) {
+            r.telemetry().print(" ".repeat(r.name().length() + 4), r.tasks(), r.cpuNanos());
+        }
+        if (r.pinning() != null) {
+            r.pinning().print(" ".repeat(r.name().length() + 4), PINNING_TOP_FRAMES);
+        }
+        if (CHILD_REPORT) {
+            System.out.println(ChildJvm.reportLine(r));
+        }
+
+        if (r.schedule().isOpenLoop()) {
+            LatencyHistogram responses = r.responseTime();
             System.out.printf(Locale.ROOT,
-                    "%s -> wall=%d ms, throughput=%.1f tasks/s, avg=%.3f ms, p50=%.3f ms, p95=%.3f ms, p99=%.3f ms\n",
-                    name, wallMillis, throughput, avgMs, p50, p95, p99);
+                    "%s    response [%s] -> avg=%.3f ms, p50=%.3f ms, p90=%.3f ms, " +
+                            "p99=%.3f ms, p99.9=%.3f ms, p99.99=%.3f ms, max=%.3f ms\n",
+                    " ".repeat(r.name().length()), r.schedule().describe(),
+                    avg(responses) / 1_000_000.0,
+                    percentile(responses, 0.50) / 1_000_000.0,
+                    percentile(responses, 0.90) / 1_000_000.0,
+                    percentile(responses, 0.99) / 1_000_000.0,
+                    percentile(responses, 0.999) / 1_000_000.0,
+                    percentile(responses, 0.9999) / 1_000_000.0,
+                    responses.max() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * 等待直到指定的 System.nanoTime() 时刻：较长间隔使用 park，最后一小段自旋以提高精度
+     * Wait until the given System.nanoTime() instant: park for long gaps, spin the last stretch for precision
+     *
+     * @param deadlineNanos 目标时刻 / Target instant
+     */
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
         }
     }
 
@@ -340,37 +1226,166 @@ public class ThreadVsVirtualThreadBenchmark {
      * Includes: Java version, OS, CPU cores
      */
     private static void printEnv() {
+        Map<String, String> env = environment();
         System.out.println("=== 环境 / Environment ===");
-        System.out.println("Java: " + System.getProperty("java.version") +
-                ", vendor=" + System.getProperty("java.vendor"));
-        System.out.println("OS:   " + System.getProperty("os.name") + " " + System.getProperty("os.version") +
-                ", arch=" + System.getProperty("os.arch"));
-        System.out.println("CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("Java: " + env.get("java.version") + ", vendor=" + env.get("java.vendor"));
+        System.out.println("OS:   " + env.get("os.name") + " " + env.get("os.version") + ", arch=" + env.get("os.arch"));
+        System.out.println("CPUs: " + env.get("cpus"));
         System.out.println();
     }
 
+    /**
+     * 运行环境与参数，供控制台输出和结果文件共用
+     * Runtime environment and arguments, shared by the console output and result files
+     */
+    private static Map<String, String> environment() {
+        Map<String, String> env = new LinkedHashMap<>();
+        env.put("java.version", System.getProperty("java.version"));
+        env.put("java.vendor", System.getProperty("java.vendor"));
+        env.put("java.vm.name", System.getProperty("java.vm.name"));
+        env.put("os.name", System.getProperty("os.name"));
+        env.put("os.version", System.getProperty("os.version"));
+        env.put("os.arch", System.getProperty("os.arch"));
+        env.put("cpus", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        env.put("timestamp", Instant.now().toString());
+        env.put("args", String.join(" ", ARGS));
+        return env;
+    }
+
     /**
      * 计算平均值（纳秒）/ Calculate average (nanoseconds)
      *
-     * @param arr 耗时数组 / Duration array
+     * @param histogram 耗时直方图 / Duration histogram
      * @return 平均值 / Average value
      */
-    private static double avg(long[] arr) {
-        long s = 0;
-        for (long v : arr) s += v;
-        return (double) s / arr.length;
+    private static double avg(LatencyHistogram histogram) {
+        return histogram.mean();
     }
 
     /**
      * 计算分位数（纳秒）/ Calculate percentile (nanoseconds)
      *
-     * @param sorted 已排序的耗时数组 / Sorted duration array
-     * @param p 分位数（0.0-1.0），如 0.95 表示 95% 分位数 / Percentile (0.0-1.0), e.g., 0.95 for 95th percentile
+     * @param histogram 耗时直方图 / Duration histogram
+     * @param p 分位数（0.0-1.0），如 0.999 表示 99.9% 分位数 / Percentile (0.0-1.0), e.g., 0.999 for 99.9th percentile
      * @return 分位数值 / Percentile value
      */
-    private static long percentile(long[] sorted, double p) {
-        int idx = (int) Math.min(sorted.length - 1, Math.max(0, Math.round((sorted.length - 1) * p)));
-        return sorted[idx];
+    private static long percentile(LatencyHistogram histogram, double p) {
+        return histogram.valueAtPercentile(p);
+    }
+
+    /**
+     * 饱和扫描：对每个 IO 执行器逐步提高到达速率（或在途并发数），直到 p99 响应时间突破 SLO
+     * Saturation sweep: for each IO executor, step the arrival rate (or in-flight concurrency) up
+     * until the p99 response time breaks the SLO
+     *
+     * 输出每个执行器的拐点（最后一个满足 SLO 的档位）以及完整曲线（CSV）
+     * Prints the knee point (last level meeting the SLO) of each executor and the full curve as CSV
+     *
+     * run.only= 按执行器名称选择要扫描的执行器（IO-PlatformThreads / IO-VirtualThreads），未选中的整体跳过
+     * run.only= selects the executors to sweep by name (IO-PlatformThreads / IO-VirtualThreads); others are skipped entirely
+     */
+    private static void runSweep() throws Exception {
+        boolean byRate = !"concurrency".equals(SWEEP_BY);
+        double start = SWEEP_START > 0 ? SWEEP_START : (byRate ? 1_000 : 1);
+
+        Map<String, ExecutorServiceFactory> executors = new LinkedHashMap<>();
+        executors.put("IO-PlatformThreads", () -> Executors.newFixedThreadPool(IO_PLATFORM_THREADS));
+        executors.put("IO-VirtualThreads", Executors::newVirtualThreadPerTaskExecutor);
+        executors.keySet().removeIf(name -> !isSelected(name));
+
+        System.out.printf(Locale.ROOT,
+                "=== Saturation sweep (by=%s, start=%.0f, factor=%.2f, slo.p99Ms=%.1f) ===\n",
+                byRate ? "rate" : "concurrency", start, SWEEP_FACTOR, SLO_P99_MS);
+
+        List<String> csv = new ArrayList<>();
+        csv.add("executor,by,level,tasks,throughput,p50Ms,p99Ms,sloMet");
+        List<String> knees = new ArrayList<>();
+
+        try (IoWorkload io = ioWorkload()) {
+            for (Map.Entry<String, ExecutorServiceFactory> e : executors.entrySet()) {
+                RunResult knee = null;
+                double level = start;
+                for (int step = 0; step < SWEEP_MAX_STEPS; step++) {
+                    // rate 维度：开环按速率到达，任务数 = 速率 × 持续时间；concurrency 维度：限制在途数的闭环
+                    // Rate axis: open-loop arrivals, tasks = rate x duration; concurrency axis: bounded closed loop
+                    ArrivalSchedule schedule = byRate
+                            ? ArrivalSchedule.of(IO_ARRIVAL, level)
+                            : ArrivalSchedule.closedLoop((int) Math.round(level));
+                    int tasks = byRate ? (int) Math.max(100, Math.round(level * SWEEP_SECONDS)) : IO_TASKS;
+
+                    RunResult r = runComparison(
+                            String.format(Locale.ROOT, "%s@%.0f", e.getKey(), level),
+                            e.getValue(),
+                            i -> () -> io.run(i),
+                            tasks,
+                            schedule
+                    );
+                    double p99 = r.responseMs(0.99);
+                    boolean sloMet = p99 <= SLO_P99_MS;
+                    csv.add(String.format(Locale.ROOT, "%s,%s,%.0f,%d,%.1f,%.3f,%.3f,%b",
+                            e.getKey(), byRate ? "rate" : "concurrency", level, tasks,
+                            r.throughput(), r.responseMs(0.50), p99, sloMet));
+                    if (!sloMet) break;
+                    knee = r;
+
+                    double next = level * SWEEP_FACTOR;
+                    level = byRate ? next : Math.max(level + 1, Math.round(next));
+                }
+                knees.add(knee == null
+                        ? String.format(Locale.ROOT, "%s -> SLO broken at the first level (%.0f)", e.getKey(), start)
+                        : String.format(Locale.ROOT, "%s -> knee at %s: throughput=%.1f tasks/s, p99=%.3f ms",
+                                e.getKey(), knee.schedule().describe(), knee.throughput(), knee.responseMs(0.99)));
+                System.out.println();
+            }
+        }
+
+        System.out.println("=== Knee points (max sustainable within SLO) ===");
+        knees.forEach(System.out::println);
+        System.out.println();
+        System.out.println("=== Sweep curve (CSV) ===");
+        csv.forEach(System.out::println);
+    }
+
+    /**
+     * 默认的载体线程数候选：1、CPU/2、CPU、CPU*2（去重）
+     * Default carrier-count candidates: 1, CPUs/2, CPUs, CPUs*2 (deduplicated)
+     */
+    private static List<Integer> defaultParallelisms() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return IntStream.of(1, cpus / 2, cpus, cpus * 2).filter(n -> n > 0).distinct().boxed().toList();
+    }
+
+    /**
+     * 解析逗号分隔的整数列表 / Parse a comma-separated integer list
+     */
+    private static List<Integer> parseIntList(String v) {
+        return Arrays.stream(v.split(",")).map(String::trim).filter(x -> !x.isEmpty()).map(Integer::valueOf).toList();
+    }
+
+    /**
+     * 读取本进程累计 CPU 时间（纳秒），不支持时返回 0
+     * Read this process's accumulated CPU time (nanoseconds), 0 when unsupported
+     */
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return Math.max(0, os.getProcessCpuTime());
+        }
+        return 0;
+    }
+
+    /**
+     * 按 io.kind 创建 IO 负载 / Create the IO workload selected by io.kind
+     */
+    private static IoWorkload ioWorkload() throws IOException {
+        return IoWorkload.create(IO_KIND, IO_SLEEP_MS, IO_FILE_KB, IO_LOCK_STRIPES);
+    }
+
+    /**
+     * IO 场景的到达调度：io.rate > 0 时为开环，否则为闭环
+     * Arrival schedule of the IO scenario: open loop when io.rate > 0, closed loop otherwise
+     */
+    private static ArrivalSchedule ioSchedule() {
+        return ArrivalSchedule.of(IO_ARRIVAL, IO_RATE);
     }
 
     /**
@@ -394,11 +1409,11 @@ public class ThreadVsVirtualThreadBenchmark {
      * 示例 / Examples:
      * - io.tasks=20000
      * - cpu.iters=100000
+     * - io.rate=50000/s io.arrival=poisson
      * - preset=io-heavy
      */
     private static void parseArgs(String[] args) {
-        if (args == null) return;
-        for (String a : args) {
+        for (String a : args == null ? new String[0] : args) {
             String[] kv = a.split("=", 2);
             if (kv.length != 2) continue;
             String k = kv[0].trim();
@@ -408,9 +1423,70 @@ public class ThreadVsVirtualThreadBenchmark {
                     case "io.tasks" -> IO_TASKS = Integer.parseInt(v);
                     case "io.sleepMs" -> IO_SLEEP_MS = Integer.parseInt(v);
                     case "io.platformThreads" -> IO_PLATFORM_THREADS = Integer.parseInt(v);
+                    case "io.rate" -> IO_RATE = Double.parseDouble(v.endsWith("/s") ? v.substring(0, v.length() - 2) : v);
+                    case "io.arrival" -> IO_ARRIVAL = v;
+                    case "io.kind" -> IO_KIND = v;
+                    case "io.fileKb" -> IO_FILE_KB = Integer.parseInt(v);
+                    case "io.lockStripes" -> IO_LOCK_STRIPES = Integer.parseInt(v);
                     case "cpu.tasks" -> CPU_TASKS = Integer.parseInt(v);
                     case "cpu.iters" -> CPU_ITERATIONS = Integer.parseInt(v);
                     case "cpu.platformThreads" -> CPU_PLATFORM_THREADS = Integer.parseInt(v);
+                    case "cpu.chunk" -> CPU_CHUNK = Integer.parseInt(v);
+                    case "tpc.threads" -> TPC_THREADS = Integer.parseInt(v);
+                    case "ring.wait" -> RING_WAIT = RingBufferExecutor.WaitStrategy.of(v);
+                    case "ring.capacity" -> RING_CAPACITY = Integer.parseInt(v);
+                    case "bounded.maxConcurrency" -> BOUNDED_MAX_CONCURRENCY = Integer.parseInt(v);
+                    case "bounded.maxQueued" -> BOUNDED_MAX_QUEUED = Integer.parseInt(v);
+                    case "bounded.policy" -> BOUNDED_POLICY = BoundedVirtualThreadExecutor.OverflowPolicy.of(v);
+                    case "tpc.routing" -> TPC_ROUTING = ThreadPerCoreExecutor.Routing.of(v);
+                    case "tpc.queueCapacity" -> TPC_QUEUE_CAPACITY = Integer.parseInt(v);
+                    case "mix" -> MIX_SPEC = v;
+                    case "mix.tasks" -> MIX_TASKS = Integer.parseInt(v);
+                    case "mix.slowPct" -> MIX_SLOW_PCT = Double.parseDouble(v);
+                    case "mix.slowFactor" -> MIX_SLOW_FACTOR = Integer.parseInt(v);
+                    case "mix.platformThreads" -> MIX_PLATFORM_THREADS = Integer.parseInt(v);
+                    case "hist.digits" -> HISTOGRAM_DIGITS = Math.min(5, Math.max(1, Integer.parseInt(v)));
+                    case "sweep.by" -> SWEEP_BY = v;
+                    case "sweep.start" -> SWEEP_START = Double.parseDouble(v);
+                    case "sweep.factor" -> SWEEP_FACTOR = Math.max(1.01, Double.parseDouble(v));
+                    case "sweep.maxSteps" -> SWEEP_MAX_STEPS = Integer.parseInt(v);
+                    case "sweep.seconds" -> SWEEP_SECONDS = Double.parseDouble(v);
+                    case "slo.p99Ms" -> SLO_P99_MS = Double.parseDouble(v);
+                    case "jfr.pinning" -> PINNING = Boolean.parseBoolean(v);
+                    case "jfr.pinningThresholdMs" -> PINNING_EVENT_THRESHOLD_MS = Double.parseDouble(v);
+                    case "pinning.failCount" -> { PINNING = true; PINNING_FAIL_COUNT = Long.parseLong(v); }
+                    case "pinning.failMs" -> { PINNING = true; PINNING_FAIL_MS = Double.parseDouble(v); }
+                    case "pinning.top" -> PINNING_TOP_FRAMES = Integer.parseInt(v);
+                    case "vt.parallelism" -> VT_PARALLELISM = parseIntList(v);
+                    case "vt.maxPoolSize" -> VT_MAX_POOL_SIZE = parseIntList(v);
+                    case "vt.activeProcessors" -> VT_ACTIVE_PROCESSORS = Integer.parseInt(v);
+                    case "child.report" -> CHILD_REPORT = Boolean.parseBoolean(v);
+                    case "footprint" -> FOOTPRINT_COUNTS = parseIntList(v);
+                    case "footprint.depth" -> FOOTPRINT_DEPTHS = parseIntList(v);
+                    case "footprint.kinds" -> FOOTPRINT_KINDS = List.of(v.split(","));
+                    case "footprint.park" -> FOOTPRINT_PARK = MemoryFootprint.ParkMode.of(v);
+                    case "footprint.budgetMb" -> FOOTPRINT_BUDGET_MB = Integer.parseInt(v);
+                    case "footprint.stackKb" -> FOOTPRINT_STACK_KB = Integer.parseInt(v);
+                    case "footprint.child" -> FOOTPRINT_CHILD = v;
+                    case "out.json" -> OUT_JSON = v;
+                    case "out.csv" -> OUT_CSV = v;
+                    case "baseline" -> BASELINE = v;
+                    case "baseline.tolerancePct" -> BASELINE_TOLERANCE_PCT = Double.parseDouble(v);
+                    case "fanout" -> FANOUT_WIDTH = Integer.parseInt(v);
+                    case "fanout.tasks" -> FANOUT_TASKS = Integer.parseInt(v);
+                    case "fanout.concurrency" -> FANOUT_CONCURRENCY = Integer.parseInt(v);
+                    case "fanout.subtaskMs" -> FANOUT_SUBTASK_MS = Integer.parseInt(v);
+                    case "fanout.slowPct" -> FANOUT_SLOW_PCT = Double.parseDouble(v);
+                    case "fanout.slowFactor" -> FANOUT_SLOW_FACTOR = Integer.parseInt(v);
+                    case "fanout.failPct" -> FANOUT_FAIL_PCT = Double.parseDouble(v);
+                    case "fanout.hedge" -> FANOUT_HEDGE = Integer.parseInt(v);
+                    case "fanout.platformThreads" -> FANOUT_PLATFORM_THREADS = Integer.parseInt(v);
+                    case "simd" -> SIMD_SIZES = parseIntList(v);
+                    case "simd.elements" -> SIMD_ELEMENTS = Integer.parseInt(v);
+                    case "simd.passes" -> SIMD_PASSES = Integer.parseInt(v);
+                    case "trials" -> TRIALS = Math.max(1, Integer.parseInt(v));
+                    case "trials.fork" -> TRIALS_FORK = Boolean.parseBoolean(v);
+                    case "run.only" -> RUN_ONLY = List.of(v.split(","));
                     case "preset" -> applyPreset(v);
                     default -> {}
                 }
@@ -418,6 +1494,77 @@ public class ThreadVsVirtualThreadBenchmark {
                 // 忽略无效的数字格式 / Ignore invalid number format
             }
         }
+        resolveDerivedDefaults();
+    }
+
+    /**
+     * 解析完所有参数后再推导依赖其他参数的默认值，使 io.platformThreads=（及预设）对混合与扇出负载同样生效
+     * Derive defaults that depend on other arguments only after every argument has been parsed, so that
+     * io.platformThreads= (and presets) also reach the mixed and fan-out workloads
+     */
+    private static void resolveDerivedDefaults() {
+        if (MIX_PLATFORM_THREADS <= 0) MIX_PLATFORM_THREADS = IO_PLATFORM_THREADS;
+        if (FANOUT_PLATFORM_THREADS <= 0) FANOUT_PLATFORM_THREADS = IO_PLATFORM_THREADS;
+    }
+
+    /**
+     * SIMD 数组内核对比：同一数组长度下，三种内核分别在单线程、平台线程池、虚拟线程上运行，
+     * 以标量单线程为基线输出加速比，SIMD 收益与多线程收益可在同一张表中比较
+     * SIMD array kernel comparison: for one array length, each of the three kernels runs single-threaded,
+     * on a platform pool and on virtual threads; speedups are printed against the scalar single-threaded
+     * run, so SIMD gains and threading gains appear in the same table
+     *
+     * @param size 每个任务的数组长度 / Array length per task
+     */
+    private static void runSimd(int size) throws Exception {
+        ArrayKernels arrays = new ArrayKernels(size, SIMD_ELEMENTS, SIMD_PASSES);
+        Map<String, ArrayKernels.Kernel> kernels = simdKernels();
+        System.out.printf(Locale.ROOT, "=== SIMD array kernels (n=%d, tasks=%d, passes=%d) ===\n",
+                arrays.size(), arrays.tasks(), arrays.passes());
+
+        // 每个内核预热约 200ms，确保已由 C2 编译（Vector API 只有在 C2 中才会生成向量指令）
+        // Warm each kernel for ~200 ms so it is C2-compiled (the Vector API only emits vector instructions under C2)
+        for (ArrayKernels.Kernel kernel : kernels.values()) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+            do {
+                for (int i = 0; i < arrays.tasks(); i++) BATCH_SINK = arrays.run(kernel, i);
+            } while (System.nanoTime() < deadline);
+        }
+
+        List<RunResult> runs = new ArrayList<>();
+        for (Map.Entry<String, ArrayKernels.Kernel> e : kernels.entrySet()) {
+            ArrayKernels.Kernel kernel = e.getValue();
+            runs.add(runBatch(simdName(size, e.getKey(), "SingleThread"), arrays.tasks(),
+                    i -> arrays.run(kernel, i),
+                    task -> CpuParallelism.singleThread(arrays.tasks(), task)));
+            runs.add(runComparison(simdName(size, e.getKey(), "PlatformThreads"),
+                    () -> Executors.newFixedThreadPool(CPU_PLATFORM_THREADS),
+                    i -> () -> arrays.run(kernel, i),
+                    arrays.tasks()));
+            runs.add(runComparison(simdName(size, e.getKey(), "VirtualThreads"),
+                    Executors::newVirtualThreadPerTaskExecutor,
+                    i -> () -> arrays.run(kernel, i),
+                    arrays.tasks()));
+        }
+        if (!ArrayKernels.vectorApiAvailable()) {
+            System.out.println("Vector API kernel skipped: rerun with java --add-modules jdk.incubator.vector");
+        }
+        printSpeedup(runs, simdName(size, "Scalar", "SingleThread"));
+    }
+
+    /** 当前可用的 SIMD 内核（按输出顺序）/ Available SIMD kernels, in output order */
+    private static Map<String, ArrayKernels.Kernel> simdKernels() {
+        Map<String, ArrayKernels.Kernel> kernels = new LinkedHashMap<>();
+        kernels.put("Scalar", ArrayKernels::scalar);
+        kernels.put("AutoVectorized", ArrayKernels::autoVectorized);
+        if (ArrayKernels.vectorApiAvailable()) {
+            kernels.put("VectorApi", VectorKernels::polynomial);
+        }
+        return kernels;
+    }
+
+    private static String simdName(int size, String kernel, String executor) {
+        return "SIMD-n" + size + "-" + kernel + "-" + executor;
     }
 
     /**
@@ -428,6 +1575,16 @@ public class ThreadVsVirtualThreadBenchmark {
      * - io-heavy: 重负载 IO 测试（50000 任务，20ms 睡眠）
      * - cpu-light: 轻量 CPU 测试（5000 任务，20000 迭代）
      * - cpu-heavy: 重负载 CPU 测试（20000 任务，100000 迭代）
+     * - mixed: 混合负载（cpu:2000,io:5,cpu:500，1% 慢请求）/ Mixed workload (cpu:2000,io:5,cpu:500, 1% slow outliers)
+     * - fanout: 扇出负载（10 个下游，1% 慢调用，0.5% 失败）/ Fan-out workload (10 downstreams, 1% slow calls, 0.5% failures)
+     * - simd: SIMD 数组内核，数组长度 1K / 32K / 256K（输入输出合计约为 L1 / L2 / L3 大小的工作集）
+     *   SIMD array kernels at 1K / 32K / 256K elements (input plus output roughly L1 / L2 / L3 sized working sets)
+     * - sweep: 饱和扫描，逐步加压直到突破 slo.p99Ms，输出拐点和 CSV 曲线
+     *   Saturation sweep, ramps load until slo.p99Ms breaks, prints knee points and a CSV curve
+     * - scheduler-sweep: 在子 JVM 中扫描 vt.parallelism / vt.maxPoolSize，输出吞吐量、p99、CPU 时间对比表
+     *   Sweeps vt.parallelism / vt.maxPoolSize in child JVMs, prints a throughput / p99 / CPU time table
+     * - footprint: 在子 JVM 中同时挂起 1K / 10K / 100K / 1M 个任务，输出每任务 RSS / 堆 / NMT 字节数与 2 GB 预算内的容量
+     *   Parks 1K / 10K / 100K / 1M tasks in child JVMs, prints RSS / heap / NMT bytes per task and capacity within 2 GB
      *
      * @param name 预设名称 / Preset name
      */
@@ -453,6 +1610,19 @@ public class ThreadVsVirtualThreadBenchmark {
                 CPU_ITERATIONS = 100_000;
                 CPU_PLATFORM_THREADS = Runtime.getRuntime().availableProcessors();
             }
+            case "mixed" -> {
+                MIX_SPEC = "cpu:2000,io:5,cpu:500";
+                MIX_SLOW_PCT = 1.0;
+            }
+            case "fanout" -> {
+                FANOUT_WIDTH = 10;
+                FANOUT_SLOW_PCT = 1.0;
+                FANOUT_FAIL_PCT = 0.5;
+            }
+            case "simd" -> SIMD_SIZES = List.of(1_024, 32_768, 262_144);
+            case "sweep" -> SWEEP = true;
+            case "scheduler-sweep" -> SCHEDULER_SWEEP = true;
+            case "footprint" -> FOOTPRINT_COUNTS = List.of(1_000, 10_000, 100_000, 1_000_000);
             default -> {
                 // 未知预设，保持默认配置 / Unknown preset, keep default configuration
             }
@@ -0,0 +1,117 @@
+package tech.legend.learn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 多次试验的汇总统计：均值、截尾均值、中位数、标准差、95% 置信区间
+ * Summary statistics over repeated trials: mean, trimmed mean, median, standard deviation, 95% confidence interval
+ *
+ * - 截尾均值去掉两端各 20% 的样本，对偶发的慢试验（GC、系统抖动）不敏感
+ *   The trimmed mean drops 20% of the samples at each end, so occasional slow trials (GC, OS noise) don't skew it
+ * - 置信区间基于 Student t 分布：mean ± t(0.975, n-1) · s / sqrt(n)
+ *   The confidence interval uses Student's t distribution: mean ± t(0.975, n-1) · s / sqrt(n)
+ */
+final class TrialStatistics {
+
+    /** 汇总的延迟分位数 / Summarized latency percentiles */
+    static final double[] PERCENTILES = {0.50, 0.90, 0.99, 0.999, 0.9999};
+    private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9", "p99.99"};
+
+    /** 截尾比例（每端）/ Trim fraction (per end) */
+    private static final double TRIM_FRACTION = 0.2;
+
+    /** t(0.975, df)，df = 1..30 / Two-sided 95% Student t critical values for df = 1..30 */
+    private static final double[] T_975 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+    private TrialStatistics() {
+    }
+
+    /**
+     * 单次试验的样本 / One trial's sample
+     *
+     * @param name 测试名称 / Test name
+     * @param throughput 吞吐量（任务数/秒）/ Throughput (tasks/second)
+     * @param percentilesMs 比较延迟的各分位数（毫秒，与 PERCENTILES 对应）
+     *                      Comparison-latency percentiles (milliseconds, aligned with PERCENTILES)
+     */
+    record Sample(String name, double throughput, double[] percentilesMs) {
+
+        static Sample of(RunResult r) {
+            LatencyHistogram h = r.comparisonLatency();
+            double[] ms = new double[PERCENTILES.length];
+            for (int i = 0; i < ms.length; i++) ms[i] = h.valueAtPercentile(PERCENTILES[i]) / 1_000_000.0;
+            return new Sample(r.name(), r.throughput(), ms);
+        }
+
+        /** 从子进程结果行解析（见 ChildJvm）/ Parse a child result line (see ChildJvm) */
+        static Sample parse(String[] f) {
+            double[] ms = new double[PERCENTILES.length];
+            for (int i = 0; i < ms.length; i++) ms[i] = Double.parseDouble(f[5 + i]);
+            return new Sample(f[1], Double.parseDouble(f[2]), ms);
+        }
+    }
+
+    /**
+     * 一组数值的汇总 / Summary of a set of values
+     */
+    record Summary(int n, double mean, double trimmedMean, double median, double stdDev, double ciLower, double ciUpper) {
+
+        static Summary of(double[] values) {
+            double[] v = values.clone();
+            Arrays.sort(v);
+            int n = v.length;
+            double mean = Arrays.stream(v).average().orElse(0);
+            double median = n == 0 ? 0 : n % 2 == 1 ? v[n / 2] : (v[n / 2 - 1] + v[n / 2]) / 2;
+
+            int trim = (int) Math.floor(n * TRIM_FRACTION);
+            double trimmed = Arrays.stream(v, trim, n - trim).average().orElse(mean);
+
+            double ss = 0;
+            for (double x : v) ss += (x - mean) * (x - mean);
+            double stdDev = n > 1 ? Math.sqrt(ss / (n - 1)) : 0;
+            double half = n > 1 ? tCritical(n - 1) * stdDev / Math.sqrt(n) : 0;
+            // 吞吐量与延迟都是非负量，下界截断到 0 / Throughput and latency are non-negative, clamp the lower bound at 0
+            return new Summary(n, mean, trimmed, median, stdDev, Math.max(0, mean - half), mean + half);
+        }
+    }
+
+    /** 双侧 95% t 临界值，df > 30 时取正态近似 / Two-sided 95% t critical value, normal approximation beyond df 30 */
+    static double tCritical(int df) {
+        return df <= T_975.length ? T_975[df - 1] : 1.96;
+    }
+
+    /**
+     * 按测试名称分组输出汇总表 / Print summary tables grouped by test name
+     */
+    static void print(List<Sample> samples) {
+        Map<String, List<Sample>> byName = new LinkedHashMap<>();
+        for (Sample s : samples) byName.computeIfAbsent(s.name(), k -> new ArrayList<>()).add(s);
+
+        System.out.println("=== Trial statistics (95% CI, trimmed mean drops 20% per end) ===");
+        byName.forEach((name, list) -> {
+            System.out.printf(Locale.ROOT, "%s (%d trials)\n", name, list.size());
+            System.out.printf(Locale.ROOT, "    %-14s %12s %12s %12s %12s   %s\n",
+                    "metric", "mean", "trimmed", "median", "stddev", "95% CI");
+            printRow("throughput/s", Summary.of(list.stream().mapToDouble(Sample::throughput).toArray()));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                int idx = i;
+                printRow(PERCENTILE_LABELS[i] + " ms",
+                        Summary.of(list.stream().mapToDouble(s -> s.percentilesMs()[idx]).toArray()));
+            }
+        });
+        System.out.println();
+    }
+
+    private static void printRow(String metric, Summary s) {
+        System.out.printf(Locale.ROOT, "    %-14s %12.3f %12.3f %12.3f %12.3f   [%.3f, %.3f]\n",
+                metric, s.mean(), s.trimmedMean(), s.median(), s.stdDev(), s.ciLower(), s.ciUpper());
+    }
+}
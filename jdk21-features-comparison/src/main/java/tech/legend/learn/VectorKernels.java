@@ -0,0 +1,47 @@
+package tech.legend.learn;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static tech.legend.learn.ArrayKernels.C0;
+import static tech.legend.learn.ArrayKernels.C1;
+import static tech.legend.learn.ArrayKernels.C2;
+import static tech.legend.learn.ArrayKernels.C3;
+
+/**
+ * ArrayKernels 内核的显式 Vector API 实现（JDK 21 孵化模块，运行时需要 --add-modules jdk.incubator.vector）
+ * Explicit Vector API implementation of the ArrayKernels kernel (JDK 21 incubator module, needs
+ * --add-modules jdk.incubator.vector at run time)
+ *
+ * 只有这个类依赖孵化模块；未添加模块时主程序会跳过 Vector API 内核
+ * Only this class depends on the incubator module; the main program skips the Vector API kernel
+ * when the module is not added
+ */
+final class VectorKernels {
+
+    /** 当前 CPU 上最宽的向量形状 / Widest vector shape on the current CPU */
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    /** 每个向量的 double 通道数 / Double lanes per vector */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /** 向量主循环 + 标量尾部 / Vector main loop plus a scalar tail */
+    static double polynomial(double[] in, double[] out, int from, int to) {
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, in, i);
+            x.mul(C3).add(C2).mul(x).add(C1).mul(x).add(C0).max(0.0).intoArray(out, i);
+        }
+        for (; i < to; i++) {
+            double x = in[i];
+            out[i] = Math.max(0, ((C3 * x + C2) * x + C1) * x + C0);
+        }
+        return out[to - 1];
+    }
+}
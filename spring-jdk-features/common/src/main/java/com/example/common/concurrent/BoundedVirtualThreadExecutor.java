@@ -0,0 +1,286 @@
+package com.example.common.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的虚拟线程执行器：带准入控制与背压的 {@code newVirtualThreadPerTaskExecutor()}
+ *
+ * <p>{@code Executors.newVirtualThreadPerTaskExecutor()} 接受任意多的任务，每个任务立即获得一个虚拟线程；
+ * 在高负载下会同时存在数百万个挂起的虚拟线程，栈帧都在堆上，导致堆占用飙升。这个执行器：
+ * <ul>
+ *   <li>用信号量限制同时运行的任务数（{@code maxConcurrency}），每个运行中的任务一个虚拟线程</li>
+ *   <li>超出部分以 {@link Runnable} 形式排队（不创建虚拟线程），排队数不超过 {@code maxQueued}</li>
+ *   <li>运行数与排队数都已满时按 {@link OverflowPolicy} 处理：拒绝、由提交线程执行、或阻塞提交线程</li>
+ *   <li>提供运行中 / 排队中的实时指标与峰值，以及拒绝、调用者执行、阻塞的次数</li>
+ * </ul>
+ *
+ * <p>{@link #shutdownNow()} 只丢弃排队中的任务，不会中断已在运行的虚拟线程。
+ */
+public final class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+
+    /**
+     * 运行数与排队数都已满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /** 抛出 {@link RejectedExecutionException} */
+        REJECT,
+        /** 由提交线程直接执行任务（天然限速） */
+        CALLER_RUNS,
+        /** 阻塞提交线程，直到有空位 */
+        BLOCK;
+
+        /**
+         * 按名称（忽略大小写，允许 {@code caller-runs} 写法）解析
+         *
+         * @param name 策略名称
+         * @return 处理方式
+         */
+        public static OverflowPolicy of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final OverflowPolicy policy;
+    private final ThreadFactory threadFactory;
+
+    /** 准入许可：运行中 + 排队中的任务总数上限 */
+    private final Semaphore admission;
+    /** 运行许可：同时运行的任务数上限 */
+    private final Semaphore running;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile boolean shutdown;
+
+    /**
+     * 使用默认的虚拟线程工厂创建执行器
+     *
+     * @param maxConcurrency 同时运行的任务数上限
+     * @param maxQueued      排队任务数上限（0 表示不排队）
+     * @param policy         溢出处理方式
+     */
+    public BoundedVirtualThreadExecutor(int maxConcurrency, int maxQueued, OverflowPolicy policy) {
+        this(maxConcurrency, maxQueued, policy, Thread.ofVirtual().name("bounded-vt-", 0).factory());
+    }
+
+    /**
+     * @param maxConcurrency 同时运行的任务数上限
+     * @param maxQueued      排队任务数上限（0 表示不排队）
+     * @param policy         溢出处理方式
+     * @param threadFactory  运行任务的线程工厂（通常是虚拟线程工厂）
+     */
+    public BoundedVirtualThreadExecutor(int maxConcurrency, int maxQueued, OverflowPolicy policy,
+                                        ThreadFactory threadFactory) {
+        if (maxConcurrency < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1 and maxQueued >= 0");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.policy = Objects.requireNonNull(policy);
+        this.threadFactory = Objects.requireNonNull(threadFactory);
+        this.admission = new Semaphore((int) Math.min(Integer.MAX_VALUE, (long) maxConcurrency + maxQueued));
+        this.running = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * 提交任务：有空位时排队并尽快启动，否则按溢出策略处理
+     *
+     * @param task 任务
+     * @throws RejectedExecutionException 执行器已关闭、策略为 REJECT 且已满，或 BLOCK 等待时被中断
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task);
+        if (shutdown) {
+            throw new RejectedExecutionException("executor is shut down");
+        }
+        if (!admit(task)) {
+            return;
+        }
+        admitted.incrementAndGet();
+        if (shutdown) {
+            release();
+            throw new RejectedExecutionException("executor is shut down");
+        }
+        peakQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        pending.offer(task);
+        dispatch();
+    }
+
+    /**
+     * 获取准入许可；CALLER_RUNS 未获得许可时直接在当前线程执行任务并返回 {@code false}
+     */
+    private boolean admit(Runnable task) {
+        if (admission.tryAcquire()) {
+            return true;
+        }
+        switch (policy) {
+            case REJECT -> {
+                rejected.increment();
+                throw new RejectedExecutionException(String.format(Locale.ROOT,
+                        "capacity exhausted: %d running, %d queued", inFlight.get(), queued.get()));
+            }
+            case CALLER_RUNS -> {
+                callerRuns.increment();
+                task.run();
+                return false;
+            }
+            case BLOCK -> {
+                blocked.increment();
+                try {
+                    admission.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("interrupted while waiting for capacity", e);
+                }
+            }
+        }
+        throw new IllegalStateException("unknown policy: " + policy);
+    }
+
+    /**
+     * 在运行许可允许的范围内启动排队中的任务
+     */
+    private void dispatch() {
+        while (!pending.isEmpty() && running.tryAcquire()) {
+            Runnable next = pending.poll();
+            if (next == null) {
+                running.release();
+                continue;
+            }
+            queued.decrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            threadFactory.newThread(() -> runTask(next)).start();
+        }
+    }
+
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            running.release();
+            release();
+            // 释放运行许可后再次调度，避免与并发提交竞争时遗留排队任务
+            dispatch();
+        }
+    }
+
+    private void release() {
+        admission.release();
+        if (admitted.decrementAndGet() == 0 && shutdown) {
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (admitted.get() == 0) {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * 关闭并丢弃排队中的任务（已在运行的任务不会被中断）
+     *
+     * @return 尚未启动的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> dropped = new ArrayList<>();
+        for (Runnable r; (r = pending.poll()) != null; ) {
+            queued.decrementAndGet();
+            dropped.add(r);
+            release();
+        }
+        return dropped;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /** @return 运行中的任务数 */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** @return 排队中的任务数 */
+    public int queued() {
+        return queued.get();
+    }
+
+    /** @return 运行中任务数的峰值 */
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    /** @return 排队任务数的峰值 */
+    public int peakQueued() {
+        return peakQueued.get();
+    }
+
+    /** @return 被拒绝的任务数（REJECT） */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /** @return 由提交线程执行的任务数（CALLER_RUNS） */
+    public long callerRuns() {
+        return callerRuns.sum();
+    }
+
+    /** @return 提交线程因满而阻塞的次数（BLOCK） */
+    public long blocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return 配置与指标的单行描述
+     */
+    public String describe() {
+        return String.format(Locale.ROOT,
+                "maxConcurrency=%d, maxQueued=%d, policy=%s, inFlight=%d (peak %d), queued=%d (peak %d), "
+                        + "rejected=%d, callerRuns=%d, blocked=%d",
+                maxConcurrency, maxQueued, policy, inFlight(), peakInFlight(), queued(), peakQueued(),
+                rejected(), callerRuns(), blocked());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.jdk21.events;
+
+import com.example.jdk21.patternmatching.DomainEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带快照与压缩的用户事件日志
+ *
+ * <p>重放全部历史事件的重建时间随事件数线性增长；这个日志每追加 {@code snapshotInterval} 个事件，
+ * 就把当前的 {@link UserStateStore} 深拷贝为快照，并丢弃快照之前的事件（它们已被折叠进快照）。
+ * 重启时的重建（{@link #rebuild()}）只需复制快照再重放尾部，耗时取决于用户状态大小与尾部长度，而不是历史总长度。
+ *
+ * <p>同时维护一份实时状态（{@link #store()}），点查询不需要重放。
+ *
+ * <p>非线程安全：追加应由单个线程完成。
+ */
+public final class CompactingEventLog {
+
+    private final int snapshotInterval;
+    private final UserStateStore live = new UserStateStore();
+    private final List<DomainEvent> tail = new ArrayList<>();
+    private UserStateStore snapshot;
+    private long snapshotOffset;
+    private long offset;
+
+    /**
+     * @param snapshotInterval 每追加多少个事件做一次快照
+     */
+    public CompactingEventLog(int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("snapshotInterval must be positive");
+        }
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * 追加一个事件，并折叠进实时状态；尾部达到快照间隔时做快照并压缩
+     *
+     * @param event 领域事件
+     */
+    public void append(DomainEvent event) {
+        tail.add(event);
+        live.apply(event);
+        offset++;
+        if (tail.size() >= snapshotInterval) {
+            takeSnapshot();
+        }
+    }
+
+    /**
+     * 立即做一次快照，丢弃已折叠进快照的事件
+     */
+    public void takeSnapshot() {
+        snapshot = live.snapshot();
+        snapshotOffset = offset;
+        tail.clear();
+    }
+
+    /**
+     * 从最近的快照与尾部事件重建状态（模拟重启），不影响日志本身
+     *
+     * @return 重建出的状态
+     */
+    public UserStateStore rebuild() {
+        UserStateStore store = snapshot == null ? new UserStateStore() : snapshot.snapshot();
+        store.applyAll(tail);
+        return store;
+    }
+
+    /**
+     * 实时状态，用于 O(1) 点查询
+     */
+    public UserStateStore store() {
+        return live;
+    }
+
+    /**
+     * 已追加的事件总数
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * 最近一次快照覆盖到的事件数
+     */
+    public long snapshotOffset() {
+        return snapshotOffset;
+    }
+
+    /**
+     * 快照之后尚未压缩的事件数
+     */
+    public int tailSize() {
+        return tail.size();
+    }
+
+    /**
+     * 把快照展开成最少的事件序列（每个存活用户的创建事件与各字段的最新更新），用于导出或对外重放
+     *
+     * @return 压缩后的事件，加上快照之后的尾部事件
+     */
+    public List<DomainEvent> compactedEvents() {
+        List<DomainEvent> events = snapshot == null ? new ArrayList<>() : snapshot.compactedEvents();
+        events.addAll(tail);
+        return events;
+    }
+}
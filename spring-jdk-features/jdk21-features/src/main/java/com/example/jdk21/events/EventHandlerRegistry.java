@@ -0,0 +1,92 @@
+package com.example.jdk21.events;
+
+import com.example.jdk21.patternmatching.DomainEvent;
+import com.example.jdk21.patternmatching.UserCreated;
+import com.example.jdk21.patternmatching.UserDeleted;
+import com.example.jdk21.patternmatching.UserUpdated;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于模式匹配的领域事件处理器注册表
+ *
+ * <p>每个事件子类型各有一组处理器，分派时对 sealed 的 {@link DomainEvent} 做穷举 switch：
+ * 新增子类型时编译器会要求在 {@link #dispatch(DomainEvent)} 与 {@link #userId(DomainEvent)} 中补上分支，
+ * 不会出现漏处理的事件类型。
+ *
+ * <p>注册应在事件开始流入之前完成；注册完成后分派是只读的，可被多个工作线程并发调用。
+ */
+public final class EventHandlerRegistry {
+
+    private final List<Consumer<? super UserCreated>> created = new ArrayList<>();
+    private final List<Consumer<? super UserUpdated>> updated = new ArrayList<>();
+    private final List<Consumer<? super UserDeleted>> deleted = new ArrayList<>();
+
+    /**
+     * 注册 {@link UserCreated} 处理器
+     *
+     * @param handler 处理器
+     * @return 当前注册表（便于链式调用）
+     */
+    public EventHandlerRegistry onCreated(Consumer<? super UserCreated> handler) {
+        created.add(handler);
+        return this;
+    }
+
+    /**
+     * 注册 {@link UserUpdated} 处理器
+     *
+     * @param handler 处理器
+     * @return 当前注册表（便于链式调用）
+     */
+    public EventHandlerRegistry onUpdated(Consumer<? super UserUpdated> handler) {
+        updated.add(handler);
+        return this;
+    }
+
+    /**
+     * 注册 {@link UserDeleted} 处理器
+     *
+     * @param handler 处理器
+     * @return 当前注册表（便于链式调用）
+     */
+    public EventHandlerRegistry onDeleted(Consumer<? super UserDeleted> handler) {
+        deleted.add(handler);
+        return this;
+    }
+
+    /**
+     * 按事件类型调用已注册的处理器
+     *
+     * @param event 领域事件
+     */
+    public void dispatch(DomainEvent event) {
+        switch (event) {
+            case UserCreated e -> invoke(created, e);
+            case UserUpdated e -> invoke(updated, e);
+            case UserDeleted e -> invoke(deleted, e);
+        }
+    }
+
+    /**
+     * 事件所属的用户，用作分片键
+     *
+     * @param event 领域事件
+     * @return 用户 ID
+     */
+    public static String userId(DomainEvent event) {
+        return switch (event) {
+            case UserCreated(String userId, String email) -> userId;
+            case UserUpdated(String userId, String field, String value) -> userId;
+            case UserDeleted(String userId) -> userId;
+        };
+    }
+
+    private static <E> void invoke(List<Consumer<? super E>> handlers, E event) {
+        for (int i = 0; i < handlers.size(); i++) {
+            handlers.get(i).accept(event);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.jdk21.events;
+
+import com.example.jdk21.patternmatching.DomainEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 高吞吐领域事件处理管道
+ *
+ * <p>结构：
+ * <ul>
+ *   <li>按 {@code userId} 分片：同一用户的事件总是进入同一个分片，每个分片只有一个工作线程，因此按键保序</li>
+ *   <li>每个分片一个有界队列；队列满时发布线程阻塞（背压），而不是无限堆积</li>
+ *   <li>批量消费：工作线程阻塞等到第一个事件后，用 {@code drainTo} 一次取出最多 {@code batchSize} 个，
+ *       减少每个事件的队列同步开销</li>
+ *   <li>{@link #publishAll(List)} 在发布侧先按分片分组，再逐个放入，减少发布线程在分片之间的跳转</li>
+ *   <li>处理由 {@link EventHandlerRegistry} 按事件类型分派；处理器抛出的异常（包括 {@link Error}）只计数，不会让工作线程退出</li>
+ *   <li>{@link #close()} 先等待正在发布的调用完成再放入结束标记，关闭前已接受的事件一定会被处理；
+ *       关闭过程不响应中断，被中断时等待完成后再恢复中断状态</li>
+ * </ul>
+ *
+ * <p>指标见 {@link #metrics()}：已发布 / 已处理数、在途事件数（lag）、平均批大小，以及从发布到处理完成的平均 / 最大延迟。
+ *
+ * <p>工作线程是平台线程：处理器以 CPU 为主，分片数通常等于或小于核心数。
+ */
+public final class EventPipeline implements AutoCloseable {
+
+    /**
+     * 队列中的事件及其发布时刻（用于计算处理延迟）
+     */
+    private record Envelope(DomainEvent event, long publishedNanos) {
+    }
+
+    /** 关闭时放入每个分片队列的结束标记 */
+    private static final Envelope STOP = new Envelope(null, 0);
+
+    private final EventHandlerRegistry registry;
+    private final int batchSize;
+    private final List<BlockingQueue<Envelope>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /** 已通过关闭检查、尚未完成入队的发布调用数；{@link #close()} 等它归零后才放入结束标记 */
+    private final AtomicInteger publishing = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * 创建并启动管道
+     *
+     * @param registry 事件处理器注册表
+     * @param shards 分片数（工作线程数）
+     * @param queueCapacity 每个分片队列的容量
+     * @param batchSize 工作线程每批最多处理的事件数
+     */
+    public EventPipeline(EventHandlerRegistry registry, int shards, int queueCapacity, int batchSize) {
+        if (shards <= 0 || queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("shards, queueCapacity and batchSize must be positive");
+        }
+        this.registry = registry;
+        this.batchSize = batchSize;
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<Envelope> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            workers.add(Thread.ofPlatform().name("event-shard-" + i).start(() -> work(queue)));
+        }
+    }
+
+    /**
+     * 发布一个事件；所在分片的队列已满时阻塞
+     *
+     * @param event 领域事件
+     * @throws InterruptedException 等待队列空位时被中断
+     */
+    public void publish(DomainEvent event) throws InterruptedException {
+        enter();
+        try {
+            queues.get(shard(event)).put(new Envelope(event, System.nanoTime()));
+            published.increment();
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * 批量发布：先按分片分组，再依次放入各分片队列；同一用户的事件保持列表中的相对顺序
+     *
+     * @param events 领域事件
+     * @throws InterruptedException 等待队列空位时被中断
+     */
+    public void publishAll(List<? extends DomainEvent> events) throws InterruptedException {
+        int shards = queues.size();
+        List<List<Envelope>> grouped = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            grouped.add(new ArrayList<>(events.size() / shards + 1));
+        }
+        long now = System.nanoTime();
+        for (DomainEvent event : events) {
+            grouped.get(shard(event)).add(new Envelope(event, now));
+        }
+        enter();
+        try {
+            for (int i = 0; i < shards; i++) {
+                BlockingQueue<Envelope> queue = queues.get(i);
+                for (Envelope envelope : grouped.get(i)) {
+                    queue.put(envelope);
+                }
+                published.add(grouped.get(i).size());
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * 等待所有已发布的事件处理完成
+     *
+     * @param timeout 最长等待时间
+     * @param unit 时间单位
+     * @return 在超时前处理完成时返回 {@code true}
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (processed.sum() + failed.sum() < published.sum()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /**
+     * 当前指标快照
+     *
+     * @return 指标
+     */
+    public Metrics metrics() {
+        long done = processed.sum() + failed.sum();
+        long batchCount = batches.sum();
+        return new Metrics(published.sum(), processed.sum(), failed.sum(),
+                Math.max(0, published.sum() - done),
+                batchCount == 0 ? 0 : (double) done / batchCount,
+                done == 0 ? 0 : (double) latencyNanos.sum() / done,
+                maxLatencyNanos.get());
+    }
+
+    /**
+     * 停止接收新事件，等待正在发布的调用完成，处理完已入队的事件后停止工作线程
+     *
+     * <p>等待过程不响应中断：中途放弃会留下没有结束标记的分片和仍在运行的工作线程。
+     * 调用线程被中断时继续等待，返回前恢复中断状态。
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        // 阻塞在满队列上的发布者会随工作线程消费而完成；等它们入队后再放结束标记，事件就不会排在 STOP 之后
+        while (publishing.get() > 0) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        for (BlockingQueue<Envelope> queue : queues) {
+            while (true) {
+                try {
+                    queue.put(STOP);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (Thread worker : workers) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int shard(DomainEvent event) {
+        return Math.floorMod(EventHandlerRegistry.userId(event).hashCode(), queues.size());
+    }
+
+    /**
+     * 登记一次发布调用，再检查是否已关闭：{@link #close()} 要么看到这次登记并等待，要么这里看到关闭标志
+     */
+    private void enter() {
+        publishing.incrementAndGet();
+        if (closed) {
+            publishing.decrementAndGet();
+            throw new IllegalStateException("Pipeline is closed");
+        }
+    }
+
+    private void work(BlockingQueue<Envelope> queue) {
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                batches.increment();
+                for (Envelope envelope : batch) {
+                    if (envelope == STOP) {
+                        return;
+                    }
+                    handle(envelope);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 恢复中断状态，工作线程随之退出
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Envelope envelope) {
+        try {
+            registry.dispatch(envelope.event());
+            processed.increment();
+        } catch (Throwable t) {
+            // 包括处理器抛出的 Error：工作线程一旦退出，满队列上的发布者与 close() 都会永久阻塞
+            failed.increment();
+        }
+        long latency = System.nanoTime() - envelope.publishedNanos();
+        latencyNanos.add(latency);
+        // 先读再更新，避免各分片每个事件都对同一个 AtomicLong 做 CAS
+        if (latency > maxLatencyNanos.get()) {
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    /**
+     * 管道指标
+     *
+     * @param published 已发布的事件数
+     * @param processed 处理成功的事件数
+     * @param failed 处理器抛出异常的事件数
+     * @param lag 已发布但尚未处理完的事件数
+     * @param avgBatchSize 工作线程平均每批处理的事件数
+     * @param avgLatencyNanos 从发布到处理完成的平均延迟（纳秒）
+     * @param maxLatencyNanos 从发布到处理完成的最大延迟（纳秒）
+     */
+    public record Metrics(long published, long processed, long failed, long lag,
+                          double avgBatchSize, double avgLatencyNanos, long maxLatencyNanos) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "published=%d, processed=%d, failed=%d, lag=%d, avgBatch=%.1f, avgLatency=%.1f us, maxLatency=%.1f ms",
+                    published, processed, failed, lag, avgBatchSize, avgLatencyNanos / 1_000.0, maxLatencyNanos / 1_000_000.0);
+        }
+    }
+}
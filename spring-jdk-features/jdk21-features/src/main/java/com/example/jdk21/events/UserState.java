@@ -0,0 +1,20 @@
+package com.example.jdk21.events;
+
+import java.util.Map;
+
+/**
+ * 一个用户折叠后的最新状态（不可变快照）
+ *
+ * <p>构造时复制 {@code fields}，之后对 {@link UserStateStore} 的写入不会影响已返回的快照。
+ *
+ * @param userId 用户 ID
+ * @param email 创建时的邮箱
+ * @param fields 各字段的最新值（来自 {@code UserUpdated}）
+ * @param version 折叠进该状态的事件数
+ */
+public record UserState(String userId, String email, Map<String, String> fields, long version) {
+
+    public UserState {
+        fields = Map.copyOf(fields);
+    }
+}
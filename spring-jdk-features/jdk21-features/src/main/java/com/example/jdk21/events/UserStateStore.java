@@ -0,0 +1,176 @@
+package com.example.jdk21.events;
+
+import com.example.jdk21.patternmatching.DomainEvent;
+import com.example.jdk21.patternmatching.UserCreated;
+import com.example.jdk21.patternmatching.UserDeleted;
+import com.example.jdk21.patternmatching.UserUpdated;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 按用户物化的状态存储：把 {@link UserCreated} / {@link UserUpdated} / {@link UserDeleted} 折叠成每个用户的最新状态
+ *
+ * <p>折叠规则：
+ * <ul>
+ *   <li>{@code UserCreated} - 新建（或重建）用户状态，清空已有字段</li>
+ *   <li>{@code UserUpdated} - 覆盖该字段的值，同一字段的旧值随之被压缩掉；值为 {@code null} 时删除该字段；用户不存在时忽略并计数</li>
+ *   <li>{@code UserDeleted} - 删除用户，其全部历史随之被压缩掉</li>
+ * </ul>
+ *
+ * <p>读取与历史事件数无关：{@link #field(String, String)} 按 {@code userId} 与字段名两次哈希查找，是常数时间的读取路径；
+ * {@link #get(String)} 返回不可变快照，需要复制该用户的全部字段，开销与字段数成正比。
+ *
+ * <p>非线程安全：写入应由单个线程完成（例如 {@link EventPipeline} 的一个分片）。
+ */
+public final class UserStateStore {
+
+    /**
+     * 内部可变状态，避免每个 {@code UserUpdated} 都复制一份不可变快照
+     */
+    private static final class Entry {
+        final String email;
+        final HashMap<String, String> fields;
+        long version;
+
+        Entry(String email, HashMap<String, String> fields, long version) {
+            this.email = email;
+            this.fields = fields;
+            this.version = version;
+        }
+
+        Entry copy() {
+            return new Entry(email, new HashMap<>(fields), version);
+        }
+    }
+
+    private final HashMap<String, Entry> users;
+    private long applied;
+    private long orphanUpdates;
+
+    /**
+     * 创建空存储
+     */
+    public UserStateStore() {
+        this.users = new HashMap<>();
+    }
+
+    private UserStateStore(HashMap<String, Entry> users, long applied, long orphanUpdates) {
+        this.users = users;
+        this.applied = applied;
+        this.orphanUpdates = orphanUpdates;
+    }
+
+    /**
+     * 折叠一个事件
+     *
+     * @param event 领域事件
+     */
+    public void apply(DomainEvent event) {
+        applied++;
+        switch (event) {
+            case UserCreated(String userId, String email) -> users.put(userId, new Entry(email, new HashMap<>(), 1));
+            case UserUpdated(String userId, String field, String value) -> {
+                Entry entry = users.get(userId);
+                if (entry == null) {
+                    orphanUpdates++;
+                    return;
+                }
+                // null 表示清除字段；不存入 null，读取时的不可变副本（Map.copyOf）不接受 null 值
+                if (value == null) {
+                    entry.fields.remove(field);
+                } else {
+                    entry.fields.put(field, value);
+                }
+                entry.version++;
+            }
+            case UserDeleted(String userId) -> users.remove(userId);
+        }
+    }
+
+    /**
+     * 依次折叠一组事件
+     *
+     * @param events 领域事件
+     */
+    public void applyAll(List<? extends DomainEvent> events) {
+        for (int i = 0; i < events.size(); i++) {
+            apply(events.get(i));
+        }
+    }
+
+    /**
+     * 读取用户的最新状态
+     *
+     * <p>每次调用都复制该用户的字段（{@link UserState} 持有 {@code Map.copyOf} 的副本），之后的写入不会改变返回的快照；
+     * 只需要个别字段时用 {@link #field(String, String)}。
+     *
+     * @param userId 用户 ID
+     * @return 状态快照；用户不存在或已删除时为空
+     */
+    public Optional<UserState> get(String userId) {
+        Entry entry = users.get(userId);
+        return entry == null ? Optional.empty() : Optional.of(new UserState(userId, entry.email, entry.fields, entry.version));
+    }
+
+    /**
+     * 读取用户某个字段的最新值，不复制状态；常数时间的读取路径
+     *
+     * @param userId 用户 ID
+     * @param field 字段名
+     * @return 字段值；用户或字段不存在时为 {@code null}
+     */
+    public String field(String userId, String field) {
+        Entry entry = users.get(userId);
+        return entry == null ? null : entry.fields.get(field);
+    }
+
+    /**
+     * 当前存活的用户数
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * 已折叠的事件总数（含被忽略的孤立更新）
+     */
+    public long applied() {
+        return applied;
+    }
+
+    /**
+     * 用户不存在时被忽略的 {@code UserUpdated} 数
+     */
+    public long orphanUpdates() {
+        return orphanUpdates;
+    }
+
+    /**
+     * 深拷贝当前状态，作为快照保存；之后对本存储的写入不影响快照
+     *
+     * @return 状态副本
+     */
+    public UserStateStore snapshot() {
+        HashMap<String, Entry> copy = HashMap.newHashMap(users.size());
+        users.forEach((id, entry) -> copy.put(id, entry.copy()));
+        return new UserStateStore(copy, applied, orphanUpdates);
+    }
+
+    /**
+     * 与当前状态等价的最少事件序列：每个存活用户一个 {@code UserCreated}，每个字段一个 {@code UserUpdated}
+     *
+     * @return 压缩后的事件
+     */
+    public List<DomainEvent> compactedEvents() {
+        List<DomainEvent> events = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : users.entrySet()) {
+            events.add(new UserCreated(e.getKey(), e.getValue().email));
+            e.getValue().fields.forEach((field, value) -> events.add(new UserUpdated(e.getKey(), field, value)));
+        }
+        return events;
+    }
+}
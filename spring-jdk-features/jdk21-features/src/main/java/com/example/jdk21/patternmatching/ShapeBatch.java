@@ -0,0 +1,353 @@
+package com.example.jdk21.patternmatching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 列式（structure-of-arrays）的图形批：{@link Circle} / {@link Rectangle} / {@link Triangle} 的无分配几何计算
+ *
+ * <p>{@link Shape} record 是嵌套了 {@link Point} 的小对象图，批量计算时大部分时间花在指针追逐上。
+ * 这里把每个图形拆成一个类型标记和最多六个 {@code int} 坐标，按列存放：
+ * <ul>
+ *   <li>{@code Circle} - {@code (x0, y0)} 圆心，{@code x1} 半径</li>
+ *   <li>{@code Rectangle} - {@code (x0, y0)} 左上角，{@code (x1, y1)} 右下角</li>
+ *   <li>{@code Triangle} - {@code (x0, y0)}、{@code (x1, y1)}、{@code (x2, y2)} 三个顶点</li>
+ * </ul>
+ *
+ * <p>批量内核（{@link #area(double[])}、{@link #totalArea()}、{@link #bounds()}、{@link #contains(int, int, boolean[])}）
+ * 只读写基本类型数组，不分配对象；结果数组由调用方提供并可重复使用。
+ * 矩形不假设坐标轴方向，左上 / 右下两点按最小 / 最大值处理。
+ *
+ * <p>坐标可以取整个 {@code int} 范围：差值先扩展为 {@code long} 再相减，叉积的符号按 128 位精确比较，
+ * 不会因溢出得到错误的面积或包含结果。逐个图形的内核（{@link #rectangleArea}、{@link #triangleArea}、
+ * {@link #circleContains}、{@link #triangleContains}）是公开的静态方法，record 版本的实现可以复用同一套算术。
+ *
+ * <p>非线程安全；构建完成后只读访问可以并发。
+ */
+public final class ShapeBatch {
+
+    /** 类型标记：圆 */
+    public static final byte CIRCLE = 0;
+    /** 类型标记：矩形 */
+    public static final byte RECTANGLE = 1;
+    /** 类型标记：三角形 */
+    public static final byte TRIANGLE = 2;
+
+    private byte[] type;
+    private int[] x0, y0, x1, y1, x2, y2;
+    private int size;
+
+    /**
+     * 创建空批
+     *
+     * @param capacity 初始容量
+     */
+    public ShapeBatch(int capacity) {
+        int c = Math.max(1, capacity);
+        type = new byte[c];
+        x0 = new int[c];
+        y0 = new int[c];
+        x1 = new int[c];
+        y1 = new int[c];
+        x2 = new int[c];
+        y2 = new int[c];
+    }
+
+    /**
+     * 从 record 列表构建
+     *
+     * @param shapes 图形
+     * @return 列式批
+     */
+    public static ShapeBatch of(List<? extends Shape> shapes) {
+        ShapeBatch batch = new ShapeBatch(shapes.size());
+        for (Shape shape : shapes) {
+            batch.add(shape);
+        }
+        return batch;
+    }
+
+    /**
+     * 追加一个图形，容量不足时按 1.5 倍扩容
+     *
+     * @param shape 图形
+     */
+    public void add(Shape shape) {
+        if (size == type.length) {
+            grow();
+        }
+        int i = size++;
+        switch (shape) {
+            case Circle(Point(int cx, int cy), int r) -> set(i, CIRCLE, cx, cy, r, 0, 0, 0);
+            case Rectangle(Point(int ax, int ay), Point(int bx, int by)) -> set(i, RECTANGLE, ax, ay, bx, by, 0, 0);
+            case Triangle(Point(int ax, int ay), Point(int bx, int by), Point(int cx, int cy)) ->
+                    set(i, TRIANGLE, ax, ay, bx, by, cx, cy);
+        }
+    }
+
+    /**
+     * 图形数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第 {@code i} 个图形的类型标记
+     */
+    public byte type(int i) {
+        return type[i];
+    }
+
+    /**
+     * 把第 {@code i} 个图形还原为 record
+     *
+     * @param i 下标
+     * @return 图形
+     */
+    public Shape get(int i) {
+        return switch (type[i]) {
+            case CIRCLE -> new Circle(new Point(x0[i], y0[i]), x1[i]);
+            case RECTANGLE -> new Rectangle(new Point(x0[i], y0[i]), new Point(x1[i], y1[i]));
+            case TRIANGLE -> new Triangle(new Point(x0[i], y0[i]), new Point(x1[i], y1[i]), new Point(x2[i], y2[i]));
+            default -> throw new IllegalStateException("Unknown shape type: " + type[i]);
+        };
+    }
+
+    /**
+     * 还原为 record 列表
+     *
+     * @return 图形列表
+     */
+    public List<Shape> toShapes() {
+        List<Shape> shapes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shapes.add(get(i));
+        }
+        return shapes;
+    }
+
+    /**
+     * 逐个计算面积
+     *
+     * @param out 结果数组，长度至少为 {@link #size()}
+     */
+    public void area(double[] out) {
+        for (int i = 0; i < size; i++) {
+            out[i] = areaAt(i);
+        }
+    }
+
+    /**
+     * 面积总和
+     *
+     * @return 所有图形的面积之和
+     */
+    public double totalArea() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += areaAt(i);
+        }
+        return sum;
+    }
+
+    /**
+     * 所有图形的整体包围盒
+     *
+     * @return 包围盒（左上角为最小坐标，右下角为最大坐标，超出 {@code int} 范围的圆边界饱和到
+     *         {@link Integer#MIN_VALUE} / {@link Integer#MAX_VALUE}）；空批返回 {@code null}
+     */
+    public Rectangle bounds() {
+        if (size == 0) {
+            return null;
+        }
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            switch (type[i]) {
+                case CIRCLE -> {
+                    long r = Math.abs((long) x1[i]);
+                    minX = Math.min(minX, x0[i] - r);
+                    maxX = Math.max(maxX, x0[i] + r);
+                    minY = Math.min(minY, y0[i] - r);
+                    maxY = Math.max(maxY, y0[i] + r);
+                }
+                case RECTANGLE -> {
+                    minX = Math.min(minX, Math.min(x0[i], x1[i]));
+                    maxX = Math.max(maxX, Math.max(x0[i], x1[i]));
+                    minY = Math.min(minY, Math.min(y0[i], y1[i]));
+                    maxY = Math.max(maxY, Math.max(y0[i], y1[i]));
+                }
+                default -> {
+                    minX = Math.min(minX, Math.min(x0[i], Math.min(x1[i], x2[i])));
+                    maxX = Math.max(maxX, Math.max(x0[i], Math.max(x1[i], x2[i])));
+                    minY = Math.min(minY, Math.min(y0[i], Math.min(y1[i], y2[i])));
+                    maxY = Math.max(maxY, Math.max(y0[i], Math.max(y1[i], y2[i])));
+                }
+            }
+        }
+        return new Rectangle(
+                new Point(Math.clamp(minX, Integer.MIN_VALUE, Integer.MAX_VALUE), Math.clamp(minY, Integer.MIN_VALUE, Integer.MAX_VALUE)),
+                new Point(Math.clamp(maxX, Integer.MIN_VALUE, Integer.MAX_VALUE), Math.clamp(maxY, Integer.MIN_VALUE, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * 逐个判断图形是否包含点 {@code (x, y)}（边界上的点视为包含）
+     *
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @param out 结果数组，长度至少为 {@link #size()}
+     * @return 包含该点的图形数
+     */
+    public int contains(int x, int y, boolean[] out) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            boolean inside = containsAt(i, x, y);
+            out[i] = inside;
+            count += inside ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * 包含点 {@code (x, y)} 的图形数，不输出逐个结果
+     *
+     * @param x 横坐标
+     * @param y 纵坐标
+     * @return 包含该点的图形数
+     */
+    public int countContaining(int x, int y) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            count += containsAt(i, x, y) ? 1 : 0;
+        }
+        return count;
+    }
+
+    private double areaAt(int i) {
+        return switch (type[i]) {
+            case CIRCLE -> Math.PI * x1[i] * x1[i];
+            case RECTANGLE -> rectangleArea(x0[i], y0[i], x1[i], y1[i]);
+            default -> triangleArea(x0[i], y0[i], x1[i], y1[i], x2[i], y2[i]);
+        };
+    }
+
+    private boolean containsAt(int i, int x, int y) {
+        return switch (type[i]) {
+            case CIRCLE -> circleContains(x0[i], y0[i], x1[i], x, y);
+            case RECTANGLE -> x >= Math.min(x0[i], x1[i]) && x <= Math.max(x0[i], x1[i])
+                    && y >= Math.min(y0[i], y1[i]) && y <= Math.max(y0[i], y1[i]);
+            default -> triangleContains(x0[i], y0[i], x1[i], y1[i], x2[i], y2[i], x, y);
+        };
+    }
+
+    /**
+     * 矩形面积，两个对角点的差值先扩展为 {@code long}
+     *
+     * @param ax 一个角的横坐标
+     * @param ay 一个角的纵坐标
+     * @param bx 对角的横坐标
+     * @param by 对角的纵坐标
+     * @return 面积
+     */
+    public static double rectangleArea(int ax, int ay, int bx, int by) {
+        return (double) Math.abs((long) bx - ax) * Math.abs((long) by - ay);
+    }
+
+    /**
+     * 三角形面积（叉积绝对值的一半），按 {@code double} 计算，坐标取整个 {@code int} 范围也不会溢出
+     *
+     * @param ax 顶点 a 横坐标
+     * @param ay 顶点 a 纵坐标
+     * @param bx 顶点 b 横坐标
+     * @param by 顶点 b 纵坐标
+     * @param cx 顶点 c 横坐标
+     * @param cy 顶点 c 纵坐标
+     * @return 面积
+     */
+    public static double triangleArea(int ax, int ay, int bx, int by, int cx, int cy) {
+        return Math.abs((double) ((long) bx - ax) * ((long) cy - ay) - (double) ((long) cx - ax) * ((long) by - ay)) / 2.0;
+    }
+
+    /**
+     * 圆是否包含点 {@code (x, y)}（边界上的点视为包含）
+     *
+     * <p>先用坐标差快速排除，之后两个差值都不超过半径（{@code < 2^31}），平方和不会溢出 {@code long}。
+     *
+     * @param cx 圆心横坐标
+     * @param cy 圆心纵坐标
+     * @param radius 半径
+     * @param x 点的横坐标
+     * @param y 点的纵坐标
+     * @return 是否包含
+     */
+    public static boolean circleContains(int cx, int cy, int radius, int x, int y) {
+        long r = Math.abs((long) radius);
+        long dx = Math.abs((long) x - cx);
+        long dy = Math.abs((long) y - cy);
+        return dx <= r && dy <= r && dx * dx + dy * dy <= r * r;
+    }
+
+    /**
+     * 三角形是否包含点 {@code (x, y)}（边界上的点视为包含）
+     *
+     * <p>三个顶点共线（面积为 0）时三个叉积对直线上的任何点都为 0，此时改为检查点是否落在三个顶点的包围盒内，
+     * 即只接受线段上的点。
+     *
+     * @param ax 顶点 a 横坐标
+     * @param ay 顶点 a 纵坐标
+     * @param bx 顶点 b 横坐标
+     * @param by 顶点 b 纵坐标
+     * @param cx 顶点 c 横坐标
+     * @param cy 顶点 c 纵坐标
+     * @param x 点的横坐标
+     * @param y 点的纵坐标
+     * @return 是否包含
+     */
+    public static boolean triangleContains(int ax, int ay, int bx, int by, int cx, int cy, int x, int y) {
+        int d1 = crossSign(ax, ay, bx, by, x, y);
+        int d2 = crossSign(bx, by, cx, cy, x, y);
+        int d3 = crossSign(cx, cy, ax, ay, x, y);
+        if ((d1 | d2 | d3) == 0) {
+            return x >= Math.min(ax, Math.min(bx, cx)) && x <= Math.max(ax, Math.max(bx, cx))
+                    && y >= Math.min(ay, Math.min(by, cy)) && y <= Math.max(ay, Math.max(by, cy));
+        }
+        boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+        boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+        return !(negative && positive);
+    }
+
+    /**
+     * 向量 (a→b) 与 (a→c) 叉积的符号
+     *
+     * <p>差值最多 33 位，乘积最多 66 位，超出 {@code long}；两个乘积按 128 位（{@link Math#multiplyHigh} 取高 64 位）精确比较。
+     */
+    private static int crossSign(int ax, int ay, int bx, int by, int cx, int cy) {
+        long p = (long) bx - ax, q = (long) cy - ay;
+        long r = (long) cx - ax, t = (long) by - ay;
+        long high = Math.multiplyHigh(p, q), otherHigh = Math.multiplyHigh(r, t);
+        return high != otherHigh ? Long.compare(high, otherHigh) : Long.compareUnsigned(p * q, r * t);
+    }
+
+    private void set(int i, byte t, int a, int b, int c, int d, int e, int f) {
+        type[i] = t;
+        x0[i] = a;
+        y0[i] = b;
+        x1[i] = c;
+        y1[i] = d;
+        x2[i] = e;
+        y2[i] = f;
+    }
+
+    private void grow() {
+        int c = type.length + (type.length >> 1) + 1;
+        type = Arrays.copyOf(type, c);
+        x0 = Arrays.copyOf(x0, c);
+        y0 = Arrays.copyOf(y0, c);
+        x1 = Arrays.copyOf(x1, c);
+        y1 = Arrays.copyOf(y1, c);
+        x2 = Arrays.copyOf(x2, c);
+        y2 = Arrays.copyOf(y2, c);
+    }
+}
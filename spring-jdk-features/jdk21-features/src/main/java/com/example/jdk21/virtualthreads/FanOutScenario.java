@@ -0,0 +1,109 @@
+package com.example.jdk21.virtualthreads;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扇出演示中的下游调用模型
+ *
+ * <p>每次调用阻塞 {@code subtaskMs} 毫秒，按 (请求, 子任务, 副本) 确定随机数：
+ * <ul>
+ *   <li>{@code slowPct}% 的调用放大 {@code slowFactor} 倍，扇出越宽，请求越容易碰上慢调用</li>
+ *   <li>{@code failPct}% 的调用在 {@code subtaskMs / 2} 时失败</li>
+ * </ul>
+ *
+ * <p>同时统计被取消（中断）的调用数，以及请求结果确定后其余调用仍在运行的"浪费时间"。
+ */
+class FanOutScenario {
+
+    /**
+     * 一组调用的结果判定时刻（首次 {@link #decide()} 的时间）
+     */
+    static final class Group {
+        private final AtomicLong decidedAt = new AtomicLong();
+
+        void decide() {
+            decidedAt.compareAndSet(0, System.nanoTime());
+        }
+
+        long decidedAt() {
+            return decidedAt.get();
+        }
+    }
+
+    private final int subtaskMs;
+    private final double slowPct;
+    private final int slowFactor;
+    private final double failPct;
+
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder wastedNanos = new LongAdder();
+
+    FanOutScenario(int subtaskMs, double slowPct, int slowFactor, double failPct) {
+        this.subtaskMs = subtaskMs;
+        this.slowPct = slowPct;
+        this.slowFactor = slowFactor;
+        this.failPct = failPct;
+    }
+
+    /**
+     * 一次下游调用
+     *
+     * @param requestGroup 请求级判定，非对冲调用失败时判定
+     * @param hedgeGroup   对冲判定，副本成功时判定；非对冲调用为 {@code null}
+     * @throws IllegalStateException 调用失败时
+     * @throws InterruptedException  被取消时
+     */
+    String call(int request, int sub, int replica, Group requestGroup, Group hedgeGroup) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(((long) request << 32) ^ (sub * 1_000_003L + replica));
+        boolean fail = random.nextDouble() * 100.0 < failPct;
+        boolean slow = !fail && random.nextDouble() * 100.0 < slowPct;
+        long millis = fail ? Math.max(1, subtaskMs / 2) : slow ? (long) subtaskMs * slowFactor : subtaskMs;
+
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            cancelled.increment();
+            throw e;
+        } finally {
+            long decided = earliest(requestGroup.decidedAt(), hedgeGroup == null ? 0 : hedgeGroup.decidedAt());
+            long end = System.nanoTime();
+            if (decided != 0 && end > decided) {
+                wastedNanos.add(end - Math.max(start, decided));
+            }
+        }
+
+        if (fail) {
+            if (hedgeGroup == null) {
+                requestGroup.decide();
+            }
+            throw new IllegalStateException("downstream " + sub + "/" + replica + " failed");
+        }
+        if (hedgeGroup != null) {
+            hedgeGroup.decide();
+        }
+        return "r" + request + "-" + sub + "-" + replica;
+    }
+
+    private static long earliest(long a, long b) {
+        if (a == 0) {
+            return b;
+        }
+        return b == 0 ? a : Math.min(a, b);
+    }
+
+    long cancelled() {
+        return cancelled.sum();
+    }
+
+    double wastedMillis() {
+        return wastedNanos.sum() / 1_000_000.0;
+    }
+
+    void reset() {
+        cancelled.reset();
+        wastedNanos.reset();
+    }
+}
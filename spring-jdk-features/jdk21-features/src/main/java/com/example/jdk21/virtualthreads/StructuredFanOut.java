@@ -0,0 +1,59 @@
+package com.example.jdk21.virtualthreads;
+
+import java.util.concurrent.StructuredTaskScope;
+
+/**
+ * 基于 {@code StructuredTaskScope} 的扇出方式（JDK 21 预览 API）
+ *
+ * <p>只有这个类依赖预览 API，运行时需要 {@code --enable-preview}；
+ * {@link VirtualThreadDemo} 在未开启预览时不会加载它。
+ */
+final class StructuredFanOut {
+
+    private StructuredFanOut() {
+    }
+
+    /**
+     * ShutdownOnFailure：并发执行全部子任务，首个失败时中断其余子任务
+     */
+    static void shutdownOnFailure(FanOutScenario scenario, int request, int width) throws InterruptedException {
+        FanOutScenario.Group group = new FanOutScenario.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            for (int j = 0; j < width; j++) {
+                int sub = j;
+                scope.fork(() -> scenario.call(request, sub, 0, group, null));
+            }
+            scope.join().throwIfFailed(e -> new IllegalStateException("fan-out failed", e));
+        }
+    }
+
+    /**
+     * 对冲请求：外层 ShutdownOnFailure 扇出，每个调用再用 ShutdownOnSuccess 发往多个副本，取最先成功者并取消其余副本
+     */
+    static void hedged(FanOutScenario scenario, int request, int width, int replicas) throws InterruptedException {
+        FanOutScenario.Group group = new FanOutScenario.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            for (int j = 0; j < width; j++) {
+                int sub = j;
+                scope.fork(() -> firstSuccess(scenario, request, sub, replicas, group));
+            }
+            scope.join().throwIfFailed(e -> new IllegalStateException("fan-out failed", e));
+        }
+    }
+
+    private static String firstSuccess(FanOutScenario scenario, int request, int sub, int replicas,
+                                       FanOutScenario.Group requestGroup) throws InterruptedException {
+        FanOutScenario.Group hedgeGroup = new FanOutScenario.Group();
+        try (var scope = new StructuredTaskScope.ShutdownOnSuccess<String>()) {
+            for (int r = 0; r < replicas; r++) {
+                int replica = r;
+                scope.fork(() -> scenario.call(request, sub, replica, requestGroup, hedgeGroup));
+            }
+            scope.join();
+            return scope.result(e -> {
+                requestGroup.decide();
+                return new IllegalStateException("all replicas failed", e);
+            });
+        }
+    }
+}
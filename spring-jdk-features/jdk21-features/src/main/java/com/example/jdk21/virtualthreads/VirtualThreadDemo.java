@@ -1,11 +1,21 @@
 package com.example.jdk21.virtualthreads;
 
+import com.example.common.concurrent.BoundedVirtualThreadExecutor;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 
 /**
@@ -17,6 +27,26 @@ import java.util.stream.IntStream;
 @Component
 public class VirtualThreadDemo {
 
+    /** 扇出演示：请求数、同时在途的请求数、每个请求的下游调用数、对冲副本数 */
+    private static final int FAN_OUT_REQUESTS = 200;
+    private static final int FAN_OUT_CONCURRENCY = 20;
+    private static final int FAN_OUT_WIDTH = 10;
+    private static final int FAN_OUT_REPLICAS = 2;
+
+    /** 有界执行器演示：任务数、每个任务的阻塞时长、同时运行上限、排队上限 */
+    private static final int BOUNDED_TASKS = 10_000;
+    private static final long BOUNDED_SLEEP_MS = 10;
+    private static final int BOUNDED_MAX_CONCURRENCY = 500;
+    private static final int BOUNDED_MAX_QUEUED = 1_000;
+
+    /**
+     * 一个请求的扇出实现
+     */
+    @FunctionalInterface
+    private interface FanOutRequest {
+        void handle(int request) throws Exception;
+    }
+
     public void demonstrate() {
         System.out.println("\n=== JDK 21: Virtual Threads ===");
 
@@ -31,6 +61,12 @@ public class VirtualThreadDemo {
         
         // 4. Web server simulation
         demonstrateWebServerScenario();
+
+        // 5. 扇出 / 扇入（结构化并发）
+        demonstrateFanOut();
+
+        // 6. 有界虚拟线程执行器（准入控制与背压）
+        demonstrateBoundedExecutor();
     }
 
     /**
@@ -170,6 +206,189 @@ public class VirtualThreadDemo {
         System.out.println("  All requests processed!");
     }
 
+    /**
+     * 扇出 / 扇入：一个请求并发调用多个下游，全部返回后才完成
+     *
+     * <p>对比四种方式的端到端延迟，以及取消后的浪费（请求结果确定后其余调用仍在运行的时间）：
+     * <ul>
+     *   <li>平台线程池上的 {@code CompletableFuture.allOf} - 失败不会取消其余调用</li>
+     *   <li>每个子任务一个虚拟线程，逐个 join - 同样不会取消</li>
+     *   <li>{@code StructuredTaskScope.ShutdownOnFailure} - 首个失败即中断其余调用</li>
+     *   <li>{@code StructuredTaskScope.ShutdownOnSuccess} - 对冲请求，每个调用发往多个副本，取最先成功者</li>
+     * </ul>
+     *
+     * <p>StructuredTaskScope 在 JDK 21 中是预览 API，需要 {@code --enable-preview}，未开启时跳过后两种方式。
+     */
+    private void demonstrateFanOut() {
+        System.out.println("\n5. 扇出 / 扇入 (每个请求 " + FAN_OUT_WIDTH + " 个下游调用, 1% 慢调用, 1% 失败):");
+
+        FanOutScenario scenario = new FanOutScenario(10, 1.0, 10, 1.0);
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(50)) {
+            runFanOut("CompletableFuture.allOf", scenario, request -> {
+                FanOutScenario.Group group = new FanOutScenario.Group();
+                CompletableFuture<?>[] calls = IntStream.range(0, FAN_OUT_WIDTH)
+                        .mapToObj(sub -> CompletableFuture.supplyAsync(() -> {
+                            try {
+                                return scenario.call(request, sub, 0, group, null);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new IllegalStateException(e);
+                            }
+                        }, pool))
+                        .toArray(CompletableFuture<?>[]::new);
+                try {
+                    CompletableFuture.allOf(calls).join();
+                } catch (CompletionException e) {
+                    throw new IllegalStateException("fan-out failed", e.getCause());
+                }
+            });
+        }
+
+        runFanOut("每子任务一个虚拟线程", scenario, request -> {
+            FanOutScenario.Group group = new FanOutScenario.Group();
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            Thread[] threads = new Thread[FAN_OUT_WIDTH];
+            for (int j = 0; j < FAN_OUT_WIDTH; j++) {
+                int sub = j;
+                threads[j] = Thread.ofVirtual().start(() -> {
+                    try {
+                        scenario.call(request, sub, 0, group, null);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        });
+
+        if (!structuredConcurrencyAvailable()) {
+            System.out.println("  StructuredTaskScope 是 JDK 21 预览 API，使用 --enable-preview 运行以查看结构化并发对比");
+            return;
+        }
+
+        runFanOut("ShutdownOnFailure", scenario,
+                request -> StructuredFanOut.shutdownOnFailure(scenario, request, FAN_OUT_WIDTH));
+
+        runFanOut("ShutdownOnSuccess 对冲 x" + FAN_OUT_REPLICAS, scenario,
+                request -> StructuredFanOut.hedged(scenario, request, FAN_OUT_WIDTH, FAN_OUT_REPLICAS));
+    }
+
+    /**
+     * 每个请求运行在一个虚拟线程上（同时在途的请求数受限），输出端到端延迟分位数、失败数、取消数和浪费时间
+     */
+    private void runFanOut(String label, FanOutScenario scenario, FanOutRequest handler) {
+        scenario.reset();
+        long[] latencies = new long[FAN_OUT_REQUESTS];
+        LongAdder errors = new LongAdder();
+        Semaphore inFlight = new Semaphore(FAN_OUT_CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < FAN_OUT_REQUESTS; i++) {
+                int request = i;
+                inFlight.acquireUninterruptibly();
+                executor.submit(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        handler.handle(request);
+                    } catch (Exception e) {
+                        errors.increment();
+                    } finally {
+                        latencies[request] = System.nanoTime() - start;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf(Locale.ROOT,
+                "  %-24s p50=%6.1f ms, p99=%6.1f ms, max=%6.1f ms, 失败=%d, 取消=%d, 浪费=%.1f ms%n",
+                label,
+                latencies[FAN_OUT_REQUESTS / 2] / 1_000_000.0,
+                latencies[(int) Math.ceil(FAN_OUT_REQUESTS * 0.99) - 1] / 1_000_000.0,
+                latencies[FAN_OUT_REQUESTS - 1] / 1_000_000.0,
+                errors.sum(), scenario.cancelled(), scenario.wastedMillis());
+    }
+
+    /**
+     * 有界虚拟线程执行器：限制同时存在的虚拟线程数，超出部分排队或按溢出策略处理
+     *
+     * <p>{@code newVirtualThreadPerTaskExecutor()} 会让 {@value #BOUNDED_TASKS} 个任务几乎同时挂起；
+     * {@link BoundedVirtualThreadExecutor} 最多运行 {@value #BOUNDED_MAX_CONCURRENCY} 个、排队
+     * {@value #BOUNDED_MAX_QUEUED} 个，对比三种溢出策略的耗时与指标：
+     * <ul>
+     *   <li>{@code REJECT} - 满时抛出 {@link RejectedExecutionException}，调用方自行降级</li>
+     *   <li>{@code CALLER_RUNS} - 满时由提交线程执行，提交速度被自然放慢</li>
+     *   <li>{@code BLOCK} - 满时阻塞提交线程，直到有任务完成</li>
+     * </ul>
+     */
+    private void demonstrateBoundedExecutor() {
+        System.out.println("\n6. 有界虚拟线程执行器 (" + BOUNDED_TASKS + " 个任务, 每个阻塞 " + BOUNDED_SLEEP_MS + " ms):");
+
+        AtomicInteger live = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Instant start = Instant.now();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < BOUNDED_TASKS; i++) {
+                executor.submit(() -> {
+                    peak.accumulateAndGet(live.incrementAndGet(), Math::max);
+                    try {
+                        sleepQuietly(BOUNDED_SLEEP_MS);
+                    } finally {
+                        live.decrementAndGet();
+                    }
+                });
+            }
+        }
+        System.out.printf(Locale.ROOT, "  %-12s 耗时=%5d ms, 同时存在的虚拟线程峰值=%d%n",
+                "无界", Duration.between(start, Instant.now()).toMillis(), peak.get());
+
+        for (BoundedVirtualThreadExecutor.OverflowPolicy policy : BoundedVirtualThreadExecutor.OverflowPolicy.values()) {
+            BoundedVirtualThreadExecutor bounded =
+                    new BoundedVirtualThreadExecutor(BOUNDED_MAX_CONCURRENCY, BOUNDED_MAX_QUEUED, policy);
+            start = Instant.now();
+            try (bounded) {
+                for (int i = 0; i < BOUNDED_TASKS; i++) {
+                    try {
+                        bounded.submit(() -> sleepQuietly(BOUNDED_SLEEP_MS));
+                    } catch (RejectedExecutionException e) {
+                        // 被拒绝的任务已计入 rejected，这里直接丢弃
+                    }
+                }
+            }
+            System.out.printf(Locale.ROOT, "  %-12s 耗时=%5d ms, %s%n",
+                    policy, Duration.between(start, Instant.now()).toMillis(), bounded.describe());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * StructuredFanOut 依赖预览 API，未开启 {@code --enable-preview} 时无法加载
+     */
+    private static boolean structuredConcurrencyAvailable() {
+        try {
+            Class.forName("com.example.jdk21.virtualthreads.StructuredFanOut");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     /**
      * Spring Boot 中使用虚拟线程
      */
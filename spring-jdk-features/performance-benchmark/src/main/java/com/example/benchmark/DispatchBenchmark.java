@@ -0,0 +1,248 @@
+package com.example.benchmark;
+
+import com.example.jdk21.patternmatching.Circle;
+import com.example.jdk21.patternmatching.Point;
+import com.example.jdk21.patternmatching.Rectangle;
+import com.example.jdk21.patternmatching.Shape;
+import com.example.jdk21.patternmatching.Triangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模式匹配分派基准：sealed switch vs 守卫 switch vs instanceof 链 vs 访问者 vs 虚方法
+ *
+ * <p>按事件类型路由与 {@code PatternMatchingDemo} / {@code RecordPatternsDemo} 中对 sealed 层次的 switch 同构。
+ * 每次调用遍历同一个混合了多个子类型的数组，调用点观察到的类型数即 {@code subtypes}：
+ * <ul>
+ *   <li>2 个类型 - 虚方法与访问者仍是双态（bimorphic）内联缓存</li>
+ *   <li>3 个及以上 - 虚调用变为超多态（megamorphic），退化为 vtable / itable 查找；
+ *       switch 由 {@code typeSwitch} 引导方法按类型顺序匹配</li>
+ * </ul>
+ *
+ * <p>参数说明：
+ * <ul>
+ *   <li>{@code subtypes} - 数组中出现的子类型数（2 / 3 / 8 / 32）</li>
+ *   <li>{@code distribution} - {@code UNIFORM} 各类型均匀出现；{@code SKEWED} 第一个类型占 90%，其余均分剩下的 10%</li>
+ * </ul>
+ *
+ * <p>五种分派方式作用于 {@link DispatchHierarchy}（按 {@code Shape} 形态生成的 32 子类型 sealed 层次）；
+ * 另外 {@code shape*} 三个基准直接作用于演示模块的 {@link Shape}（{@link Circle} / {@link Rectangle} / {@link Triangle}），
+ * 它们没有虚方法和访问者入口，因此只比较三种基于模式匹配的方式。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DispatchBenchmark {
+
+    /**
+     * 每次调用处理的元素数
+     */
+    private static final int SIZE = 4_096;
+
+    /**
+     * {@code SKEWED} 分布下第一个类型所占比例
+     */
+    private static final double HOT_SHARE = 0.9;
+
+    /**
+     * 按 {@code subtypes} 与 {@code distribution} 生成子类型编号序列（固定种子，结果可复现）
+     */
+    static int[] typeSequence(int subtypes, String distribution) {
+        Random random = new Random(42);
+        int[] types = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            if ("SKEWED".equals(distribution) && random.nextDouble() < HOT_SHARE) {
+                types[i] = 0;
+            } else if ("SKEWED".equals(distribution)) {
+                types[i] = 1 + random.nextInt(subtypes - 1);
+            } else {
+                types[i] = random.nextInt(subtypes);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * 合成层次的数据
+     */
+    @State(Scope.Thread)
+    public static class NodeMix {
+
+        @Param({"2", "3", "8", "32"})
+        public int subtypes;
+
+        @Param({"UNIFORM", "SKEWED"})
+        public String distribution;
+
+        DispatchHierarchy.Node[] nodes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int[] types = typeSequence(subtypes, distribution);
+            nodes = new DispatchHierarchy.Node[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                nodes[i] = DispatchHierarchy.create(types[i], i % 97 + 1, i % 13 + 1);
+            }
+        }
+    }
+
+    /**
+     * 演示模块 {@link Shape} 层次的数据（只有 3 个子类型）
+     */
+    @State(Scope.Thread)
+    public static class ShapeMix {
+
+        @Param({"2", "3"})
+        public int subtypes;
+
+        @Param({"UNIFORM", "SKEWED"})
+        public String distribution;
+
+        Shape[] shapes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int[] types = typeSequence(subtypes, distribution);
+            shapes = new Shape[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                int a = i % 97 + 1;
+                int b = i % 13 + 1;
+                shapes[i] = switch (types[i]) {
+                    case 0 -> new Circle(new Point(a, b), a);
+                    case 1 -> new Rectangle(new Point(0, b), new Point(a, 0));
+                    default -> new Triangle(new Point(0, 0), new Point(a, 0), new Point(0, b));
+                };
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 合成层次：五种分派方式
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int recordSwitch(NodeMix mix) {
+        int sum = 0;
+        for (DispatchHierarchy.Node node : mix.nodes) {
+            sum += DispatchHierarchy.recordSwitch(node);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int guardedSwitch(NodeMix mix) {
+        int sum = 0;
+        for (DispatchHierarchy.Node node : mix.nodes) {
+            sum += DispatchHierarchy.guardedSwitch(node);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int instanceofChain(NodeMix mix) {
+        int sum = 0;
+        for (DispatchHierarchy.Node node : mix.nodes) {
+            sum += DispatchHierarchy.instanceofChain(node);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int visitor(NodeMix mix) {
+        int sum = 0;
+        for (DispatchHierarchy.Node node : mix.nodes) {
+            sum += node.accept(DispatchHierarchy.AREA);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public int virtualCall(NodeMix mix) {
+        int sum = 0;
+        for (DispatchHierarchy.Node node : mix.nodes) {
+            sum += node.area();
+        }
+        return sum;
+    }
+
+    // ---------------------------------------------------------------- 演示模块的 Shape 层次
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long shapeRecordSwitch(ShapeMix mix) {
+        long sum = 0;
+        for (Shape shape : mix.shapes) {
+            sum += switch (shape) {
+                case Circle(Point c, int r) -> 3L * r * r;
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> (long) Math.abs(x2 - x1) * Math.abs(y2 - y1);
+                case Triangle(Point(int x1, int y1), Point(int x2, int y2), Point(int x3, int y3)) ->
+                        Math.abs((long) (x2 - x1) * (y3 - y1) - (long) (x3 - x1) * (y2 - y1)) / 2;
+            };
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long shapeGuardedSwitch(ShapeMix mix) {
+        long sum = 0;
+        for (Shape shape : mix.shapes) {
+            sum += switch (shape) {
+                case Circle(Point c, int r) when r <= 0 -> 0;
+                case Circle(Point c, int r) -> 3L * r * r;
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) when x1 == x2 -> 0;
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> (long) Math.abs(x2 - x1) * Math.abs(y2 - y1);
+                case Triangle(Point(int x1, int y1), Point(int x2, int y2), Point(int x3, int y3)) ->
+                        Math.abs((long) (x2 - x1) * (y3 - y1) - (long) (x3 - x1) * (y2 - y1)) / 2;
+            };
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public long shapeInstanceofChain(ShapeMix mix) {
+        long sum = 0;
+        for (Shape shape : mix.shapes) {
+            if (shape instanceof Circle c) {
+                sum += 3L * c.radius() * c.radius();
+            } else if (shape instanceof Rectangle r) {
+                sum += (long) Math.abs(r.bottomRight().x() - r.topLeft().x()) * Math.abs(r.bottomRight().y() - r.topLeft().y());
+            } else if (shape instanceof Triangle t) {
+                sum += Math.abs((long) (t.p2().x() - t.p1().x()) * (t.p3().y() - t.p1().y())
+                        - (long) (t.p3().x() - t.p1().x()) * (t.p2().y() - t.p1().y())) / 2;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>运行方式：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar DispatchBenchmark
+     * java -jar target/benchmarks.jar "DispatchBenchmark.(recordSwitch|virtualCall)" -p subtypes=3,8
+     * }</pre>
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DispatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,464 @@
+package com.example.benchmark;
+
+/**
+ * {@link DispatchBenchmark} 使用的合成 sealed 层次：32 个 record 子类型
+ *
+ * <p>演示模块中的 {@code Shape}（3 个子类型）不带虚方法也不支持访问者，且子类型数量固定；
+ * 这里按 {@code Shape} 的形态（二元字段、各自的面积公式）生成一个足够宽的层次，
+ * 让同一组数据可以用五种分派方式处理，并能分别只使用前 2 / 3 / 8 / 32 个子类型。
+ *
+ * <p>每个子类型的 {@code area()} 公式略有不同（加上自己的编号），防止 JIT 把各分支合并成同一段代码。
+ */
+final class DispatchHierarchy {
+
+    /** 子类型数量 */
+    static final int SUBTYPES = 32;
+
+    private DispatchHierarchy() {
+    }
+
+    /**
+     * 密封接口：带虚方法 {@link #area()} 与访问者入口 {@link #accept(Visitor)}
+     */
+    sealed interface Node permits K0, K1, K2, K3, K4, K5, K6, K7, K8, K9, K10, K11, K12, K13, K14, K15, K16, K17, K18, K19, K20, K21, K22, K23, K24, K25, K26, K27, K28, K29, K30, K31 {
+
+        /** 虚方法分派 */
+        int area();
+
+        /** 访问者分派（双重分派）*/
+        int accept(Visitor visitor);
+    }
+
+    /**
+     * 经典访问者，每个子类型一个重载
+     */
+    interface Visitor {
+        int visit(K0 k);
+        int visit(K1 k);
+        int visit(K2 k);
+        int visit(K3 k);
+        int visit(K4 k);
+        int visit(K5 k);
+        int visit(K6 k);
+        int visit(K7 k);
+        int visit(K8 k);
+        int visit(K9 k);
+        int visit(K10 k);
+        int visit(K11 k);
+        int visit(K12 k);
+        int visit(K13 k);
+        int visit(K14 k);
+        int visit(K15 k);
+        int visit(K16 k);
+        int visit(K17 k);
+        int visit(K18 k);
+        int visit(K19 k);
+        int visit(K20 k);
+        int visit(K21 k);
+        int visit(K22 k);
+        int visit(K23 k);
+        int visit(K24 k);
+        int visit(K25 k);
+        int visit(K26 k);
+        int visit(K27 k);
+        int visit(K28 k);
+        int visit(K29 k);
+        int visit(K30 k);
+        int visit(K31 k);
+    }
+
+    record K0(int a, int b) implements Node {
+        public int area() { return a * b + 0; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K1(int a, int b) implements Node {
+        public int area() { return a * b + 1; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K2(int a, int b) implements Node {
+        public int area() { return a * b + 2; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K3(int a, int b) implements Node {
+        public int area() { return a * b + 3; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K4(int a, int b) implements Node {
+        public int area() { return a * b + 4; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K5(int a, int b) implements Node {
+        public int area() { return a * b + 5; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K6(int a, int b) implements Node {
+        public int area() { return a * b + 6; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K7(int a, int b) implements Node {
+        public int area() { return a * b + 7; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K8(int a, int b) implements Node {
+        public int area() { return a * b + 8; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K9(int a, int b) implements Node {
+        public int area() { return a * b + 9; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K10(int a, int b) implements Node {
+        public int area() { return a * b + 10; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K11(int a, int b) implements Node {
+        public int area() { return a * b + 11; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K12(int a, int b) implements Node {
+        public int area() { return a * b + 12; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K13(int a, int b) implements Node {
+        public int area() { return a * b + 13; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K14(int a, int b) implements Node {
+        public int area() { return a * b + 14; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K15(int a, int b) implements Node {
+        public int area() { return a * b + 15; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K16(int a, int b) implements Node {
+        public int area() { return a * b + 16; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K17(int a, int b) implements Node {
+        public int area() { return a * b + 17; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K18(int a, int b) implements Node {
+        public int area() { return a * b + 18; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K19(int a, int b) implements Node {
+        public int area() { return a * b + 19; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K20(int a, int b) implements Node {
+        public int area() { return a * b + 20; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K21(int a, int b) implements Node {
+        public int area() { return a * b + 21; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K22(int a, int b) implements Node {
+        public int area() { return a * b + 22; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K23(int a, int b) implements Node {
+        public int area() { return a * b + 23; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K24(int a, int b) implements Node {
+        public int area() { return a * b + 24; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K25(int a, int b) implements Node {
+        public int area() { return a * b + 25; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K26(int a, int b) implements Node {
+        public int area() { return a * b + 26; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K27(int a, int b) implements Node {
+        public int area() { return a * b + 27; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K28(int a, int b) implements Node {
+        public int area() { return a * b + 28; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K29(int a, int b) implements Node {
+        public int area() { return a * b + 29; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K30(int a, int b) implements Node {
+        public int area() { return a * b + 30; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    record K31(int a, int b) implements Node {
+        public int area() { return a * b + 31; }
+        public int accept(Visitor visitor) { return visitor.visit(this); }
+    }
+
+    /**
+     * 按编号创建子类型实例
+     *
+     * @param type 子类型编号，0 到 {@link #SUBTYPES} - 1
+     * @param a 第一个字段
+     * @param b 第二个字段
+     * @return 对应子类型的实例
+     */
+    static Node create(int type, int a, int b) {
+        return switch (type) {
+            case 0 -> new K0(a, b);
+            case 1 -> new K1(a, b);
+            case 2 -> new K2(a, b);
+            case 3 -> new K3(a, b);
+            case 4 -> new K4(a, b);
+            case 5 -> new K5(a, b);
+            case 6 -> new K6(a, b);
+            case 7 -> new K7(a, b);
+            case 8 -> new K8(a, b);
+            case 9 -> new K9(a, b);
+            case 10 -> new K10(a, b);
+            case 11 -> new K11(a, b);
+            case 12 -> new K12(a, b);
+            case 13 -> new K13(a, b);
+            case 14 -> new K14(a, b);
+            case 15 -> new K15(a, b);
+            case 16 -> new K16(a, b);
+            case 17 -> new K17(a, b);
+            case 18 -> new K18(a, b);
+            case 19 -> new K19(a, b);
+            case 20 -> new K20(a, b);
+            case 21 -> new K21(a, b);
+            case 22 -> new K22(a, b);
+            case 23 -> new K23(a, b);
+            case 24 -> new K24(a, b);
+            case 25 -> new K25(a, b);
+            case 26 -> new K26(a, b);
+            case 27 -> new K27(a, b);
+            case 28 -> new K28(a, b);
+            case 29 -> new K29(a, b);
+            case 30 -> new K30(a, b);
+            case 31 -> new K31(a, b);
+            default -> throw new IllegalArgumentException("Unknown subtype: " + type);
+        };
+    }
+
+    /**
+     * record 解构 switch（穷举，无 default）
+     */
+    static int recordSwitch(Node node) {
+        return switch (node) {
+            case K0(int a, int b) -> a * b + 0;
+            case K1(int a, int b) -> a * b + 1;
+            case K2(int a, int b) -> a * b + 2;
+            case K3(int a, int b) -> a * b + 3;
+            case K4(int a, int b) -> a * b + 4;
+            case K5(int a, int b) -> a * b + 5;
+            case K6(int a, int b) -> a * b + 6;
+            case K7(int a, int b) -> a * b + 7;
+            case K8(int a, int b) -> a * b + 8;
+            case K9(int a, int b) -> a * b + 9;
+            case K10(int a, int b) -> a * b + 10;
+            case K11(int a, int b) -> a * b + 11;
+            case K12(int a, int b) -> a * b + 12;
+            case K13(int a, int b) -> a * b + 13;
+            case K14(int a, int b) -> a * b + 14;
+            case K15(int a, int b) -> a * b + 15;
+            case K16(int a, int b) -> a * b + 16;
+            case K17(int a, int b) -> a * b + 17;
+            case K18(int a, int b) -> a * b + 18;
+            case K19(int a, int b) -> a * b + 19;
+            case K20(int a, int b) -> a * b + 20;
+            case K21(int a, int b) -> a * b + 21;
+            case K22(int a, int b) -> a * b + 22;
+            case K23(int a, int b) -> a * b + 23;
+            case K24(int a, int b) -> a * b + 24;
+            case K25(int a, int b) -> a * b + 25;
+            case K26(int a, int b) -> a * b + 26;
+            case K27(int a, int b) -> a * b + 27;
+            case K28(int a, int b) -> a * b + 28;
+            case K29(int a, int b) -> a * b + 29;
+            case K30(int a, int b) -> a * b + 30;
+            case K31(int a, int b) -> a * b + 31;
+        };
+    }
+
+    /**
+     * 带守卫的 switch：每个子类型先检查一个不会成立的守卫，再落到无守卫分支
+     */
+    static int guardedSwitch(Node node) {
+        return switch (node) {
+            case K0(int a, int b) when a < 0 -> b - a;
+            case K0(int a, int b) -> a * b + 0;
+            case K1(int a, int b) when a < 0 -> b - a;
+            case K1(int a, int b) -> a * b + 1;
+            case K2(int a, int b) when a < 0 -> b - a;
+            case K2(int a, int b) -> a * b + 2;
+            case K3(int a, int b) when a < 0 -> b - a;
+            case K3(int a, int b) -> a * b + 3;
+            case K4(int a, int b) when a < 0 -> b - a;
+            case K4(int a, int b) -> a * b + 4;
+            case K5(int a, int b) when a < 0 -> b - a;
+            case K5(int a, int b) -> a * b + 5;
+            case K6(int a, int b) when a < 0 -> b - a;
+            case K6(int a, int b) -> a * b + 6;
+            case K7(int a, int b) when a < 0 -> b - a;
+            case K7(int a, int b) -> a * b + 7;
+            case K8(int a, int b) when a < 0 -> b - a;
+            case K8(int a, int b) -> a * b + 8;
+            case K9(int a, int b) when a < 0 -> b - a;
+            case K9(int a, int b) -> a * b + 9;
+            case K10(int a, int b) when a < 0 -> b - a;
+            case K10(int a, int b) -> a * b + 10;
+            case K11(int a, int b) when a < 0 -> b - a;
+            case K11(int a, int b) -> a * b + 11;
+            case K12(int a, int b) when a < 0 -> b - a;
+            case K12(int a, int b) -> a * b + 12;
+            case K13(int a, int b) when a < 0 -> b - a;
+            case K13(int a, int b) -> a * b + 13;
+            case K14(int a, int b) when a < 0 -> b - a;
+            case K14(int a, int b) -> a * b + 14;
+            case K15(int a, int b) when a < 0 -> b - a;
+            case K15(int a, int b) -> a * b + 15;
+            case K16(int a, int b) when a < 0 -> b - a;
+            case K16(int a, int b) -> a * b + 16;
+            case K17(int a, int b) when a < 0 -> b - a;
+            case K17(int a, int b) -> a * b + 17;
+            case K18(int a, int b) when a < 0 -> b - a;
+            case K18(int a, int b) -> a * b + 18;
+            case K19(int a, int b) when a < 0 -> b - a;
+            case K19(int a, int b) -> a * b + 19;
+            case K20(int a, int b) when a < 0 -> b - a;
+            case K20(int a, int b) -> a * b + 20;
+            case K21(int a, int b) when a < 0 -> b - a;
+            case K21(int a, int b) -> a * b + 21;
+            case K22(int a, int b) when a < 0 -> b - a;
+            case K22(int a, int b) -> a * b + 22;
+            case K23(int a, int b) when a < 0 -> b - a;
+            case K23(int a, int b) -> a * b + 23;
+            case K24(int a, int b) when a < 0 -> b - a;
+            case K24(int a, int b) -> a * b + 24;
+            case K25(int a, int b) when a < 0 -> b - a;
+            case K25(int a, int b) -> a * b + 25;
+            case K26(int a, int b) when a < 0 -> b - a;
+            case K26(int a, int b) -> a * b + 26;
+            case K27(int a, int b) when a < 0 -> b - a;
+            case K27(int a, int b) -> a * b + 27;
+            case K28(int a, int b) when a < 0 -> b - a;
+            case K28(int a, int b) -> a * b + 28;
+            case K29(int a, int b) when a < 0 -> b - a;
+            case K29(int a, int b) -> a * b + 29;
+            case K30(int a, int b) when a < 0 -> b - a;
+            case K30(int a, int b) -> a * b + 30;
+            case K31(int a, int b) when a < 0 -> b - a;
+            case K31(int a, int b) -> a * b + 31;
+        };
+    }
+
+    /**
+     * instanceof 链：按编号顺序逐个测试，越靠后的子类型需要越多次类型检查
+     */
+    static int instanceofChain(Node node) {
+        if (node instanceof K0(int a, int b)) return a * b + 0;
+        if (node instanceof K1(int a, int b)) return a * b + 1;
+        if (node instanceof K2(int a, int b)) return a * b + 2;
+        if (node instanceof K3(int a, int b)) return a * b + 3;
+        if (node instanceof K4(int a, int b)) return a * b + 4;
+        if (node instanceof K5(int a, int b)) return a * b + 5;
+        if (node instanceof K6(int a, int b)) return a * b + 6;
+        if (node instanceof K7(int a, int b)) return a * b + 7;
+        if (node instanceof K8(int a, int b)) return a * b + 8;
+        if (node instanceof K9(int a, int b)) return a * b + 9;
+        if (node instanceof K10(int a, int b)) return a * b + 10;
+        if (node instanceof K11(int a, int b)) return a * b + 11;
+        if (node instanceof K12(int a, int b)) return a * b + 12;
+        if (node instanceof K13(int a, int b)) return a * b + 13;
+        if (node instanceof K14(int a, int b)) return a * b + 14;
+        if (node instanceof K15(int a, int b)) return a * b + 15;
+        if (node instanceof K16(int a, int b)) return a * b + 16;
+        if (node instanceof K17(int a, int b)) return a * b + 17;
+        if (node instanceof K18(int a, int b)) return a * b + 18;
+        if (node instanceof K19(int a, int b)) return a * b + 19;
+        if (node instanceof K20(int a, int b)) return a * b + 20;
+        if (node instanceof K21(int a, int b)) return a * b + 21;
+        if (node instanceof K22(int a, int b)) return a * b + 22;
+        if (node instanceof K23(int a, int b)) return a * b + 23;
+        if (node instanceof K24(int a, int b)) return a * b + 24;
+        if (node instanceof K25(int a, int b)) return a * b + 25;
+        if (node instanceof K26(int a, int b)) return a * b + 26;
+        if (node instanceof K27(int a, int b)) return a * b + 27;
+        if (node instanceof K28(int a, int b)) return a * b + 28;
+        if (node instanceof K29(int a, int b)) return a * b + 29;
+        if (node instanceof K30(int a, int b)) return a * b + 30;
+        if (node instanceof K31(int a, int b)) return a * b + 31;
+        throw new IllegalStateException("Unknown subtype: " + node);
+    }
+
+    /**
+     * 访问者实现，与其他分派方式计算相同的值
+     */
+    static final Visitor AREA = new Visitor() {
+        @Override public int visit(K0 k) { return k.a() * k.b() + 0; }
+        @Override public int visit(K1 k) { return k.a() * k.b() + 1; }
+        @Override public int visit(K2 k) { return k.a() * k.b() + 2; }
+        @Override public int visit(K3 k) { return k.a() * k.b() + 3; }
+        @Override public int visit(K4 k) { return k.a() * k.b() + 4; }
+        @Override public int visit(K5 k) { return k.a() * k.b() + 5; }
+        @Override public int visit(K6 k) { return k.a() * k.b() + 6; }
+        @Override public int visit(K7 k) { return k.a() * k.b() + 7; }
+        @Override public int visit(K8 k) { return k.a() * k.b() + 8; }
+        @Override public int visit(K9 k) { return k.a() * k.b() + 9; }
+        @Override public int visit(K10 k) { return k.a() * k.b() + 10; }
+        @Override public int visit(K11 k) { return k.a() * k.b() + 11; }
+        @Override public int visit(K12 k) { return k.a() * k.b() + 12; }
+        @Override public int visit(K13 k) { return k.a() * k.b() + 13; }
+        @Override public int visit(K14 k) { return k.a() * k.b() + 14; }
+        @Override public int visit(K15 k) { return k.a() * k.b() + 15; }
+        @Override public int visit(K16 k) { return k.a() * k.b() + 16; }
+        @Override public int visit(K17 k) { return k.a() * k.b() + 17; }
+        @Override public int visit(K18 k) { return k.a() * k.b() + 18; }
+        @Override public int visit(K19 k) { return k.a() * k.b() + 19; }
+        @Override public int visit(K20 k) { return k.a() * k.b() + 20; }
+        @Override public int visit(K21 k) { return k.a() * k.b() + 21; }
+        @Override public int visit(K22 k) { return k.a() * k.b() + 22; }
+        @Override public int visit(K23 k) { return k.a() * k.b() + 23; }
+        @Override public int visit(K24 k) { return k.a() * k.b() + 24; }
+        @Override public int visit(K25 k) { return k.a() * k.b() + 25; }
+        @Override public int visit(K26 k) { return k.a() * k.b() + 26; }
+        @Override public int visit(K27 k) { return k.a() * k.b() + 27; }
+        @Override public int visit(K28 k) { return k.a() * k.b() + 28; }
+        @Override public int visit(K29 k) { return k.a() * k.b() + 29; }
+        @Override public int visit(K30 k) { return k.a() * k.b() + 30; }
+        @Override public int visit(K31 k) { return k.a() * k.b() + 31; }
+    };
+}
@@ -0,0 +1,152 @@
+package com.example.benchmark;
+
+import com.example.jdk21.events.EventHandlerRegistry;
+import com.example.jdk21.events.EventPipeline;
+import com.example.jdk21.patternmatching.DomainEvent;
+import com.example.jdk21.patternmatching.UserCreated;
+import com.example.jdk21.patternmatching.UserDeleted;
+import com.example.jdk21.patternmatching.UserUpdated;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 领域事件处理管道吞吐基准
+ *
+ * <p>每次调用把 {@value #EVENTS} 个预先生成的合成事件推入 {@link EventPipeline}，并等待全部处理完成；
+ * 结果以每个事件的平均耗时（纳秒）输出，倒数即每秒处理的事件数。事件组成：
+ * 20% {@link UserCreated}、70% {@link UserUpdated}、10% {@link UserDeleted}，分布在 {@value #USERS} 个用户上。
+ *
+ * <p>参数说明：
+ * <ul>
+ *   <li>{@code shards} - 分片数（工作线程数）</li>
+ *   <li>{@code batchSize} - 工作线程每批最多处理的事件数；1 即逐个 {@code take}</li>
+ *   <li>{@code publish} - {@code SINGLE} 逐个 {@link EventPipeline#publish}；{@code BATCH} 每 {@value #PUBLISH_BATCH} 个调用一次
+ *       {@link EventPipeline#publishAll}</li>
+ * </ul>
+ *
+ * <p>每轮 Trial 结束后输出管道指标（平均批大小、平均 / 最大处理延迟），并校验没有事件丢失或处理失败。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class EventPipelineBenchmark {
+
+    /** 每次调用发布的事件数 */
+    private static final int EVENTS = 1_000_000;
+
+    /** 事件涉及的用户数 */
+    private static final int USERS = 100_000;
+
+    /** 批量发布时每批的事件数 */
+    private static final int PUBLISH_BATCH = 1_024;
+
+    /** 每个分片队列的容量 */
+    private static final int QUEUE_CAPACITY = 16_384;
+
+    @Param({"1", "4", "8"})
+    public int shards;
+
+    @Param({"1", "256"})
+    public int batchSize;
+
+    @Param({"SINGLE", "BATCH"})
+    public String publish;
+
+    private DomainEvent[] events;
+    /** {@code events} 的列表视图，在 Setup 中建好，避免在计时的 BATCH 路径里复制数组 */
+    private List<DomainEvent> eventList;
+    private EventPipeline pipeline;
+
+    /** 处理器只做计数，基准测的是管道本身的开销 */
+    private final LongAdder created = new LongAdder();
+    private final LongAdder updated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] userIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = "user-" + i;
+        }
+        events = new DomainEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            String userId = userIds[random.nextInt(USERS)];
+            int kind = random.nextInt(10);
+            events[i] = kind < 2 ? new UserCreated(userId, userId + "@example.com")
+                    : kind < 9 ? new UserUpdated(userId, "email", "v" + (i & 1023))
+                    : new UserDeleted(userId);
+        }
+        eventList = List.of(events);
+
+        EventHandlerRegistry registry = new EventHandlerRegistry()
+                .onCreated(e -> created.increment())
+                .onUpdated(e -> updated.increment())
+                .onDeleted(e -> deleted.increment());
+        pipeline = new EventPipeline(registry, shards, QUEUE_CAPACITY, batchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(BenchmarkParams params) {
+        pipeline.close();
+        EventPipeline.Metrics metrics = pipeline.metrics();
+        System.out.println();
+        System.out.println("  " + params.getBenchmark().replaceFirst(".*\\.", "") + " " + metrics);
+        if (metrics.failed() > 0 || metrics.processed() != metrics.published()) {
+            throw new IllegalStateException("Events lost or failed: " + metrics);
+        }
+    }
+
+    /**
+     * 推入 {@value #EVENTS} 个事件并等待全部处理完成
+     *
+     * @throws InterruptedException 发布或等待时被中断
+     */
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void pushAndDrain() throws InterruptedException {
+        if ("BATCH".equals(publish)) {
+            for (int from = 0; from < EVENTS; from += PUBLISH_BATCH) {
+                pipeline.publishAll(eventList.subList(from, Math.min(EVENTS, from + PUBLISH_BATCH)));
+            }
+        } else {
+            for (DomainEvent event : events) {
+                pipeline.publish(event);
+            }
+        }
+        if (!pipeline.awaitDrained(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Pipeline did not drain: " + pipeline.metrics());
+        }
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>运行方式：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar EventPipelineBenchmark
+     * java -jar target/benchmarks.jar EventPipelineBenchmark -p shards=8 -p batchSize=256 -p publish=BATCH
+     * }</pre>
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(EventPipelineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.benchmark;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住（pinning）检测器
+ *
+ * <p>在基准测试进程内开启 JFR 事件流，监听以下事件：
+ * <ul>
+ *   <li>{@code jdk.VirtualThreadPinned} - 虚拟线程持有 monitor 或处于本地方法时阻塞，无法从载体线程卸载</li>
+ *   <li>{@code jdk.VirtualThreadSubmitFailed} - 虚拟线程提交到调度器失败</li>
+ * </ul>
+ *
+ * <p>停止后汇总钉住次数、总钉住时间，以及导致钉住的应用栈帧（跳过 JDK 内部帧）。
+ *
+ * <p>通过系统属性控制（JMH 需使用 {@code -jvmArgsAppend} 传给 fork 出的 JVM）：
+ * <ul>
+ *   <li>{@code -Djfr.pinning=true} - 开启检测</li>
+ *   <li>{@code -Djfr.pinningThresholdMs=0} - 只记录钉住时间超过该值的事件（JFR 默认 20ms）</li>
+ *   <li>{@code -Dpinning.failCount=N} - 钉住次数超过 N 时让基准测试失败（同时开启检测）</li>
+ *   <li>{@code -Dpinning.failMs=X} - 总钉住时间超过 X 毫秒时让基准测试失败（同时开启检测）</li>
+ * </ul>
+ */
+public final class PinningMonitor implements AutoCloseable {
+
+    /** 每个栈签名保留的应用栈帧数 */
+    private static final int FRAMES_PER_SIGNATURE = 3;
+
+    private final RecordingStream stream;
+    private final LongAdder pinnedCount = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final LongAdder submitFailed = new LongAdder();
+    private final Map<String, LongAdder> pinnedBySite = new ConcurrentHashMap<>();
+
+    /**
+     * 启动 JFR 事件流
+     *
+     * @param threshold 钉住时长阈值，低于该值的事件不记录
+     */
+    public PinningMonitor(Duration threshold) {
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.enable("jdk.VirtualThreadSubmitFailed").withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.onEvent("jdk.VirtualThreadSubmitFailed", e -> submitFailed.increment());
+        stream.startAsync();
+    }
+
+    /**
+     * 根据系统属性创建检测器，未开启时返回 {@code null}
+     *
+     * <p>设置了 {@code pinning.failCount} 或 {@code pinning.failMs} 时即视为开启，与独立测试工具一致，
+     * 避免失败阈值在未加 {@code -Djfr.pinning=true} 时被静默忽略。
+     *
+     * @return 检测器实例，或 {@code null}
+     */
+    public static PinningMonitor fromSystemProperties() {
+        boolean enabled = Boolean.getBoolean("jfr.pinning")
+                || System.getProperty("pinning.failCount") != null
+                || System.getProperty("pinning.failMs") != null;
+        if (!enabled) {
+            return null;
+        }
+        double thresholdMs = Double.parseDouble(System.getProperty("jfr.pinningThresholdMs", "0"));
+        return new PinningMonitor(Duration.ofNanos((long) (thresholdMs * 1_000_000)));
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+        pinnedBySite.computeIfAbsent(signature(event.getStackTrace()), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * 提取栈签名：跳过 JDK 内部帧，保留前几个应用帧（阻塞点 &lt;- 持有 monitor 的调用者）
+     */
+    private static String signature(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<no stack trace>";
+        }
+        StringBuilder sb = new StringBuilder();
+        int kept = 0;
+        for (RecordedFrame f : stackTrace.getFrames()) {
+            if (!f.isJavaFrame()) {
+                continue;
+            }
+            String type = f.getMethod().getType().getName();
+            if (isJdkFrame(type)) {
+                continue;
+            }
+            if (kept > 0) {
+                sb.append(" <- ");
+            }
+            sb.append(type).append('.').append(f.getMethod().getName()).append(':').append(f.getLineNumber());
+            if (++kept == FRAMES_PER_SIGNATURE) {
+                break;
+            }
+        }
+        if (kept == 0) {
+            RecordedFrame top = stackTrace.getFrames().get(0);
+            return top.getMethod().getType().getName() + "." + top.getMethod().getName();
+        }
+        return sb.toString();
+    }
+
+    private static boolean isJdkFrame(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.") || type.startsWith("com.sun.");
+    }
+
+    /**
+     * 停止事件流（先刷出已缓冲的事件）并返回汇总
+     *
+     * @return 钉住汇总
+     */
+    public Report stop() {
+        stream.stop();
+        List<Map.Entry<String, Long>> sites = pinnedBySite.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .toList();
+        return new Report(pinnedCount.sum(), pinnedNanos.sum(), submitFailed.sum(), sites);
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+
+    /**
+     * 停止检测、输出汇总，并在超过系统属性中配置的阈值时抛出异常
+     *
+     * <p>在 JMH 的 {@code @TearDown} 中抛出异常会使该基准测试失败。
+     *
+     * @param label 输出标签（通常为基准测试名）
+     * @throws IllegalStateException 当钉住次数或钉住时间超过阈值时
+     */
+    public void stopAndCheck(String label) {
+        try {
+            Report report = stop();
+            report.print(label);
+            long maxCount = Long.getLong("pinning.failCount", -1L);
+            double maxMillis = Double.parseDouble(System.getProperty("pinning.failMs", "-1"));
+            if (report.exceeds(maxCount, maxMillis)) {
+                throw new IllegalStateException(String.format(Locale.ROOT,
+                        "%s: virtual-thread pinning exceeded threshold (events=%d, pinnedTotal=%.3f ms)",
+                        label, report.pinnedCount(), report.pinnedMillis()));
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 钉住汇总
+     *
+     * @param pinnedCount 钉住事件数
+     * @param pinnedNanos 总钉住时间（纳秒）
+     * @param submitFailed 提交失败事件数
+     * @param sites 栈签名及次数，按次数降序
+     */
+    public record Report(long pinnedCount, long pinnedNanos, long submitFailed, List<Map.Entry<String, Long>> sites) {
+
+        /** 总钉住时间（毫秒） */
+        public double pinnedMillis() {
+            return pinnedNanos / 1_000_000.0;
+        }
+
+        /** 是否超过阈值（阈值 &lt; 0 表示不检查该项） */
+        public boolean exceeds(long maxCount, double maxMillis) {
+            return (maxCount >= 0 && pinnedCount > maxCount) || (maxMillis >= 0 && pinnedMillis() > maxMillis);
+        }
+
+        /** 输出汇总及前 5 个栈签名 */
+        public void print(String label) {
+            System.out.printf(Locale.ROOT, "%n[pinning] %s -> events=%d, pinnedTotal=%.3f ms, submitFailed=%d%n",
+                    label, pinnedCount, pinnedMillis(), submitFailed);
+            sites.stream().limit(5).forEach(e ->
+                    System.out.printf(Locale.ROOT, "[pinning]     %6d x %s%n", e.getValue(), e.getKey()));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.benchmark;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.JavaFlightRecorderProfiler;
+import org.openjdk.jmh.profile.LinuxPerfAsmProfiler;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * 带分析器的 JMH 启动器
+ *
+ * <p>{@link ThreadBenchmark#main} 等入口只附带 GC 分析器；此启动器按参数开启 JMH 自带的分析器，
+ * 把结果写成 JSON，并把 JFR 记录转换成每个基准一份的折叠栈（collapsed stacks）文件，
+ * 不用手动挂工具就能看到线程池在锁竞争与分配上的开销。
+ *
+ * <p>参数（均为 {@code key=value}，其余参数作为基准测试的 include 正则）：
+ * <ul>
+ *   <li>{@code prof=gc,stack,jfr,perfnorm,perfasm} - 开启的分析器，默认 {@code gc}；
+ *       当前环境不可用的分析器（非 Linux、没有 {@code perf}、没有 JFR）会被跳过并提示</li>
+ *   <li>{@code json=target/jmh-result.json} - JSON 结果文件</li>
+ *   <li>{@code out=target/profiles} - JFR 记录与折叠栈的输出目录</li>
+ * </ul>
+ *
+ * <p>每个 JFR 记录旁生成三份折叠栈，每行 {@code frame;frame;...;frame weight}，
+ * 可直接交给 {@code flamegraph.pl}、speedscope 或 IDEA 生成火焰图：
+ * <ul>
+ *   <li>{@code *-cpu.collapsed} - {@code jdk.ExecutionSample}，权重为采样数</li>
+ *   <li>{@code *-lock.collapsed} - {@code jdk.JavaMonitorEnter} 与 {@code jdk.ThreadPark}，权重为阻塞微秒数</li>
+ *   <li>{@code *-alloc.collapsed} - {@code jdk.ObjectAllocationSample}，权重为估算的分配字节数</li>
+ * </ul>
+ *
+ * <p>运行方式：
+ * <pre>{@code
+ * java -cp target/benchmarks.jar com.example.benchmark.ProfilingLauncher ThreadBenchmark prof=gc,jfr,perfnorm
+ * flamegraph.pl target/profiles/.../profile-lock.collapsed > lock.svg
+ * }</pre>
+ */
+public final class ProfilingLauncher {
+
+    /**
+     * 折叠栈中保留的最大栈深度
+     */
+    private static final int MAX_FRAMES = 64;
+
+    private ProfilingLauncher() {
+    }
+
+    /**
+     * 启动器入口
+     *
+     * @param args 见类注释
+     * @throws RunnerException 当基准测试运行失败时抛出
+     * @throws IOException 当转换 JFR 记录失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        List<String> profilers = List.of("gc");
+        String json = "target/jmh-result.json";
+        Path out = Path.of("target", "profiles");
+        List<String> includes = new ArrayList<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? "" : arg.substring(0, eq);
+            String value = eq < 0 ? arg : arg.substring(eq + 1);
+            switch (key) {
+                case "prof" -> profilers = List.of(value.split(","));
+                case "json" -> json = value;
+                case "out" -> out = Path.of(value);
+                default -> includes.add(arg);
+            }
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .resultFormat(ResultFormatType.JSON)
+                .result(json);
+        if (includes.isEmpty()) {
+            builder.include(ThreadBenchmark.class.getSimpleName());
+        }
+        includes.forEach(builder::include);
+
+        boolean jfr = false;
+        for (String name : profilers) {
+            Class<? extends Profiler> profiler = profiler(name);
+            if (profiler == null) {
+                System.out.println("Unknown profiler, skipped: " + name);
+                continue;
+            }
+            String unavailable = unavailableReason(name);
+            if (unavailable != null) {
+                System.out.println("Profiler " + name + " skipped: " + unavailable);
+                continue;
+            }
+            if (profiler == JavaFlightRecorderProfiler.class) {
+                // profile 配置开启锁与分配事件；每个基准各写一份记录到 out 目录下
+                builder.addProfiler(profiler, "dir=" + out.toAbsolutePath() + ";configName=profile");
+                jfr = true;
+            } else {
+                builder.addProfiler(profiler);
+            }
+        }
+
+        new Runner(builder.build()).run();
+        System.out.println("JSON results: " + new File(json).getAbsolutePath());
+
+        if (jfr && Files.isDirectory(out)) {
+            List<Path> recordings;
+            try (Stream<Path> files = Files.walk(out)) {
+                recordings = files.filter(p -> p.toString().endsWith(".jfr")).toList();
+            }
+            for (Path recording : recordings) {
+                writeCollapsed(recording);
+            }
+        }
+    }
+
+    private static Class<? extends Profiler> profiler(String name) {
+        return switch (name) {
+            case "gc" -> GCProfiler.class;
+            case "stack" -> StackProfiler.class;
+            case "jfr" -> JavaFlightRecorderProfiler.class;
+            case "perfnorm" -> LinuxPerfNormProfiler.class;
+            case "perfasm" -> LinuxPerfAsmProfiler.class;
+            default -> null;
+        };
+    }
+
+    /**
+     * 分析器在当前环境不可用的原因，可用时返回 {@code null}
+     */
+    private static String unavailableReason(String name) {
+        return switch (name) {
+            case "jfr" -> ModuleLayer.boot().findModule("jdk.jfr").isPresent() ? null : "JFR is not available in this JDK";
+            case "perfnorm", "perfasm" -> {
+                if (!System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux")) {
+                    yield "requires Linux perf";
+                }
+                boolean perf = Stream.of(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                        .anyMatch(dir -> Files.isExecutable(Path.of(dir, "perf")));
+                yield perf ? null : "perf not found on PATH";
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * 把一份 JFR 记录转换成 CPU、锁、分配三份折叠栈文件
+     *
+     * @param recording JFR 记录文件
+     * @throws IOException 读取或写入失败时抛出
+     */
+    static void writeCollapsed(Path recording) throws IOException {
+        Map<String, Map<String, Long>> stacks = new LinkedHashMap<>();
+        stacks.put("cpu", new TreeMap<>());
+        stacks.put("lock", new TreeMap<>());
+        stacks.put("alloc", new TreeMap<>());
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> add(stacks.get("cpu"), event, e -> 1);
+                    case "jdk.JavaMonitorEnter", "jdk.ThreadPark" ->
+                            add(stacks.get("lock"), event, e -> e.getDuration().toNanos() / 1_000);
+                    case "jdk.ObjectAllocationSample" -> add(stacks.get("alloc"), event, e -> e.getLong("weight"));
+                    default -> {
+                        // 其他事件不转换
+                    }
+                }
+            }
+        }
+
+        String base = recording.getFileName().toString().replaceFirst("\\.jfr$", "");
+        for (Map.Entry<String, Map<String, Long>> entry : stacks.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            Path target = recording.resolveSibling(base + "-" + entry.getKey() + ".collapsed");
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(target))) {
+                entry.getValue().forEach((stack, weight) -> writer.println(stack + " " + weight));
+            }
+            System.out.println("Collapsed stacks: " + target.toAbsolutePath());
+        }
+    }
+
+    private static void add(Map<String, Long> stacks, RecordedEvent event, ToLongFunction<RecordedEvent> weight) {
+        RecordedStackTrace trace = event.getStackTrace();
+        long w = weight.applyAsLong(event);
+        if (trace == null || w <= 0) {
+            return;
+        }
+        stacks.merge(collapse(trace), w, Long::sum);
+    }
+
+    /**
+     * 折叠栈：从根到叶，以分号连接 {@code 类名.方法名}
+     */
+    private static String collapse(RecordedStackTrace trace) {
+        List<RecordedFrame> frames = trace.getFrames();
+        int depth = Math.min(frames.size(), MAX_FRAMES);
+        StringBuilder sb = new StringBuilder();
+        for (int i = depth - 1; i >= 0; i--) {
+            RecordedFrame frame = frames.get(i);
+            if (sb.length() > 0) {
+                sb.append(';');
+            }
+            sb.append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName());
+        }
+        return sb.toString();
+    }
+}
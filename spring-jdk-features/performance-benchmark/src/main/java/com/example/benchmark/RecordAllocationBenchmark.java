@@ -0,0 +1,335 @@
+package com.example.benchmark;
+
+import com.example.jdk21.patternmatching.Circle;
+import com.example.jdk21.patternmatching.Point;
+import com.example.jdk21.patternmatching.Rectangle;
+import com.example.jdk21.patternmatching.Triangle;
+import com.example.jdk9to17.jdk16.RecordDemo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热路径分配基准：record 与传统 POJO 的构造、equals、hashCode、toString 开销
+ *
+ * <p>覆盖的类型：
+ * <ul>
+ *   <li>{@link UserOld} / {@link UserNew} - 与 {@code tech.legend.learn.RecordsComparison} 中的同名类型逐字一致；
+ *       该类位于本 reactor 之外的独立工程 jdk21-features-comparison，因此在此保留一份副本</li>
+ *   <li>{@link RecordDemo.User}（带校验的紧凑构造器）、{@link RecordDemo.Product}、{@link RecordDemo.ApiResponse}</li>
+ *   <li>{@link Point} 与嵌套了 {@code Point} 的 {@link Circle} / {@link Rectangle} / {@link Triangle}</li>
+ * </ul>
+ *
+ * <p>构造基准分两种：
+ * <ul>
+ *   <li>{@code new*} - 对象返回给 JMH（逃逸），必然在堆上分配</li>
+ *   <li>{@code local*} - 对象只在方法内使用，只返回由字段算出的值；逃逸分析开启时可被标量替换，
+ *       {@code gc.alloc.rate.norm} 接近 0</li>
+ * </ul>
+ *
+ * <p>{@link #main} 分别以 {@code -XX:+DoEscapeAnalysis} 与 {@code -XX:-DoEscapeAnalysis} 各运行一轮（均附带
+ * {@code -prof gc}），最后并排输出每次调用的分配字节数，两者相差即为被标量替换掉的分配。
+ * 命令行运行 jar 时：
+ * <pre>{@code
+ * java -jar target/benchmarks.jar RecordAllocationBenchmark -prof gc
+ * java -jar target/benchmarks.jar RecordAllocationBenchmark -prof gc -jvmArgsAppend -XX:-DoEscapeAnalysis
+ * }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RecordAllocationBenchmark {
+
+    /**
+     * 输入数组长度（2 的幂），按下标轮转读取，防止 JIT 把输入当作常量折叠
+     */
+    private static final int SIZE = 1_024;
+
+    private final String[] names = new String[SIZE];
+    private final int[] ints = new int[SIZE];
+    private final UserOld[] oldUsers = new UserOld[SIZE];
+    private final UserOld[] oldUsersCopy = new UserOld[SIZE];
+    private final UserNew[] newUsers = new UserNew[SIZE];
+    private final UserNew[] newUsersCopy = new UserNew[SIZE];
+    private final RecordDemo.User[] demoUsers = new RecordDemo.User[SIZE];
+    private final RecordDemo.User[] demoUsersCopy = new RecordDemo.User[SIZE];
+    private final Circle[] circles = new Circle[SIZE];
+    private final Circle[] circlesCopy = new Circle[SIZE];
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < SIZE; i++) {
+            names[i] = "user-" + i;
+            ints[i] = i;
+            oldUsers[i] = new UserOld(names[i], 20 + i % 50);
+            oldUsersCopy[i] = new UserOld(new String(names[i]), 20 + i % 50);
+            newUsers[i] = new UserNew(names[i], 20 + i % 50);
+            newUsersCopy[i] = new UserNew(new String(names[i]), 20 + i % 50);
+            demoUsers[i] = new RecordDemo.User((long) i, names[i], names[i] + "@example.com");
+            demoUsersCopy[i] = new RecordDemo.User((long) i, new String(names[i]), names[i] + "@example.com");
+            circles[i] = new Circle(new Point(i, -i), i % 100 + 1);
+            circlesCopy[i] = new Circle(new Point(i, -i), i % 100 + 1);
+        }
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+
+    // ---------------------------------------------------------------- 构造（逃逸）
+
+    @Benchmark
+    public UserOld newUserOld() {
+        int i = next();
+        return new UserOld(names[i], ints[i]);
+    }
+
+    @Benchmark
+    public UserNew newUserNew() {
+        int i = next();
+        return new UserNew(names[i], ints[i]);
+    }
+
+    @Benchmark
+    public RecordDemo.User newDemoUser() {
+        int i = next();
+        return new RecordDemo.User((long) ints[i], names[i], names[i]);
+    }
+
+    @Benchmark
+    public RecordDemo.Product newProduct() {
+        int i = next();
+        return RecordDemo.Product.of(names[i], names[i], ints[i] * 0.5);
+    }
+
+    @Benchmark
+    public RecordDemo.ApiResponse<UserNew> newApiResponse() {
+        int i = next();
+        return new RecordDemo.ApiResponse<>(200, "OK", newUsers[i]);
+    }
+
+    @Benchmark
+    public Point newPoint() {
+        int i = next();
+        return new Point(ints[i], -ints[i]);
+    }
+
+    @Benchmark
+    public Circle newCircle() {
+        int i = next();
+        return new Circle(new Point(ints[i], -ints[i]), ints[i]);
+    }
+
+    @Benchmark
+    public Rectangle newRectangle() {
+        int i = next();
+        return new Rectangle(new Point(ints[i], ints[i]), new Point(ints[i] + 10, ints[i] - 10));
+    }
+
+    @Benchmark
+    public Triangle newTriangle() {
+        int i = next();
+        return new Triangle(new Point(0, 0), new Point(ints[i], 0), new Point(0, ints[i]));
+    }
+
+    // ---------------------------------------------------------------- 构造（不逃逸，可被标量替换）
+
+    @Benchmark
+    public int localUserOld() {
+        int i = next();
+        UserOld user = new UserOld(names[i], ints[i]);
+        return user.getAge() + user.getName().length();
+    }
+
+    @Benchmark
+    public int localUserNew() {
+        int i = next();
+        UserNew user = new UserNew(names[i], ints[i]);
+        return user.age() + user.name().length();
+    }
+
+    @Benchmark
+    public int localDemoUser() {
+        int i = next();
+        RecordDemo.User user = new RecordDemo.User((long) ints[i], names[i], names[i]);
+        return user.id().intValue() + user.name().length();
+    }
+
+    @Benchmark
+    public long localCircle() {
+        int i = next();
+        Circle circle = new Circle(new Point(ints[i], -ints[i]), ints[i]);
+        return (long) circle.radius() * circle.radius() + circle.center().x();
+    }
+
+    @Benchmark
+    public int localTriangle() {
+        int i = next();
+        Triangle t = new Triangle(new Point(0, 0), new Point(ints[i], 0), new Point(0, ints[i]));
+        return Math.abs((t.p2().x() - t.p1().x()) * (t.p3().y() - t.p1().y())
+                - (t.p3().x() - t.p1().x()) * (t.p2().y() - t.p1().y()));
+    }
+
+    // ---------------------------------------------------------------- equals（内容相同、引用不同）
+
+    @Benchmark
+    public boolean equalsUserOld() {
+        int i = next();
+        return oldUsers[i].equals(oldUsersCopy[i]);
+    }
+
+    @Benchmark
+    public boolean equalsUserNew() {
+        int i = next();
+        return newUsers[i].equals(newUsersCopy[i]);
+    }
+
+    @Benchmark
+    public boolean equalsDemoUser() {
+        int i = next();
+        return demoUsers[i].equals(demoUsersCopy[i]);
+    }
+
+    @Benchmark
+    public boolean equalsCircle() {
+        int i = next();
+        return circles[i].equals(circlesCopy[i]);
+    }
+
+    // ---------------------------------------------------------------- hashCode
+
+    @Benchmark
+    public int hashCodeUserOld() {
+        return oldUsers[next()].hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeUserNew() {
+        return newUsers[next()].hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeDemoUser() {
+        return demoUsers[next()].hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeCircle() {
+        return circles[next()].hashCode();
+    }
+
+    // ---------------------------------------------------------------- toString
+
+    @Benchmark
+    public String toStringUserOld() {
+        return oldUsers[next()].toString();
+    }
+
+    @Benchmark
+    public String toStringUserNew() {
+        return newUsers[next()].toString();
+    }
+
+    @Benchmark
+    public String toStringCircle() {
+        return circles[next()].toString();
+    }
+
+    /**
+     * 传统不可变 POJO，与 {@code RecordsComparison.UserOld} 一致（{@code Objects.hash} 会分配可变参数数组）
+     */
+    public static class UserOld {
+        private final String name;
+        private final int age;
+
+        public UserOld(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            UserOld userOld = (UserOld) o;
+            return age == userOld.age && Objects.equals(name, userOld.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, age);
+        }
+
+        @Override
+        public String toString() {
+            return "UserOld{" +
+                    "name='" + name + '\'' +
+                    ", age=" + age +
+                    '}';
+        }
+    }
+
+    /**
+     * 与 {@code RecordsComparison.UserNew} 一致的 record
+     */
+    public record UserNew(String name, int age) {
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>逃逸分析开 / 关各运行一轮，然后按基准方法并排输出每次调用的分配字节数。
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Map<String, double[]> allocations = new LinkedHashMap<>();
+        String[] flags = {"-XX:+DoEscapeAnalysis", "-XX:-DoEscapeAnalysis"};
+        for (int f = 0; f < flags.length; f++) {
+            Options opt = new OptionsBuilder()
+                    .include(RecordAllocationBenchmark.class.getSimpleName())
+                    .jvmArgsAppend(flags[f])
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            Collection<RunResult> results = new Runner(opt).run();
+            for (RunResult r : results) {
+                String name = r.getParams().getBenchmark().replaceFirst(".*\\.", "");
+                Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+                allocations.computeIfAbsent(name, k -> new double[]{Double.NaN, Double.NaN})[f] =
+                        alloc == null ? Double.NaN : alloc.getScore();
+            }
+        }
+
+        System.out.println();
+        System.out.println("Allocation per call (gc.alloc.rate.norm, B/op):");
+        System.out.printf(Locale.ROOT, "  %-20s %10s %10s  %s%n", "benchmark", "EA on", "EA off", "");
+        allocations.forEach((name, bytes) -> System.out.printf(Locale.ROOT, "  %-20s %10.1f %10.1f  %s%n",
+                name, bytes[0], bytes[1],
+                bytes[0] < 1.0 && bytes[1] >= 1.0 ? "scalar-replaced" : ""));
+    }
+}
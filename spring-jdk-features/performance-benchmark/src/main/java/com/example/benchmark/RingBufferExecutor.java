@@ -0,0 +1,196 @@
+package com.example.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于有界无锁 MPMC 环形队列的固定大小线程池
+ *
+ * <p>用于与 {@link java.util.concurrent.Executors#newFixedThreadPool(int)}（内部是 {@code LinkedBlockingQueue}）对比：
+ * <ul>
+ *   <li>提交与取任务都不加锁、不分配队列节点</li>
+ *   <li>工作线程遇到空队列、提交者遇到满队列时按 {@link WaitStrategy} 等待</li>
+ *   <li>没有条件变量，也就没有唤醒开销；代价是空闲时的 CPU 占用（SPIN / YIELD）或唤醒延迟（PARK / BACKOFF）</li>
+ * </ul>
+ *
+ * @see MpmcRingQueue
+ */
+public final class RingBufferExecutor extends AbstractExecutorService {
+
+    /**
+     * 等待策略
+     */
+    public enum WaitStrategy {
+        /** 忙等（{@link Thread#onSpinWait()}），延迟最低，空闲时占满 CPU */
+        SPIN,
+        /** 每次让出 CPU */
+        YIELD,
+        /** 每次 park 固定的短时间 */
+        PARK,
+        /** 先自旋、再让出、最后以指数增长的时长 park（上限 1ms） */
+        BACKOFF;
+
+        private static final int SPINS = 100;
+        private static final int YIELDS = 10;
+        private static final long PARK_NANOS = 10_000;
+        private static final long MAX_BACKOFF_NANOS = 1_000_000;
+
+        /**
+         * 第 attempt 次（从 0 开始）等待
+         *
+         * @param attempt 连续等待次数
+         */
+        void idle(int attempt) {
+            switch (this) {
+                case SPIN -> Thread.onSpinWait();
+                case YIELD -> Thread.yield();
+                case PARK -> LockSupport.parkNanos(PARK_NANOS);
+                case BACKOFF -> {
+                    if (attempt < SPINS) {
+                        Thread.onSpinWait();
+                    } else if (attempt < SPINS + YIELDS) {
+                        Thread.yield();
+                    } else {
+                        int shift = Math.min(attempt - SPINS - YIELDS, 7);
+                        LockSupport.parkNanos(Math.min(MAX_BACKOFF_NANOS, PARK_NANOS << shift));
+                    }
+                }
+            }
+        }
+
+        /**
+         * 按名称（忽略大小写）解析
+         *
+         * @param name 策略名称
+         * @return 等待策略
+         */
+        public static WaitStrategy of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final MpmcRingQueue<Runnable> queue;
+    private final WaitStrategy waitStrategy;
+    private final List<Thread> workers = new ArrayList<>();
+    private final CountDownLatch terminated;
+    /**
+     * 已通过关闭检查、尚未完成入队的提交数；工作线程只在它为 0 且队列为空时退出，避免任务在工作线程退出后才入队
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
+    private volatile boolean shutdown;
+    private volatile boolean stopNow;
+
+    /**
+     * 创建并启动工作线程
+     *
+     * @param threads      工作线程数
+     * @param capacity     队列容量
+     * @param waitStrategy 等待策略
+     */
+    public RingBufferExecutor(int threads, int capacity, WaitStrategy waitStrategy) {
+        this.queue = new MpmcRingQueue<>(capacity);
+        this.waitStrategy = waitStrategy;
+        int n = Math.max(1, threads);
+        this.terminated = new CountDownLatch(n);
+        for (int i = 0; i < n; i++) {
+            workers.add(Thread.ofPlatform().name("ring-worker-" + i).start(this::work));
+        }
+    }
+
+    /**
+     * 提交任务；队列已满时按等待策略重试（背压）
+     *
+     * @param task 任务
+     * @throws RejectedExecutionException 执行器已关闭时抛出
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        // 先登记再检查关闭标志：看到 shutdown=false 的提交者一定会被退出中的工作线程看到
+        submitting.incrementAndGet();
+        try {
+            int attempt = 0;
+            do {
+                if (shutdown) {
+                    throw new RejectedExecutionException("executor is shut down");
+                }
+                if (attempt > 0) {
+                    waitStrategy.idle(attempt - 1);
+                }
+                attempt++;
+            } while (!queue.offer(task));
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private void work() {
+        try {
+            int attempt = 0;
+            while (!stopNow) {
+                Runnable task = queue.poll();
+                if (task != null) {
+                    attempt = 0;
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), t);
+                    }
+                    continue;
+                }
+                if (shutdown && submitting.get() == 0 && queue.isEmpty()) {
+                    break;
+                }
+                waitStrategy.idle(attempt++);
+            }
+        } finally {
+            terminated.countDown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * 立即停止：中断工作线程，返回尚未执行的任务
+     *
+     * @return 尚未执行的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopNow = true;
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+        List<Runnable> pending = new ArrayList<>();
+        for (Runnable r; (r = queue.poll()) != null; ) {
+            pending.add(r);
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.benchmark;
+
+import com.example.jdk21.patternmatching.Circle;
+import com.example.jdk21.patternmatching.Point;
+import com.example.jdk21.patternmatching.Rectangle;
+import com.example.jdk21.patternmatching.Shape;
+import com.example.jdk21.patternmatching.ShapeBatch;
+import com.example.jdk21.patternmatching.Triangle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图形几何批量计算基准：record + switch vs 列式 {@link ShapeBatch}
+ *
+ * <p>同一组随机图形（圆、矩形、三角形各约三分之一）分别以两种形式计算：
+ * <ul>
+ *   <li>{@code records*} - 遍历 {@code List<Shape>}，用 record 解构 switch 计算，每个图形要追逐 2~4 个对象引用</li>
+ *   <li>{@code batch*} - 遍历 {@link ShapeBatch} 的基本类型数组，不分配对象</li>
+ * </ul>
+ * 两者调用 {@link ShapeBatch} 中同一组逐图形内核，差别只在数据布局；点包含的查询点是非 final 的状态字段，
+ * 不会被 JIT 当作常量折叠。
+ *
+ * <p>record 列表在 Setup 中打乱顺序，使对象在堆中的相对位置接近真实服务中逐个创建的情况。
+ * 结果为遍历整批一次的平均耗时（微秒），除以 {@code size} 即每个图形的耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShapeGeometryBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private List<Shape> shapes;
+    private ShapeBatch batch;
+    private double[] areas;
+    private boolean[] hits;
+
+    /** 点包含的查询点：非 final 的状态字段，JIT 不能把它折叠成常量 */
+    private int qx;
+    private int qy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        shapes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int x = random.nextInt(-10_000, 10_000);
+            int y = random.nextInt(-10_000, 10_000);
+            int w = random.nextInt(1, 500);
+            int h = random.nextInt(1, 500);
+            if (i == 0) {
+                // 查询点取第一个图形的锚点（圆心 / 矩形角 / 三角形顶点），保证至少命中一个图形
+                qx = x;
+                qy = y;
+            }
+            shapes.add(switch (random.nextInt(3)) {
+                case 0 -> new Circle(new Point(x, y), w);
+                case 1 -> new Rectangle(new Point(x, y), new Point(x + w, y + h));
+                default -> new Triangle(new Point(x, y), new Point(x + w, y), new Point(x, y + h));
+            });
+        }
+        Collections.shuffle(shapes, new Random(7));
+        batch = ShapeBatch.of(shapes);
+        areas = new double[size];
+        hits = new boolean[size];
+
+        if (Math.abs(recordsTotalArea() - batchTotalArea()) > 1e-6 * Math.abs(batchTotalArea())
+                || recordsContains() != batchContains()
+                || batchContainsPerShape() != batchContains()
+                || !recordsBounds().equals(batchBounds())) {
+            throw new IllegalStateException("ShapeBatch results differ from the record implementation");
+        }
+    }
+
+    // ---------------------------------------------------------------- 面积
+
+    @Benchmark
+    public double recordsTotalArea() {
+        double sum = 0;
+        for (Shape shape : shapes) {
+            sum += switch (shape) {
+                case Circle(Point c, int r) -> Math.PI * r * r;
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> ShapeBatch.rectangleArea(x1, y1, x2, y2);
+                case Triangle(Point(int x1, int y1), Point(int x2, int y2), Point(int x3, int y3)) ->
+                        ShapeBatch.triangleArea(x1, y1, x2, y2, x3, y3);
+            };
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double batchTotalArea() {
+        return batch.totalArea();
+    }
+
+    @Benchmark
+    public double[] batchAreaPerShape() {
+        batch.area(areas);
+        return areas;
+    }
+
+    // ---------------------------------------------------------------- 包围盒
+
+    @Benchmark
+    public Rectangle recordsBounds() {
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (Shape shape : shapes) {
+            switch (shape) {
+                case Circle(Point(int x, int y), int radius) -> {
+                    long r = Math.abs((long) radius);
+                    minX = Math.min(minX, x - r);
+                    maxX = Math.max(maxX, x + r);
+                    minY = Math.min(minY, y - r);
+                    maxY = Math.max(maxY, y + r);
+                }
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) -> {
+                    minX = Math.min(minX, Math.min(x1, x2));
+                    maxX = Math.max(maxX, Math.max(x1, x2));
+                    minY = Math.min(minY, Math.min(y1, y2));
+                    maxY = Math.max(maxY, Math.max(y1, y2));
+                }
+                case Triangle(Point(int x1, int y1), Point(int x2, int y2), Point(int x3, int y3)) -> {
+                    minX = Math.min(minX, Math.min(x1, Math.min(x2, x3)));
+                    maxX = Math.max(maxX, Math.max(x1, Math.max(x2, x3)));
+                    minY = Math.min(minY, Math.min(y1, Math.min(y2, y3)));
+                    maxY = Math.max(maxY, Math.max(y1, Math.max(y2, y3)));
+                }
+            }
+        }
+        return new Rectangle(
+                new Point(Math.clamp(minX, Integer.MIN_VALUE, Integer.MAX_VALUE), Math.clamp(minY, Integer.MIN_VALUE, Integer.MAX_VALUE)),
+                new Point(Math.clamp(maxX, Integer.MIN_VALUE, Integer.MAX_VALUE), Math.clamp(maxY, Integer.MIN_VALUE, Integer.MAX_VALUE)));
+    }
+
+    @Benchmark
+    public Rectangle batchBounds() {
+        return batch.bounds();
+    }
+
+    // ---------------------------------------------------------------- 点包含
+
+    @Benchmark
+    public int recordsContains() {
+        int x = qx;
+        int y = qy;
+        int count = 0;
+        for (Shape shape : shapes) {
+            boolean inside = switch (shape) {
+                case Circle(Point(int cx, int cy), int r) -> ShapeBatch.circleContains(cx, cy, r, x, y);
+                case Rectangle(Point(int x1, int y1), Point(int x2, int y2)) ->
+                        x >= Math.min(x1, x2) && x <= Math.max(x1, x2) && y >= Math.min(y1, y2) && y <= Math.max(y1, y2);
+                case Triangle(Point(int x1, int y1), Point(int x2, int y2), Point(int x3, int y3)) ->
+                        ShapeBatch.triangleContains(x1, y1, x2, y2, x3, y3, x, y);
+            };
+            count += inside ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * 与 {@link #recordsContains()} 对等：同一查询点，只计数
+     */
+    @Benchmark
+    public int batchContains() {
+        return batch.countContaining(qx, qy);
+    }
+
+    /**
+     * 额外输出逐个图形的结果到 {@code boolean[]}
+     */
+    @Benchmark
+    public int batchContainsPerShape() {
+        return batch.contains(qx, qy, hits);
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>运行方式：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar ShapeGeometryBenchmark
+     * java -jar target/benchmarks.jar ShapeGeometryBenchmark -p size=1000000 -prof gc
+     * }</pre>
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ShapeGeometryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
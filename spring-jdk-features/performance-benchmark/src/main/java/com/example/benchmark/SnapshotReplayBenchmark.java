@@ -0,0 +1,158 @@
+package com.example.benchmark;
+
+import com.example.jdk21.events.CompactingEventLog;
+import com.example.jdk21.events.UserStateStore;
+import com.example.jdk21.patternmatching.DomainEvent;
+import com.example.jdk21.patternmatching.UserCreated;
+import com.example.jdk21.patternmatching.UserDeleted;
+import com.example.jdk21.patternmatching.UserUpdated;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重启重建耗时基准：全量重放 vs 快照 + 尾部重放
+ *
+ * <p>事件流由 {@value #USERS} 个用户产生：约 2% {@link UserCreated}、97% {@link UserUpdated}
+ * （{@value #FIELDS} 个字段轮流更新）、1% {@link UserDeleted}（随后再创建）。
+ * <ul>
+ *   <li>{@link #fullReplay} - 从空状态依次折叠全部 {@code events} 个事件</li>
+ *   <li>{@link #snapshotPlusTail} - {@link CompactingEventLog#rebuild()}：复制最近的快照，再重放快照之后的尾部</li>
+ * </ul>
+ * 随着 {@code events} 增长，全量重放线性变慢；快照 + 尾部只与用户状态大小和 {@code snapshotInterval} 有关。
+ * 默认的 {@code events} 都不是 {@code snapshotInterval} 的整数倍，每组都留下 10,000 个事件的尾部需要重放。
+ *
+ * <p>Setup 中逐个用户校验两者重建出的状态（邮箱、字段、版本）与计数一致，并输出原始事件数、压缩后事件数与尾部长度。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class SnapshotReplayBenchmark {
+
+    /** 用户数 */
+    private static final int USERS = 10_000;
+
+    /** 每个用户轮流更新的字段数 */
+    private static final int FIELDS = 8;
+
+    @Param({"100000", "1000000", "4000000"})
+    public int events;
+
+    @Param({"30000"})
+    public int snapshotInterval;
+
+    private String[] userIds;
+    private List<DomainEvent> history;
+    private CompactingEventLog log;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        userIds = new String[USERS];
+        String[] fields = new String[FIELDS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = "user-" + i;
+        }
+        for (int i = 0; i < FIELDS; i++) {
+            fields[i] = "field-" + i;
+        }
+
+        history = new ArrayList<>(events);
+        boolean[] alive = new boolean[USERS];
+        for (int i = 0; i < events; i++) {
+            int u = random.nextInt(USERS);
+            int roll = random.nextInt(100);
+            DomainEvent event;
+            if (!alive[u] || roll < 2) {
+                event = new UserCreated(userIds[u], userIds[u] + "@example.com");
+                alive[u] = true;
+            } else if (roll < 3) {
+                event = new UserDeleted(userIds[u]);
+                alive[u] = false;
+            } else {
+                event = new UserUpdated(userIds[u], fields[random.nextInt(FIELDS)], "v" + i);
+            }
+            history.add(event);
+        }
+
+        log = new CompactingEventLog(snapshotInterval);
+        history.forEach(log::append);
+
+        UserStateStore full = fullReplay();
+        UserStateStore rebuilt = snapshotPlusTail();
+        verifySameState(full, rebuilt);
+        System.out.printf(Locale.ROOT, "%n  events=%d, compacted=%d, tail=%d, live users=%d%n",
+                events, log.compactedEvents().size(), log.tailSize(), full.size());
+    }
+
+    /**
+     * 校验两份状态逐个用户相同（{@link com.example.jdk21.events.UserState} 含邮箱、全部字段与版本），计数也相同
+     */
+    private void verifySameState(UserStateStore full, UserStateStore rebuilt) {
+        if (full.size() != rebuilt.size() || full.applied() != rebuilt.applied()
+                || full.orphanUpdates() != rebuilt.orphanUpdates()) {
+            throw new IllegalStateException(String.format(Locale.ROOT,
+                    "Counters differ: users %d/%d, applied %d/%d, orphanUpdates %d/%d",
+                    full.size(), rebuilt.size(), full.applied(), rebuilt.applied(),
+                    full.orphanUpdates(), rebuilt.orphanUpdates()));
+        }
+        for (String userId : userIds) {
+            if (!full.get(userId).equals(rebuilt.get(userId))) {
+                throw new IllegalStateException("State of " + userId + " differs: full replay " + full.get(userId)
+                        + ", rebuilt " + rebuilt.get(userId));
+            }
+        }
+    }
+
+    /**
+     * 从空状态折叠全部历史事件
+     *
+     * @return 重建出的状态
+     */
+    @Benchmark
+    public UserStateStore fullReplay() {
+        UserStateStore store = new UserStateStore();
+        store.applyAll(history);
+        return store;
+    }
+
+    /**
+     * 复制最近的快照并重放尾部事件
+     *
+     * @return 重建出的状态
+     */
+    @Benchmark
+    public UserStateStore snapshotPlusTail() {
+        return log.rebuild();
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>运行方式：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar SnapshotReplayBenchmark
+     * java -jar target/benchmarks.jar SnapshotReplayBenchmark -p events=1000000 -p snapshotInterval=30000,300000
+     * }</pre>
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SnapshotReplayBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
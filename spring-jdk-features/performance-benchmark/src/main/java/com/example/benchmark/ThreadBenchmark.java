@@ -1,11 +1,24 @@
 package com.example.benchmark;
 
+import com.example.common.concurrent.BoundedVirtualThreadExecutor;
 import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -16,9 +29,19 @@ import java.util.stream.IntStream;
  *
  * <p>此基准测试用于比较 Java 传统平台线程和 JDK 21 引入的虚拟线程在处理大量 I/O 密集型任务时的性能差异。
  *
+ * <p>负载形状通过 {@code @Param} 配置（命令行运行 jar 时用 {@code -p name=v1,v2} 覆盖）：
+ * <ul>
+ *   <li>{@code taskCount} - 每次调用提交的任务数</li>
+ *   <li>{@code blockMs} - 每个任务的阻塞时长（毫秒）</li>
+ *   <li>{@code workload} - 任务类型：{@code SLEEP} 纯阻塞；{@code CPU} 纯计算；{@code MIXED} 先计算再阻塞</li>
+ *   <li>{@code poolSize} - 平台线程池大小（只作用于 {@link #platformThreads} 与 {@link #ringBufferThreads}）</li>
+ * </ul>
+ * 注解中的默认值是给 CI 用的小矩阵（与原先硬编码的 10,000 任务 / 1ms / 100 线程一致）；
+ * 容量规划时用 {@code main} 的 {@code full} 参数展开完整矩阵，见 {@link #FULL_MATRIX} 与 {@link #FULL_MATRIX_CPU}。
+ *
  * <p>注解说明：
  * <ul>
- *   <li>@BenchmarkMode(Mode.AverageTime) - 测量平均执行时间</li>
+ *   <li>@BenchmarkMode({AverageTime, Throughput, SampleTime}) - 同时测量平均耗时、吞吐量与单次调用耗时分布（p50 / p99）</li>
  *   <li>@OutputTimeUnit(TimeUnit.MILLISECONDS) - 结果以毫秒为单位输出</li>
  *   <li>@State(Scope.Benchmark) - 所有线程共享同一个实例</li>
  *   <li>@Fork(1) - 使用单独的 JVM 进程运行测试</li>
@@ -28,7 +51,7 @@ import java.util.stream.IntStream;
  *
  * @see <a href="https://openjdk.org/jeps/444">JEP 444: Virtual Threads</a>
  */
-@BenchmarkMode(Mode.AverageTime)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput, Mode.SampleTime})
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
 @State(Scope.Benchmark)
 @Fork(1)
@@ -37,15 +60,130 @@ import java.util.stream.IntStream;
 public class ThreadBenchmark {
 
     /**
-     * 任务数量：每次基准测试执行 10,000 个任务
+     * 任务数量：每次基准调用提交的任务数
      * 用于模拟高并发场景下的线程处理能力
      */
-    private static final int TASK_COUNT = 10_000;
+    @Param({"10000"})
+    public int taskCount;
+
+    /**
+     * 每个任务的阻塞时长（毫秒），模拟 I/O 操作（如数据库查询、网络请求等）
+     */
+    @Param({"1"})
+    public int blockMs;
+
+    /**
+     * 任务类型：SLEEP / CPU / MIXED
+     */
+    @Param({"SLEEP"})
+    public String workload;
+
+    /**
+     * CPU 与 MIXED 任务每次执行的计算量（{@link Blackhole#consumeCPU(long)} 的 token 数，约数十微秒）
+     */
+    private static final long CPU_TOKENS = 20_000;
+
+    /**
+     * 容量规划用的完整参数矩阵，{@code main} 以 {@code full} 参数运行时使用
+     *
+     * <p>JMH 对参数做笛卡尔积，而 {@code CPU} 任务不阻塞，与 {@code blockMs} 交叉只会得到重复的运行；
+     * 因此 {@code CPU} 单独放在 {@link #FULL_MATRIX_CPU} 中，只以一个 {@code blockMs} 值运行。
+     */
+    static final Map<String, String[]> FULL_MATRIX = Map.of(
+            "taskCount", new String[]{"1000", "10000", "100000"},
+            "blockMs", new String[]{"1", "10", "50"},
+            "workload", new String[]{"SLEEP", "MIXED"},
+            "poolSize", new String[]{"50", "100", "200", "400"});
+
+    /**
+     * 完整矩阵中的 {@code CPU} 部分：{@code blockMs} 不参与计算，固定为一个值
+     */
+    static final Map<String, String[]> FULL_MATRIX_CPU = Map.of(
+            "taskCount", FULL_MATRIX.get("taskCount"),
+            "blockMs", new String[]{"1"},
+            "workload", new String[]{"CPU"},
+            "poolSize", FULL_MATRIX.get("poolSize"));
+
+    /**
+     * 环形队列线程池的队列容量
+     */
+    private static final int RING_CAPACITY = 1_024;
+
+    /**
+     * 有界虚拟线程执行器的排队上限
+     */
+    private static final int BOUNDED_MAX_QUEUED = 1_000;
+
+    /**
+     * 透传给 fork JVM 的钉住检测系统属性
+     */
+    private static final List<String> PINNING_PROPERTIES =
+            List.of("jfr.pinning", "jfr.pinningThresholdMs", "pinning.failCount", "pinning.failMs");
+
+    /**
+     * 可选的虚拟线程钉住检测器（{@code -Djfr.pinning=true} 或设置了 {@code pinning.fail*} 阈值时开启）
+     */
+    private PinningMonitor pinningMonitor;
+
+    /**
+     * 每轮 Trial 开始前按系统属性启动钉住检测
+     *
+     * @see PinningMonitor#fromSystemProperties()
+     */
+    @Setup(Level.Trial)
+    public void startPinningMonitor() {
+        pinningMonitor = PinningMonitor.fromSystemProperties();
+    }
+
+    /**
+     * 每轮 Trial 结束后输出钉住汇总，超过阈值时使该基准测试失败
+     *
+     * @param params 当前基准测试参数（用于输出标签）
+     */
+    @TearDown(Level.Trial)
+    public void stopPinningMonitor(BenchmarkParams params) {
+        if (pinningMonitor != null) {
+            pinningMonitor.stopAndCheck(params.getBenchmark());
+            pinningMonitor = null;
+        }
+    }
+
+    /**
+     * 平台线程池大小参数（虚拟线程基准不使用，因此单独放在一个 State 中，避免重复运行）
+     */
+    @State(Scope.Benchmark)
+    public static class PoolConfig {
+
+        /**
+         * 线程池中的平台线程数
+         */
+        @Param({"100"})
+        public int poolSize;
+    }
+
+    /**
+     * 执行一个任务：按 {@link #workload} 阻塞、计算，或先计算再阻塞
+     */
+    private void runTask() {
+        if (!"SLEEP".equals(workload)) {
+            Blackhole.consumeCPU(CPU_TOKENS);
+        }
+        if ("CPU".equals(workload)) {
+            return;
+        }
+        try {
+            // 模拟 I/O 操作（如数据库查询、网络请求等）
+            Thread.sleep(blockMs);
+        } catch (InterruptedException e) {
+            // 恢复中断状态，确保线程能够正确响应中断信号
+            Thread.currentThread().interrupt();
+        }
+    }
 
     /**
      * 使用传统平台线程执行任务的基准测试方法
      *
-     * <p>创建一个固定大小为 100 的线程池来执行 10,000 个任务。
+     * <p>创建一个固定大小为 {@code poolSize} 的线程池来执行 {@code taskCount} 个任务。
      * 由于线程池大小的限制，任务会在队列中等待可用线程。
      *
      * <p>特点：
@@ -56,22 +194,59 @@ public class ThreadBenchmark {
      *   <li>适合 CPU 密集型任务</li>
      * </ul>
      *
+     * @param pool 线程池大小参数
      * @see Executors#newFixedThreadPool(int)
      */
     @Benchmark
     @Threads(1)
-    public void platformThreads() {
-        try (ExecutorService executor = Executors.newFixedThreadPool(100)) {
-            IntStream.range(0, TASK_COUNT).forEach(i -> {
-                executor.submit(() -> {
-                    try {
-                        // 模拟 I/O 操作（如数据库查询、网络请求等）
-                        Thread.sleep(1);
-                    } catch (InterruptedException e) {
-                        // 恢复中断状态，确保线程能够正确响应中断信号
-                        Thread.currentThread().interrupt();
-                    }
-                });
+    public void platformThreads(PoolConfig pool) {
+        try (ExecutorService executor = Executors.newFixedThreadPool(pool.poolSize)) {
+            IntStream.range(0, taskCount).forEach(i -> {
+                executor.submit(this::runTask);
+            });
+        }
+    }
+
+    /**
+     * 环形队列线程池的等待策略参数
+     *
+     * <p>默认不包含 {@code SPIN}：{@code poolSize} 个空闲工作线程忙等会占满所有核心，核心数较少时单次调用可能耗时极长；
+     * 核心充足时可通过 {@code -p waitStrategy=SPIN} 单独运行。
+     */
+    @State(Scope.Benchmark)
+    public static class RingBufferConfig {
+
+        /**
+         * 等待策略名称，见 {@link RingBufferExecutor.WaitStrategy}
+         */
+        @Param({"YIELD", "PARK", "BACKOFF"})
+        public String waitStrategy;
+    }
+
+    /**
+     * 使用无锁环形队列线程池执行任务的基准测试方法
+     *
+     * <p>与 {@link #platformThreads(PoolConfig)} 相同的 {@code poolSize} 个平台线程与任务，只把 {@code LinkedBlockingQueue}
+     * 换成有界无锁 MPMC 环形队列（{@link RingBufferExecutor}）。
+     *
+     * <p>对比点：
+     * <ul>
+     *   <li>每个任务的分配量：环形队列不分配节点（见 {@code gc.alloc.rate.norm}）</li>
+     *   <li>提交 / 取任务不加锁，竞争体现在 CAS 重试与等待策略上</li>
+     *   <li>队列满时提交线程按等待策略等待（背压），而不是无限排队</li>
+     * </ul>
+     *
+     * @param config 等待策略参数
+     * @param pool 线程池大小参数
+     * @see RingBufferExecutor
+     */
+    @Benchmark
+    @Threads(1)
+    public void ringBufferThreads(RingBufferConfig config, PoolConfig pool) {
+        RingBufferExecutor.WaitStrategy waitStrategy = RingBufferExecutor.WaitStrategy.of(config.waitStrategy);
+        try (ExecutorService executor = new RingBufferExecutor(pool.poolSize, RING_CAPACITY, waitStrategy)) {
+            IntStream.range(0, taskCount).forEach(i -> {
+                executor.submit(this::runTask);
             });
         }
     }
@@ -100,16 +275,54 @@ public class ThreadBenchmark {
     @Threads(1)
     public void virtualThreads() {
         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-            IntStream.range(0, TASK_COUNT).forEach(i -> {
-                executor.submit(() -> {
-                    try {
-                        // 模拟 I/O 操作（如数据库查询、网络请求等）
-                        Thread.sleep(1);
-                    } catch (InterruptedException e) {
-                        // 恢复中断状态，确保线程能够正确响应中断信号
-                        Thread.currentThread().interrupt();
-                    }
-                });
+            IntStream.range(0, taskCount).forEach(i -> {
+                executor.submit(this::runTask);
+            });
+        }
+    }
+
+    /**
+     * 有界虚拟线程执行器的参数
+     */
+    @State(Scope.Benchmark)
+    public static class BoundedConfig {
+
+        /**
+         * 同时运行的任务数上限
+         */
+        @Param({"100", "1000"})
+        public int maxConcurrency;
+
+        /**
+         * 溢出策略名称，见 {@link BoundedVirtualThreadExecutor.OverflowPolicy}
+         */
+        @Param({"BLOCK", "CALLER_RUNS"})
+        public String policy;
+    }
+
+    /**
+     * 使用有界虚拟线程执行器执行任务的基准测试方法
+     *
+     * <p>与 {@link #virtualThreads()} 相同的任务，但同时运行的虚拟线程数受 {@code maxConcurrency} 限制，
+     * 超出部分以 {@link Runnable} 形式排队（最多 {@value #BOUNDED_MAX_QUEUED} 个），再超出时按溢出策略处理。
+     *
+     * <p>对比点：
+     * <ul>
+     *   <li>{@code maxConcurrency=100} 与 {@link #platformThreads(PoolConfig)} 并发度相同，只是运行在虚拟线程上</li>
+     *   <li>每任务分配量：排队的任务尚未创建虚拟线程，挂起的虚拟线程数有上限</li>
+     *   <li>{@code BLOCK} 阻塞提交线程；{@code CALLER_RUNS} 由提交线程执行任务，提交被自然放慢</li>
+     * </ul>
+     *
+     * @param config 并发上限与溢出策略参数
+     * @see BoundedVirtualThreadExecutor
+     */
+    @Benchmark
+    @Threads(1)
+    public void boundedVirtualThreads(BoundedConfig config) {
+        BoundedVirtualThreadExecutor.OverflowPolicy policy = BoundedVirtualThreadExecutor.OverflowPolicy.of(config.policy);
+        try (ExecutorService executor = new BoundedVirtualThreadExecutor(config.maxConcurrency, BOUNDED_MAX_QUEUED, policy)) {
+            IntStream.range(0, taskCount).forEach(i -> {
+                executor.submit(this::runTask);
             });
         }
     }
@@ -127,16 +340,92 @@ public class ThreadBenchmark {
      *
      * 或者直接运行此 main 方法。
      *
-     * @param args 命令行参数（未使用）
+     * <p>开启虚拟线程钉住检测（命令行运行 jar 时需通过 {@code -jvmArgsAppend} 传入）：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar ThreadBenchmark -jvmArgsAppend "-Djfr.pinning=true -Dpinning.failCount=0"
+     * }</pre>
+     *
+     * <p>默认只运行 CI 用的小矩阵；以 {@code full} 参数运行时展开 {@link #FULL_MATRIX} 与 {@link #FULL_MATRIX_CPU}（容量规划，耗时较长）。
+     * 命令行运行 jar 时用 {@code -p} 指定参数：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar ThreadBenchmark -p taskCount=1000,100000 -p blockMs=10 -p workload=MIXED -p poolSize=200
+     * }</pre>
+     *
+     * <p>运行时附带 GC 分析器，结束后按任务折算输出吞吐量（任务/秒）、每任务分配字节数与单次调用的 p50 / p99；
+     * 命令行运行 jar 时对应 {@code -prof gc}，{@code gc.alloc.rate.norm} 除以 {@code taskCount} 即每任务分配量。
+     *
+     * @param args 命令行参数：{@code full} 展开完整参数矩阵，其余忽略
      * @throws RunnerException 当基准测试运行失败时抛出
      */
     public static void main(String[] args) throws RunnerException {
         // 配置基准测试选项
-        Options opt = new OptionsBuilder()
-                .include(ThreadBenchmark.class.getSimpleName())  // 包含当前类的所有基准测试方法
-                .build();
+        // 将钉住检测相关的系统属性透传给 fork 出的 JVM
+        String[] forkedProperties = PINNING_PROPERTIES.stream()
+                .filter(k -> System.getProperty(k) != null)
+                .map(k -> "-D" + k + "=" + System.getProperty(k))
+                .toArray(String[]::new);
+
+        // 容量规划：覆盖注解中的 CI 默认值；CPU 部分单独运行，避免与 blockMs 交叉出重复的组合
+        List<Map<String, String[]>> matrices = List.of(args).contains("full")
+                ? List.of(FULL_MATRIX, FULL_MATRIX_CPU)
+                : List.of(Map.of());
 
         // 启动基准测试
-        new Runner(opt).run();
+        List<RunResult> results = new ArrayList<>();
+        for (Map<String, String[]> matrix : matrices) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(ThreadBenchmark.class.getSimpleName())  // 包含当前类的所有基准测试方法
+                    .jvmArgsAppend(forkedProperties)
+                    .addProfiler(GCProfiler.class);                  // 分配速率（gc.alloc.rate.norm = 每次调用分配的字节数）
+            matrix.forEach(builder::param);
+            Options opt = builder.build();
+            results.addAll(new Runner(opt).run());
+        }
+        printPerTaskSummary(results);
+    }
+
+    /**
+     * 按任务折算输出：吞吐量（任务/秒）、每任务分配字节数与单次调用耗时分布
+     *
+     * <p>每次基准调用执行 {@code taskCount} 个任务，耗时以毫秒计：
+     * <ul>
+     *   <li>AverageTime - 平均耗时折算的吞吐量与每任务分配量</li>
+     *   <li>Throughput - 每毫秒调用数折算的吞吐量</li>
+     *   <li>SampleTime - 单次调用（一整批任务）耗时的 p50 / p99</li>
+     * </ul>
+     *
+     * @param results JMH 运行结果
+     */
+    private static void printPerTaskSummary(Collection<RunResult> results) {
+        System.out.println();
+        System.out.println("Per-task summary:");
+        for (RunResult r : results) {
+            BenchmarkParams params = r.getParams();
+            String label = params.getBenchmark().replaceFirst(".*\\.", "")
+                    + params.getParamsKeys().stream()
+                    .map(k -> " " + k + "=" + params.getParam(k))
+                    .reduce("", String::concat);
+            int tasks = Integer.parseInt(params.getParam("taskCount"));
+            double score = r.getPrimaryResult().getScore();
+            switch (params.getMode()) {
+                case AverageTime -> {
+                    Result<?> alloc = r.getSecondaryResults().get("gc.alloc.rate.norm");
+                    System.out.printf(Locale.ROOT, "  %-90s avgt %12.1f tasks/s  %10s B/task%n",
+                            label,
+                            tasks * 1000.0 / score,
+                            alloc == null ? "n/a" : String.format(Locale.ROOT, "%.1f", alloc.getScore() / tasks));
+                }
+                case Throughput -> System.out.printf(Locale.ROOT, "  %-90s thrpt %11.1f tasks/s%n",
+                        label, score * tasks * 1000.0);
+                case SampleTime -> {
+                    Statistics stats = r.getPrimaryResult().getStatistics();
+                    System.out.printf(Locale.ROOT, "  %-90s sample p50 %8.2f ms  p99 %8.2f ms per invocation%n",
+                            label, stats.getPercentile(50.0), stats.getPercentile(99.0));
+                }
+                default -> {
+                    // 其他模式不折算
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,270 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程创建与启动延迟微基准：平台线程 vs 虚拟线程
+ *
+ * <p>{@link ThreadBenchmark} 一次执行 10,000 个睡眠任务，测得的是创建、调度与阻塞的总和。
+ * 此基准把单个线程的生命周期拆开，分别测量每个请求处理线程要付出的固定开销：
+ * <ul>
+ *   <li>{@link #unstarted} - 只创建 {@link Thread} 对象（{@code Thread.Builder.unstarted}），不启动</li>
+ *   <li>{@link #start} - {@code Thread.Builder.start} 调用本身的耗时（线程在 Invocation 级 TearDown 中 join）</li>
+ *   <li>{@link #startToFirstInstruction} - 从调用 {@code start} 到任务执行第一条指令的延迟</li>
+ *   <li>{@link #join} - 已在运行的线程被放行后，到 {@code join} 返回的延迟（含栈展开与线程退出）</li>
+ * </ul>
+ *
+ * <p>参数说明：
+ * <ul>
+ *   <li>{@code kind} - {@code PLATFORM}（{@code Thread.ofPlatform()}）或 {@code VIRTUAL}（{@code Thread.ofVirtual()}）</li>
+ *   <li>{@code factory} - 线程工厂选项：{@code PLAIN} 不命名、不继承；{@code NAMED} 带计数器命名；
+ *       {@code INHERIT} 继承 {@link InheritableThreadLocal}（JDK 默认行为）</li>
+ *   <li>{@code stackDepth} - 任务在结束（或等待放行）前递归的深度，模拟请求处理的调用栈；
+ *       虚拟线程的栈帧越深，挂起 / 恢复时复制的 stack chunk 越大</li>
+ * </ul>
+ *
+ * <p>注意：除 {@link #unstarted} 外，每次调用只处理一个线程，需要 {@link Level#Invocation} 级的
+ * Setup / TearDown 来启动或回收线程。单次操作在微秒量级，Invocation 级钩子的计时开销可以忽略，
+ * 但结果不适合与纳秒级基准直接比较。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ThreadCreationBenchmark {
+
+    /**
+     * {@code INHERIT} 选项下被子线程继承的值；在基准线程上设置，使继承时确实有 map 需要复制
+     */
+    private static final InheritableThreadLocal<String> REQUEST_CONTEXT = new InheritableThreadLocal<>();
+
+    /**
+     * 递归结果写入这里，防止 JIT 把递归当作无用代码消除
+     */
+    private static volatile int sink;
+
+    /**
+     * 线程类型与线程工厂选项，决定 {@link Thread.Builder} 的配置
+     */
+    @State(Scope.Thread)
+    public static class BuilderConfig {
+
+        /**
+         * 线程类型：PLATFORM 或 VIRTUAL
+         */
+        @Param({"PLATFORM", "VIRTUAL"})
+        public String kind;
+
+        /**
+         * 线程工厂选项：PLAIN / NAMED / INHERIT
+         */
+        @Param({"PLAIN", "NAMED", "INHERIT"})
+        public String factory;
+
+        /**
+         * 按参数配置好的构建器；{@code NAMED} 时带计数器，因此每个基准线程各持有一个（Scope.Thread）
+         */
+        Thread.Builder builder;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Thread.Builder b = "VIRTUAL".equals(kind) ? Thread.ofVirtual() : Thread.ofPlatform();
+            switch (factory) {
+                case "PLAIN" -> b.inheritInheritableThreadLocals(false);
+                case "NAMED" -> b.name("request-handler-", 0).inheritInheritableThreadLocals(false);
+                case "INHERIT" -> {
+                    b.inheritInheritableThreadLocals(true);
+                    REQUEST_CONTEXT.set("tenant=benchmark;trace=0af7651916cd43dd8448eb211c80319c");
+                }
+                default -> throw new IllegalArgumentException("Unknown factory: " + factory);
+            }
+            builder = b;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            REQUEST_CONTEXT.remove();
+        }
+    }
+
+    /**
+     * 任务在结束前的递归深度
+     */
+    @State(Scope.Thread)
+    public static class DepthConfig {
+
+        /**
+         * 递归深度（栈帧数）
+         */
+        @Param({"0", "64"})
+        public int stackDepth;
+    }
+
+    /**
+     * 启动类基准的每次调用状态：持有本次启动的线程，在 Invocation 结束后 join
+     */
+    @State(Scope.Thread)
+    public static class StartedThread {
+
+        /**
+         * 任务执行第一条指令时置为 true，基准线程自旋等待它
+         */
+        volatile boolean running;
+
+        Thread thread;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            running = false;
+        }
+
+        @TearDown(Level.Invocation)
+        public void joinThread() throws InterruptedException {
+            if (thread != null) {
+                thread.join();
+                thread = null;
+            }
+        }
+    }
+
+    /**
+     * join 基准的每次调用状态：Setup 中启动线程并等它递归到指定深度后自旋等待放行，
+     * 计时部分只包含放行、线程退出与 join 返回
+     */
+    @State(Scope.Thread)
+    public static class ParkedThread {
+
+        volatile boolean ready;
+        volatile boolean release;
+        Thread thread;
+
+        @Setup(Level.Invocation)
+        public void startAndWait(BuilderConfig config, DepthConfig depth) {
+            ready = false;
+            release = false;
+            thread = config.builder.start(() -> descend(depth.stackDepth, this));
+            while (!ready) {
+                Thread.onSpinWait();
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void ensureJoined() throws InterruptedException {
+            // 基准方法已 join；异常中断时这里兜底，避免线程泄漏到下一次调用
+            release = true;
+            thread.join();
+        }
+    }
+
+    /**
+     * 只创建线程对象，不启动
+     *
+     * <p>平台线程此时尚未分配本地线程与栈；虚拟线程只分配 {@code VirtualThread} 对象与其 continuation。
+     *
+     * @param config 线程类型与工厂选项
+     * @return 创建出的线程（交给 JMH 防止被消除）
+     */
+    @Benchmark
+    public Thread unstarted(BuilderConfig config) {
+        return config.builder.unstarted(ThreadCreationBenchmark::noop);
+    }
+
+    /**
+     * {@code start} 调用本身的耗时
+     *
+     * <p>平台线程包含 {@code pthread_create} 与栈映射；虚拟线程只是把 continuation 提交给调度器。
+     * 线程运行到指定深度后结束，在 Invocation 级 TearDown 中 join，不计入结果。
+     *
+     * @param config 线程类型与工厂选项
+     * @param depth 任务递归深度
+     * @param started 本次启动的线程
+     */
+    @Benchmark
+    public void start(BuilderConfig config, DepthConfig depth, StartedThread started) {
+        int stackDepth = depth.stackDepth;
+        started.thread = config.builder.start(() -> sink = recurse(stackDepth));
+    }
+
+    /**
+     * 从调用 {@code start} 到任务第一条指令的延迟
+     *
+     * <p>基准线程启动线程后自旋等待任务置位 {@code running}；对虚拟线程来说这包括调度器把任务分配给载体线程的时间。
+     *
+     * @param config 线程类型与工厂选项
+     * @param depth 任务递归深度（第一条指令之后执行）
+     * @param started 本次启动的线程
+     */
+    @Benchmark
+    public void startToFirstInstruction(BuilderConfig config, DepthConfig depth, StartedThread started) {
+        int stackDepth = depth.stackDepth;
+        started.thread = config.builder.start(() -> {
+            started.running = true;
+            sink = recurse(stackDepth);
+        });
+        while (!started.running) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 放行一个已在指定深度等待的线程并 join
+     *
+     * @param parked 已启动并在指定深度等待的线程
+     * @throws InterruptedException 等待被中断时抛出
+     */
+    @Benchmark
+    public void join(ParkedThread parked) throws InterruptedException {
+        parked.release = true;
+        parked.thread.join();
+    }
+
+    private static void noop() {
+    }
+
+    /**
+     * 递归到指定深度，返回值防止递归被优化掉
+     */
+    private static int recurse(int depth) {
+        return depth <= 0 ? 0 : recurse(depth - 1) + 1;
+    }
+
+    /**
+     * 递归到指定深度后标记就绪并自旋等待放行，让线程退出时带着完整的调用栈
+     */
+    private static int descend(int depth, ParkedThread state) {
+        if (depth > 0) {
+            return descend(depth - 1, state) + 1;
+        }
+        state.ready = true;
+        while (!state.release) {
+            Thread.onSpinWait();
+        }
+        return 0;
+    }
+
+    /**
+     * 基准测试的主入口方法
+     *
+     * <p>运行方式：
+     * <pre>{@code
+     * java -jar target/benchmarks.jar ThreadCreationBenchmark
+     * java -jar target/benchmarks.jar ThreadCreationBenchmark -p kind=VIRTUAL -p factory=PLAIN
+     * }</pre>
+     *
+     * @param args 命令行参数（未使用）
+     * @throws RunnerException 当基准测试运行失败时抛出
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ThreadCreationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}